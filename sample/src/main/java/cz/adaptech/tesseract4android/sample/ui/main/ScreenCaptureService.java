@@ -21,6 +21,7 @@ import android.util.Log;
 import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 
+import com.googlecode.tesseract.android.FrameChangeDetector;
 import com.googlecode.tesseract.android.TessBaseAPI;
 
 import java.io.File;
@@ -40,6 +41,8 @@ public class ScreenCaptureService extends Service {
     private ImageReader imageReader;
     private Handler screenshotHandler;
     private TesseractManager tesseractManager;
+    // Skips recognition while the screen content stays the same
+    private final FrameChangeDetector frameChangeDetector = new FrameChangeDetector(8);
 
     @Override
     public void onCreate() {
@@ -100,6 +103,11 @@ public class ScreenCaptureService extends Service {
 
         imageReader.setOnImageAvailableListener(reader -> {
             Bitmap screenshot = captureImageFromReader(reader);
+            if (screenshot != null && !frameChangeDetector.hasChanged(screenshot)) {
+                Log.d(TAG, "Screen content unchanged, skipping recognition");
+                screenshot.recycle();
+                screenshot = null;
+            }
             if (screenshot != null) {
                 File screenshotFile = saveBitmapToFile(screenshot);
                 if (screenshotFile != null) {
@@ -7,10 +7,18 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.MutableLiveData;
 
+import com.googlecode.leptonica.android.Pix;
+import com.googlecode.leptonica.android.ReadFile;
+import com.googlecode.tesseract.android.OcrResult;
 import com.googlecode.tesseract.android.TessBaseAPI;
 
 import java.io.File;
 import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class TesseractManager {
     private static final String TAG = "TesseractManager";
@@ -22,6 +30,8 @@ public class TesseractManager {
     private final Object recycleLock = new Object(); // Recycle lock added here
 
     private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private Future<OcrResult> pendingRecognition;
 
     // Singleton pattern to ensure a single instance of TesseractManager
     public static TesseractManager getInstance() {
@@ -67,20 +77,38 @@ public class TesseractManager {
             progress.postValue("Processing...");
 
             new Thread(() -> {
-                long startTime = System.currentTimeMillis();
-
-                tessApi.setImage(imageFile);  // Set image for Tesseract
-                String recognizedText = tessApi.getUTF8Text();  // Perform OCR
-                tessApi.clear();  // Clear image data from Tesseract
+                OcrResult ocrResult = null;
+
+                Pix image = ReadFile.readFile(imageFile);
+                if (image != null) {
+                    Future<OcrResult> future = null;
+                    synchronized (recycleLock) {
+                        if (tessInit) {
+                            // Recognize on the executor, so stopTesseract() can cancel it
+                            future = tessApi.recognizeAsync(image, executor);
+                            pendingRecognition = future;
+                        }
+                    }
+                    image.recycle();  // The engine keeps its own copy
+
+                    if (future != null) {
+                        try {
+                            ocrResult = future.get();
+                        } catch (CancellationException e) {
+                            Log.i(TAG, "Recognition cancelled");
+                        } catch (ExecutionException | InterruptedException e) {
+                            Log.e(TAG, "Recognition failed:", e);
+                        }
+                    }
+                }
 
-                long endTime = System.currentTimeMillis();
-                long duration = endTime - startTime;
+                final OcrResult recognized = ocrResult;
 
                 // Post results back to the main thread
                 handler.post(() -> {
-                    if (recognizedText != null) {
-                        result.postValue(recognizedText);
-                        progress.postValue(String.format(Locale.ENGLISH, "Completed in %.3fs.", (duration / 1000f)));
+                    if (recognized != null) {
+                        result.postValue(recognized.getText());
+                        progress.postValue(String.format(Locale.ENGLISH, "Completed in %.3fs.", (recognized.getElapsedMillis() / 1000f)));
                     } else {
                         progress.postValue("No text recognized.");
                     }
@@ -121,6 +149,10 @@ public class TesseractManager {
 
     public void stopTesseract() {
         synchronized (recycleLock) {
+            if (pendingRecognition != null) {
+                pendingRecognition.cancel(true);  // Stops the native recognition as well
+                pendingRecognition = null;
+            }
             if (tessApi != null) {
                 tessApi.stop();  // Use recycle instead of end
             }
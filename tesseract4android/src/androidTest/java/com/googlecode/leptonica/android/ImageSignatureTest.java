@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.leptonica.android;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class ImageSignatureTest {
+	@Test
+	public void testCompute_pix() {
+		Pix pixs = new Pix(4, 4, 32);
+		pixs.setPixel(0, 0, Color.WHITE);
+
+		// Each cell covers 2x2 pixels, one of which is white.
+		byte[] signature = ImageSignature.compute(pixs, 2, 2);
+		assertArrayEquals(new byte[]{64, 0, 0, 0}, signature);
+
+		pixs.recycle();
+	}
+
+	@Test
+	public void testCompute_bitmap() {
+		Bitmap bmp = Bitmap.createBitmap(4, 4, Bitmap.Config.ARGB_8888);
+		bmp.eraseColor(Color.WHITE);
+		bmp.setPixel(3, 3, Color.BLACK);
+
+		byte[] signature = ImageSignature.compute(bmp, 2, 2);
+		assertArrayEquals(new byte[]{(byte) 255, (byte) 255, (byte) 255, (byte) 191}, signature);
+
+		// Ensure that grids larger than the image are rejected.
+		try {
+			ImageSignature.compute(bmp, 5, 2);
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		}
+
+		bmp.recycle();
+	}
+
+	@Test
+	public void testMaxDifference() {
+		byte[] a = {0, 10, (byte) 200};
+		byte[] b = {5, 10, (byte) 250};
+
+		assertEquals(50, ImageSignature.maxDifference(a, b));
+		assertEquals(0, ImageSignature.maxDifference(a, a));
+	}
+
+	@Test
+	public void testDigest() {
+		Pix a = new Pix(33, 5, 1);
+		Pix b = new Pix(33, 5, 1);
+
+		// Ensure that equal content gives equal digests.
+		String digest = ImageSignature.digest(a);
+		assertEquals(32, digest.length());
+		assertEquals(digest, ImageSignature.digest(b));
+
+		// Ensure that a single changed pixel changes the digest.
+		b.setPixel(32, 4, 1);
+		assertFalse(digest.equals(ImageSignature.digest(b)));
+
+		a.recycle();
+		b.recycle();
+	}
+}
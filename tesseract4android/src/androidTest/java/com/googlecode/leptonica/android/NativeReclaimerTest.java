@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.leptonica.android;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NativeReclaimerTest {
+	@Before
+	public void setup() {
+		NativeReclaimer.setEnabled(true);
+	}
+
+	@After
+	public void tearDown() {
+		NativeReclaimer.setEnabled(false);
+	}
+
+	@Test
+	public void testRecycle_unregisters() {
+		int registered = NativeReclaimer.getRegisteredCount();
+		long reclaimed = NativeReclaimer.getReclaimedCount();
+
+		Pix pix = new Pix(640, 480, 8);
+		assertEquals(registered + 1, NativeReclaimer.getRegisteredCount());
+
+		pix.recycle();
+		assertEquals(registered, NativeReclaimer.getRegisteredCount());
+		assertEquals(reclaimed, NativeReclaimer.getReclaimedCount());
+
+		// Ensure that closing a recycled object does nothing.
+		pix.close();
+	}
+
+	@Test
+	public void testClose() {
+		int registered = NativeReclaimer.getRegisteredCount();
+
+		try (Box box = new Box(0, 0, 10, 10); Pixa pixa = Pixa.createPixa(1)) {
+			pixa.addBox(box, Constants.L_COPY);
+			assertEquals(registered + 2, NativeReclaimer.getRegisteredCount());
+		}
+
+		assertEquals(registered, NativeReclaimer.getRegisteredCount());
+	}
+
+	@Test
+	public void testReclaim() throws InterruptedException {
+		long reclaimed = NativeReclaimer.getReclaimedCount();
+
+		createUnreachablePix();
+
+		// Unreachable wrappers are only reclaimed after a garbage collection.
+		for (int i = 0; i < 50 && NativeReclaimer.getReclaimedCount() == reclaimed; i++) {
+			Runtime.getRuntime().gc();
+			Thread.sleep(100);
+		}
+
+		assertTrue(NativeReclaimer.getReclaimedCount() > reclaimed);
+	}
+
+	@Test
+	public void testDisabled() {
+		NativeReclaimer.setEnabled(false);
+		assertFalse(NativeReclaimer.isEnabled());
+
+		int registered = NativeReclaimer.getRegisteredCount();
+
+		Pix pix = new Pix(640, 480, 8);
+		assertEquals(registered, NativeReclaimer.getRegisteredCount());
+
+		pix.recycle();
+	}
+
+	private static void createUnreachablePix() {
+		new Pix(640, 480, 8);
+	}
+}
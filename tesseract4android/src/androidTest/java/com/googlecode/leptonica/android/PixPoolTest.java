@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.leptonica.android;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class PixPoolTest {
+	@Test
+	public void testAcquireRelease() {
+		PixPool pool = new PixPool(2);
+
+		Pix pix = pool.acquire(640, 480, 8);
+		assertEquals(640, pix.getWidth());
+		assertEquals(480, pix.getHeight());
+		assertEquals(8, pix.getDepth());
+
+		// Ensure that a released Pix is reused for the same size only.
+		pool.release(pix);
+		assertEquals(1, pool.getIdleCount());
+		Pix other = pool.acquire(640, 480, 32);
+		assertNotSame(pix, other);
+		Pix same = pool.acquire(640, 480, 8);
+		assertSame(pix, same);
+		assertEquals(0, pool.getIdleCount());
+
+		pool.release(other);
+		pool.release(same);
+		pool.recycle();
+	}
+
+	@Test
+	public void testRelease_full() {
+		PixPool pool = new PixPool(1);
+
+		Pix first = pool.acquire(100, 100, 8);
+		Pix second = pool.acquire(100, 100, 8);
+		pool.release(first);
+		pool.release(second);
+
+		// Ensure that the Pix which didn't fit into the pool was recycled.
+		assertEquals(1, pool.getIdleCount());
+		try {
+			second.getWidth();
+			fail("IllegalStateException not thrown");
+		} catch (IllegalStateException e) {
+			// Continue
+		}
+
+		pool.recycle();
+	}
+
+	@Test
+	public void testRecycle() {
+		PixPool pool = new PixPool(1);
+		Pix pix = pool.acquire(100, 100, 8);
+		pool.release(pix);
+		pool.recycle();
+
+		// Ensure that idle Pix objects are recycled and nothing can be acquired.
+		assertEquals(0, pool.getIdleCount());
+		try {
+			pool.acquire(100, 100, 8);
+			fail("IllegalStateException not thrown");
+		} catch (IllegalStateException e) {
+			// Continue
+		}
+	}
+}
@@ -19,17 +19,25 @@ package com.googlecode.leptonica.android;
 
 import android.graphics.Bitmap;
 import android.graphics.Bitmap.CompressFormat;
+import android.graphics.Color;
+import android.graphics.Rect;
+import android.os.ParcelFileDescriptor;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author alanv@google.com (Alan Viverette)
@@ -67,6 +75,182 @@ public class ReadFileTest {
 		pix.recycle();
 	}
 
+	@Test
+	public void testReadLumaPlane_packed() {
+		testReadLumaPlane(100, 80, 128, 1);
+	}
+
+	@Test
+	public void testReadLumaPlane_interleaved() {
+		testReadLumaPlane(100, 80, 256, 2);
+	}
+
+	private void testReadLumaPlane(int width, int height, int rowStride, int pixelStride) {
+		// Fill the plane with a gradient, without padding after the last row.
+		int length = rowStride * (height - 1) + (width - 1) * pixelStride + 1;
+		ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				buffer.put(y * rowStride + x * pixelStride, (byte) (x + y));
+			}
+		}
+
+		Pix pix = ReadFile.readLumaPlane(buffer, width, height, rowStride, pixelStride);
+		assertNotNull(pix);
+		assertEquals(width, pix.getWidth());
+		assertEquals(height, pix.getHeight());
+		assertEquals(8, pix.getDepth());
+
+		// Ensure that the strides were honoured.
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				assertEquals((x + y) & 0xFF, Color.red(pix.getPixel(x, y)));
+			}
+		}
+
+		pix.recycle();
+	}
+
+	@Test
+	public void testReadBitmapGray_argb8888() {
+		// Pure red is converted with the red weight only.
+		testReadBitmapGray(Bitmap.Config.ARGB_8888, Color.RED, 77);
+		testReadBitmapGray(Bitmap.Config.ARGB_8888, Color.WHITE, 255);
+	}
+
+	@Test
+	public void testReadBitmapGray_rgb565() {
+		testReadBitmapGray(Bitmap.Config.RGB_565, Color.RED, 77);
+		testReadBitmapGray(Bitmap.Config.RGB_565, Color.BLACK, 0);
+	}
+
+	@Test
+	public void testReadBitmapGray_alpha8() {
+		// Alpha is the coverage of black ink on white.
+		testReadBitmapGray(Bitmap.Config.ALPHA_8, Color.argb(64, 0, 0, 0), 191);
+	}
+
+	private void testReadBitmapGray(Bitmap.Config config, int color, int expectedGray) {
+		// Use an odd width to cover pixels which don't fill a whole word.
+		Bitmap bmp = Bitmap.createBitmap(13, 7, config);
+		bmp.eraseColor(color);
+
+		Pix pix = ReadFile.readBitmapGray(bmp);
+		assertNotNull(pix);
+		assertEquals(8, pix.getDepth());
+		assertEquals(bmp.getWidth(), pix.getWidth());
+		assertEquals(bmp.getHeight(), pix.getHeight());
+
+		for (int y = 0; y < pix.getHeight(); y++) {
+			for (int x = 0; x < pix.getWidth(); x++) {
+				assertEquals(expectedGray, Color.red(pix.getPixel(x, y)));
+			}
+		}
+
+		bmp.recycle();
+		pix.recycle();
+	}
+
+	@Test
+	public void testReadBitmap_rect() {
+		Bitmap bmp = Bitmap.createBitmap(64, 48, Bitmap.Config.ARGB_8888);
+		bmp.eraseColor(Color.WHITE);
+		bmp.setPixel(10, 20, Color.RED);
+		Rect rect = new Rect(10, 20, 30, 25);
+
+		Pix pix = ReadFile.readBitmap(bmp, rect);
+		assertNotNull(pix);
+		assertEquals(32, pix.getDepth());
+		assertEquals(rect.width(), pix.getWidth());
+		assertEquals(rect.height(), pix.getHeight());
+
+		// Ensure that the rectangle starts at its top left corner.
+		assertEquals(Color.RED, pix.getPixel(0, 0));
+		assertEquals(Color.WHITE, pix.getPixel(1, 0));
+
+		pix.recycle();
+		bmp.recycle();
+	}
+
+	@Test
+	public void testReadBitmapGray_rect() {
+		Bitmap bmp = Bitmap.createBitmap(64, 48, Bitmap.Config.RGB_565);
+		bmp.eraseColor(Color.WHITE);
+		bmp.setPixel(63, 47, Color.BLACK);
+		// Use an odd width to cover pixels which don't fill a whole word.
+		Rect rect = new Rect(50, 40, 64, 48);
+
+		Pix pix = ReadFile.readBitmapGray(bmp, rect);
+		assertNotNull(pix);
+		assertEquals(8, pix.getDepth());
+		assertEquals(rect.width(), pix.getWidth());
+		assertEquals(rect.height(), pix.getHeight());
+		assertEquals(0, Color.red(pix.getPixel(rect.width() - 1, rect.height() - 1)));
+		assertEquals(255, Color.red(pix.getPixel(0, 0)));
+
+		pix.recycle();
+
+		// Ensure that rectangles outside of the bitmap are rejected.
+		try {
+			ReadFile.readBitmapGray(bmp, new Rect(50, 40, 65, 48));
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		}
+
+		bmp.recycle();
+	}
+
+	@Test
+	public void testReplaceBitmap() {
+		Bitmap bmp = TestUtils.createTestBitmap(100, 100, Bitmap.Config.ARGB_8888);
+		Pix pix = new Pix(100, 100, 32);
+
+		boolean replaced = ReadFile.replaceBitmap(pix, bmp);
+		assertTrue(replaced);
+
+		float match = TestUtils.compareImages(pix, bmp);
+		assertTrue("Images do not match. match=" + match, (match >= 0.99f));
+
+		bmp.recycle();
+		pix.recycle();
+	}
+
+	@Test
+	public void testReplaceBitmapGray() {
+		Bitmap bmp = Bitmap.createBitmap(13, 7, Bitmap.Config.RGB_565);
+		bmp.eraseColor(Color.WHITE);
+		Pix pix = new Pix(13, 7, 8);
+
+		boolean replaced = ReadFile.replaceBitmapGray(pix, bmp);
+		assertTrue(replaced);
+		assertEquals(255, Color.red(pix.getPixel(12, 6)));
+
+		bmp.recycle();
+		pix.recycle();
+	}
+
+	@Test
+	public void testReplaceLumaPlane() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(16 * 4);
+		for (int i = 0; i < buffer.capacity(); i++) {
+			buffer.put(i, (byte) i);
+		}
+		Pix pix = new Pix(8, 4, 8);
+
+		// Read every other byte of 16 byte rows.
+		boolean replaced = ReadFile.replaceLumaPlane(pix, buffer, 8, 4, 16, 2);
+		assertTrue(replaced);
+		assertEquals(16 * 3 + 2 * 7, Color.red(pix.getPixel(7, 3)));
+
+		// Ensure that a Pix of another size is rejected.
+		Pix other = new Pix(4, 4, 8);
+		assertFalse(ReadFile.replaceLumaPlane(other, buffer, 8, 4, 16, 2));
+
+		other.recycle();
+		pix.recycle();
+	}
+
 	@Test
 	public void testReadFile_bmp() throws IOException {
 		File file = File.createTempFile("testReadFile", ".bmp");
@@ -111,6 +295,35 @@ public class ReadFileTest {
 		pix.recycle();
 	}
 
+	@Test
+	public void testReadJpeg_reduction() throws IOException {
+		File file = File.createTempFile("testReadJpeg", ".jpg");
+		FileOutputStream fileStream = new FileOutputStream(file);
+		Bitmap bmp = TestUtils.createTestBitmap(100, 100, Bitmap.Config.RGB_565);
+		boolean compressed = bmp.compress(CompressFormat.JPEG, 85, fileStream);
+
+		assertTrue(compressed);
+
+		// Ensure that the image is reduced while decoding, rounding up.
+		Pix pix = ReadFile.readJpeg(file, 8, false);
+		assertNotNull(pix);
+		assertEquals(32, pix.getDepth());
+		assertEquals(13, pix.getWidth());
+		assertEquals(13, pix.getHeight());
+		pix.recycle();
+
+		// Ensure that the target size is kept.
+		pix = ReadFile.readJpeg(file, 40, 30, true);
+		assertNotNull(pix);
+		assertEquals(8, pix.getDepth());
+		assertEquals(50, pix.getWidth());
+		assertEquals(50, pix.getHeight());
+		pix.recycle();
+
+		fileStream.close();
+		bmp.recycle();
+	}
+
 	@Test
 	public void testReadFile_png() throws IOException {
 		File file = File.createTempFile("testReadFile", ".png");
@@ -157,6 +370,87 @@ public class ReadFileTest {
 		pix.recycle();
 	}
 
+	@Test
+	public void testReadMemJpeg_luminance() throws IOException {
+		ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+		Bitmap bmp = Bitmap.createBitmap(64, 64, Bitmap.Config.ARGB_8888);
+		bmp.eraseColor(Color.WHITE);
+		boolean compressed = bmp.compress(CompressFormat.JPEG, 85, byteStream);
+
+		assertTrue(compressed);
+
+		Pix pix = ReadFile.readMemJpeg(byteStream.toByteArray(), 2, true);
+		assertNotNull(pix);
+		assertEquals(8, pix.getDepth());
+		assertEquals(32, pix.getWidth());
+		assertEquals(32, pix.getHeight());
+		assertTrue(Color.red(pix.getPixel(16, 16)) > 250);
+
+		// Ensure that unsupported reduction factors are rejected.
+		try {
+			ReadFile.readMemJpeg(byteStream.toByteArray(), 3, true);
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		}
+
+		assertEquals(1, ReadFile.getJpegReduction(100, 100, 100, 100));
+		assertEquals(4, ReadFile.getJpegReduction(4000, 3000, 1000, 700));
+		assertEquals(8, ReadFile.getJpegReduction(8000, 6000, 100, 100));
+
+		byteStream.close();
+		bmp.recycle();
+		pix.recycle();
+	}
+
+	@Test
+	public void testReadStream_png() throws IOException {
+		ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+		Bitmap bmp = TestUtils.createTestBitmap(100, 100, Bitmap.Config.RGB_565);
+		boolean compressed = bmp.compress(CompressFormat.PNG, 100, byteStream);
+
+		assertTrue(compressed);
+
+		InputStream stream = new ByteArrayInputStream(byteStream.toByteArray());
+		Pix pix = ReadFile.readStream(stream);
+		assertNotNull(pix);
+		assertEquals(bmp.getWidth(), pix.getWidth());
+		assertEquals(bmp.getHeight(), pix.getHeight());
+
+		float match = TestUtils.compareImages(pix, bmp);
+		assertTrue("Images do not match. match=" + match, (match >= 0.99f));
+
+		stream.close();
+		byteStream.close();
+		bmp.recycle();
+		pix.recycle();
+	}
+
+	@Test
+	public void testReadFd_jpg() throws IOException {
+		File file = File.createTempFile("testReadFd", ".jpg");
+		FileOutputStream fileStream = new FileOutputStream(file);
+		Bitmap bmp = TestUtils.createTestBitmap(100, 100, Bitmap.Config.RGB_565);
+		boolean compressed = bmp.compress(CompressFormat.JPEG, 85, fileStream);
+		fileStream.close();
+
+		assertTrue(compressed);
+
+		ParcelFileDescriptor pfd = ParcelFileDescriptor.open(file,
+				ParcelFileDescriptor.MODE_READ_ONLY);
+		Pix pix = ReadFile.readFd(pfd);
+		assertNotNull(pix);
+		assertEquals(bmp.getWidth(), pix.getWidth());
+		assertEquals(bmp.getHeight(), pix.getHeight());
+
+		float match = TestUtils.compareImages(pix, bmp, 15);
+		assertTrue("Images do not match. match=" + match, (match >= 0.98f));
+
+		pfd.close();
+		bmp.recycle();
+		pix.recycle();
+	}
+
 	@Test
 	public void testReadMem_png() throws IOException {
 		ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
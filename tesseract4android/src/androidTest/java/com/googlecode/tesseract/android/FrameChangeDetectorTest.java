@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.googlecode.tesseract.android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class FrameChangeDetectorTest {
+
+	private String tessDataPath;
+	private String language;
+
+	@Before
+	public void setup() {
+		Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+		// Copy language data to storage
+		Assets.extractAssets(context);
+
+		tessDataPath = Assets.getTessDataPath(context);
+		language = Assets.getLanguage();
+	}
+
+	@Test
+	public void testHasChanged() {
+		final FrameChangeDetector detector = new FrameChangeDetector(4);
+		final Bitmap hello = TessBaseAPITest.getTextImage("hello", 640, 480);
+		final Bitmap world = TessBaseAPITest.getTextImage("world", 640, 480);
+
+		// Ensure that the first frame is always changed.
+		assertTrue(detector.hasChanged(hello));
+		assertFalse(detector.hasChanged(hello));
+
+		// Ensure that a single pixel is within the tolerance.
+		final Bitmap noisy = hello.copy(Bitmap.Config.ARGB_8888, true);
+		noisy.setPixel(0, 0, Color.BLACK);
+		assertFalse(detector.hasChanged(noisy));
+		assertEquals(2, detector.getSkippedCount());
+
+		// Ensure that a changed word is detected.
+		assertTrue(detector.hasChanged(world));
+		assertFalse(detector.hasChanged(world));
+
+		detector.reset();
+		assertTrue(detector.hasChanged(world));
+
+		noisy.recycle();
+		world.recycle();
+		hello.recycle();
+	}
+
+	@Test
+	public void testRecognize_cachesResult() {
+		final FrameChangeDetector detector = new FrameChangeDetector(4);
+		final Bitmap hello = TessBaseAPITest.getTextImage("hello", 640, 480);
+		final Bitmap world = TessBaseAPITest.getTextImage("world", 640, 480);
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+
+		final OcrResult first = detector.recognize(baseApi, hello);
+		assertNotNull(first);
+		assertEquals("hello", first.getText());
+
+		// Ensure that an unchanged frame returns the cached result.
+		assertSame(first, detector.recognize(baseApi, hello));
+
+		final OcrResult second = detector.recognize(baseApi, world);
+		assertEquals("world", second.getText());
+
+		detector.reset();
+		assertNull(detector.getCachedResult());
+
+		baseApi.recycle();
+		world.recycle();
+		hello.recycle();
+	}
+
+	@Test
+	public void testRecognize_countsSkippedFrames() {
+		final FrameChangeDetector detector = new FrameChangeDetector(4);
+		final Bitmap hello = TessBaseAPITest.getTextImage("hello", 640, 480);
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+
+		// Ensure that an unchanged frame without a cached result is recognized
+		// and not counted as skipped.
+		assertTrue(detector.hasChanged(hello));
+		assertEquals("hello", detector.recognize(baseApi, hello).getText());
+		assertEquals(0, detector.getSkippedCount());
+
+		// Ensure that a frame answered from the cache is counted.
+		detector.recognize(baseApi, hello);
+		assertEquals(1, detector.getSkippedCount());
+
+		baseApi.recycle();
+		hello.recycle();
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.googlecode.tesseract.android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class IncrementalRecognizerTest {
+
+	private String tessDataPath;
+	private String language;
+
+	@Before
+	public void setup() {
+		Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+		// Copy language data to storage
+		Assets.extractAssets(context);
+
+		tessDataPath = Assets.getTessDataPath(context);
+		language = Assets.getLanguage();
+	}
+
+	@Test
+	public void testRecognize_changedRegionOnly() {
+		final Bitmap first = getTwoLineImage("hello", "world");
+		final Bitmap second = getTwoLineImage("hello", "tesseract");
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+
+		final IncrementalRecognizer recognizer = new IncrementalRecognizer(baseApi, 32, 2);
+
+		// Ensure that the first frame is recognized as a whole.
+		List<OcrWord> words = recognizer.recognize(first);
+		assertEquals(2, words.size());
+		assertEquals("hello", words.get(0).getText());
+		assertEquals("world", words.get(1).getText());
+		assertEquals(new Rect(0, 0, 640, 480), recognizer.getLastRegions().get(0));
+
+		// Ensure that only the bottom line is recognized again.
+		words = recognizer.recognize(second);
+		assertEquals(2, words.size());
+		assertEquals("hello", words.get(0).getText());
+		assertEquals("tesseract", words.get(1).getText());
+		assertFalse(recognizer.getLastRegions().isEmpty());
+		for (Rect region : recognizer.getLastRegions()) {
+			assertTrue(region.top > 240);
+		}
+
+		// Ensure that an unchanged frame isn't recognized at all.
+		words = recognizer.recognize(second);
+		assertEquals(2, words.size());
+		assertTrue(recognizer.getLastRegions().isEmpty());
+
+		baseApi.recycle();
+		second.recycle();
+		first.recycle();
+	}
+
+	@Test
+	public void testRecognize_slowChangesAccumulate() {
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+
+		final IncrementalRecognizer recognizer = new IncrementalRecognizer(baseApi, 32, 8);
+
+		final Bitmap first = getShadedImage(255);
+		recognizer.recognize(first);
+		first.recycle();
+
+		// Ensure that a change within the tolerance isn't recognized.
+		final Bitmap second = getShadedImage(250);
+		recognizer.recognize(second);
+		assertTrue(recognizer.getLastRegions().isEmpty());
+		second.recycle();
+
+		// Ensure that another small change adds up to the first one.
+		final Bitmap third = getShadedImage(245);
+		recognizer.recognize(third);
+		assertFalse(recognizer.getLastRegions().isEmpty());
+		third.recycle();
+
+		baseApi.recycle();
+	}
+
+	private static Bitmap getShadedImage(int gray) {
+		final Bitmap bmp = getTwoLineImage("hello", "world");
+
+		// Shade a band between the lines
+		final Canvas canvas = new Canvas(bmp);
+		final Paint paint = new Paint();
+		paint.setColor(Color.rgb(gray, gray, gray));
+		canvas.drawRect(0, 200, 640, 300, paint);
+
+		return bmp;
+	}
+
+	private static Bitmap getTwoLineImage(String top, String bottom) {
+		final Bitmap bmp = Bitmap.createBitmap(640, 480, Bitmap.Config.ARGB_8888);
+
+		final Canvas canvas = new Canvas(bmp);
+		canvas.drawColor(Color.WHITE);
+
+		final Paint paint = new Paint();
+		paint.setColor(Color.BLACK);
+		paint.setAntiAlias(true);
+		paint.setTextSize(24.0f);
+		canvas.drawText(top, 50, 100, paint);
+		canvas.drawText(bottom, 50, 400, paint);
+
+		return bmp;
+	}
+}
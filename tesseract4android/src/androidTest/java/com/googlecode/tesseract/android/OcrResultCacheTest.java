@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import android.content.Context;
+import android.graphics.Rect;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Collections;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class OcrResultCacheTest {
+
+	private File directory;
+
+	@Before
+	public void setup() {
+		Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+		directory = new File(context.getCacheDir(), "ocr-result-cache-test");
+	}
+
+	@After
+	public void tearDown() {
+		new OcrResultCache(1, directory, Long.MAX_VALUE).clear();
+	}
+
+	@Test
+	public void testGet_memory() {
+		OcrResultCache cache = new OcrResultCache(2);
+		OcrResultCache.Entry entry = createEntry("hello");
+
+		assertNull(cache.get("a"));
+		cache.put("a", entry);
+		assertSame(entry, cache.get("a"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		// Ensure that the memory tier is limited.
+		cache.put("b", createEntry("b"));
+		cache.put("c", createEntry("c"));
+		assertNull(cache.get("a"));
+
+		cache.evictAll();
+		assertNull(cache.get("c"));
+	}
+
+	@Test
+	public void testGet_disk() {
+		OcrResultCache cache = new OcrResultCache(2, directory, Long.MAX_VALUE);
+		cache.put("a", createEntry("hello"));
+
+		// Ensure that results survive in the disk tier.
+		cache.evictAll();
+		OcrResultCache.Entry entry = new OcrResultCache(2, directory, Long.MAX_VALUE).get("a");
+		assertNotNull(entry);
+		assertEquals("hello", entry.getText());
+		assertEquals(90, entry.getMeanConfidence());
+		assertEquals(1, entry.getWords().size());
+
+		OcrWord word = entry.getWords().get(0);
+		assertEquals("hello", word.getText());
+		assertEquals(90f, word.getConfidence(), 0f);
+		assertEquals(new Rect(1, 2, 3, 4), word.getBoundingRect());
+
+		// Ensure that other keys are not found.
+		assertNull(cache.get("b"));
+
+		cache.clear();
+		assertNull(cache.get("a"));
+	}
+
+	@Test
+	public void testPut_trimsDisk() {
+		OcrResultCache cache = new OcrResultCache(1, directory, 1);
+		cache.put("a", createEntry("hello"));
+		cache.put("b", createEntry("world"));
+
+		// Ensure that files exceeding the disk budget are removed.
+		cache.evictAll();
+		assertNull(cache.get("a"));
+	}
+
+	private static OcrResultCache.Entry createEntry(String text) {
+		return new OcrResultCache.Entry(text, 90, Collections.singletonList(
+				new OcrWord(text, 90f, new Rect(1, 2, 3, 4))));
+	}
+}
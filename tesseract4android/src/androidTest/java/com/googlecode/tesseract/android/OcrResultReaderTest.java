@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.googlecode.tesseract.android.TessBaseAPI.PageIteratorLevel;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class OcrResultReaderTest {
+
+	private static final String INPUT_TEXT = "hello world\nfoo bar";
+
+	private Context context;
+	private String tessDataPath;
+	private String language;
+
+	@Before
+	public void setup() {
+		context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+		// Copy language data to storage
+		Assets.extractAssets(context);
+
+		tessDataPath = Assets.getTessDataPath(context);
+		language = Assets.getLanguage();
+	}
+
+	@Test
+	public void testWriteResults_buffer() {
+		final Bitmap bmp = TessBaseAPITest.getTextImage(INPUT_TEXT, 640, 480);
+		final TessBaseAPI baseApi = createApi(bmp);
+
+		// Ensure that nothing is written into a buffer which is too small.
+		ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+		int size = baseApi.writeResults(buffer, PageIteratorLevel.RIL_WORD);
+		assertTrue(size > buffer.capacity());
+		assertEquals(0, buffer.position());
+
+		buffer = ByteBuffer.allocateDirect(size + 8);
+		buffer.position(8);
+		assertEquals(size, baseApi.writeResults(buffer, PageIteratorLevel.RIL_WORD));
+		assertEquals(size + 8, buffer.position());
+
+		buffer.position(8);
+		OcrResultReader reader = new OcrResultReader(buffer);
+		assertEquals(size, reader.getSize());
+		testWords(reader);
+
+		// Ensure that heap buffers are rejected.
+		try {
+			baseApi.writeResults(ByteBuffer.allocate(size), PageIteratorLevel.RIL_WORD);
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		}
+
+		// Ensure that a null buffer is rejected.
+		try {
+			baseApi.writeResults((ByteBuffer) null, PageIteratorLevel.RIL_WORD);
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		}
+
+		baseApi.recycle();
+		bmp.recycle();
+	}
+
+	@Test
+	public void testWriteResults_file() throws IOException {
+		final Bitmap bmp = TessBaseAPITest.getTextImage(INPUT_TEXT, 640, 480);
+		final TessBaseAPI baseApi = createApi(bmp);
+		final File file = new File(context.getCacheDir(), "results.bin");
+
+		assertTrue(baseApi.writeResults(file, PageIteratorLevel.RIL_SYMBOL));
+
+		OcrResultReader reader = OcrResultReader.map(file);
+		assertEquals(file.length(), reader.getSize());
+
+		// Ensure that symbols are nested in words.
+		int symbols = 0;
+		for (int i = 0; i < reader.getCount(); i++) {
+			if (reader.getLevel(i) == PageIteratorLevel.RIL_SYMBOL) {
+				assertEquals(PageIteratorLevel.RIL_WORD, reader.getLevel(reader.getParent(i)));
+				assertEquals(i + 1, reader.getEnd(i));
+				symbols++;
+			}
+		}
+		assertEquals(INPUT_TEXT.replaceAll("\\s", "").length(), symbols);
+		assertEquals(INPUT_TEXT, reader.getText(0));
+
+		assertTrue(file.delete());
+		baseApi.recycle();
+		bmp.recycle();
+	}
+
+	@Test
+	public void testReader_invalid() {
+		try {
+			new OcrResultReader(ByteBuffer.allocate(64));
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		}
+	}
+
+	private TessBaseAPI createApi(Bitmap bmp) {
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_BLOCK);
+		baseApi.setImage(bmp);
+		return baseApi;
+	}
+
+	private static void testWords(OcrResultReader reader) {
+		// Block, paragraph, two lines and four words in pre-order
+		assertEquals(8, reader.getCount());
+		assertEquals(PageIteratorLevel.RIL_BLOCK, reader.getLevel(0));
+		assertEquals(-1, reader.getParent(0));
+		assertEquals(reader.getCount(), reader.getEnd(0));
+		assertEquals(INPUT_TEXT, reader.getText(0));
+
+		assertEquals(PageIteratorLevel.RIL_TEXTLINE, reader.getLevel(2));
+		assertEquals("hello world", reader.getText(2));
+		assertEquals(5, reader.getEnd(2));
+		assertEquals(PageIteratorLevel.RIL_WORD, reader.getLevel(3));
+		assertEquals(2, reader.getParent(3));
+		assertEquals("hello", reader.getText(3));
+		assertEquals("bar", reader.getText(7));
+		assertEquals(5, reader.getParent(7));
+
+		Rect line = new Rect();
+		Rect word = new Rect();
+		reader.getBoundingRect(2, line);
+		reader.getBoundingRect(3, word);
+		assertTrue(line.contains(word));
+		assertTrue(reader.getConfidence(3) > 0);
+	}
+}
@@ -21,10 +21,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.graphics.Bitmap;
 import android.graphics.Bitmap.CompressFormat;
 import android.graphics.Canvas;
@@ -43,6 +45,7 @@ import androidx.test.platform.app.InstrumentationRegistry;
 
 import com.googlecode.leptonica.android.Pix;
 import com.googlecode.leptonica.android.Pixa;
+import com.googlecode.leptonica.android.ReadFile;
 import com.googlecode.tesseract.android.TessBaseAPI.PageIteratorLevel;
 import com.googlecode.tesseract.android.TessBaseAPI.ProgressNotifier;
 import com.googlecode.tesseract.android.TessBaseAPI.ProgressValues;
@@ -54,10 +57,17 @@ import org.junit.runner.RunWith;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @SmallTest
 @RunWith(AndroidJUnit4.class)
@@ -65,12 +75,13 @@ public class TessBaseAPITest {
 
 	private static final int DEFAULT_PAGE_SEG_MODE = TessBaseAPI.PageSegMode.PSM_SINGLE_BLOCK;
 
+	private Context context;
 	private String tessDataPath;
 	private String language;
 
 	@Before
 	public void setup() {
-		Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+		context = InstrumentationRegistry.getInstrumentation().getTargetContext();
 
 		// Copy language data to storage
 		Assets.extractAssets(context);
@@ -121,7 +132,7 @@ public class TessBaseAPITest {
 		bmp.recycle();
 	}
 
-	private static Bitmap getTextImage(String text, int width, int height) {
+	static Bitmap getTextImage(String text, int width, int height) {
 		final Bitmap bmp = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
 
 		final Canvas canvas = new Canvas(bmp);
@@ -280,6 +291,43 @@ public class TessBaseAPITest {
 		baseApi.recycle();
 	}
 
+	@Test
+	public void testInit_assetFileDescriptor() throws IOException {
+		final String inputText = "hello";
+		final Bitmap bmp = getTextImage(inputText, 640, 480);
+
+		// Attempt to initialize the API from the traineddata asset.
+		final AssetFileDescriptor afd = context.getAssets().openFd(language + ".traineddata");
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, afd, language, TessBaseAPI.OEM_LSTM_ONLY);
+		afd.close();
+		assertTrue(success);
+		assertEquals(language, baseApi.getInitLanguagesAsString());
+
+		// Ensure that the engine works after the descriptor was closed.
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+		baseApi.setImage(bmp);
+		assertEquals(inputText, baseApi.getUTF8Text());
+
+		baseApi.recycle();
+		bmp.recycle();
+	}
+
+	@Test
+	public void testInit_assetFileDescriptorMultipleLanguages() throws IOException {
+		final AssetFileDescriptor afd = context.getAssets().openFd(language + ".traineddata");
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		try {
+			baseApi.init(tessDataPath, afd, language + "+" + language, TessBaseAPI.OEM_LSTM_ONLY);
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		} finally {
+			afd.close();
+			baseApi.recycle();
+		}
+	}
+
 	@Test
 	public void testGetThresholdedImage() {
 		// Attempt to initialize the API.
@@ -318,6 +366,38 @@ public class TessBaseAPITest {
 		testGetUTF8Text(language, TessBaseAPI.OEM_TESSERACT_ONLY);
 	}
 
+	@Test
+	public void testGetUTF8Text_timeout() {
+		StringBuilder inputTextBuilder = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			inputTextBuilder.append("The quick brown fox jumps over the lazy dog.\n");
+		}
+		final Bitmap bmp = getTextImage(inputTextBuilder.toString(), 640, 1000);
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setImage(bmp);
+
+		// Ensure that recognition gives up with partial results.
+		final String partialText = baseApi.getUTF8Text(1);
+		assertNotNull(partialText);
+		assertTrue(baseApi.isTimedOut());
+		assertTrue(partialText.length() < inputTextBuilder.length());
+
+		// Ensure that a sufficient timeout doesn't limit recognition.
+		final String inputText = "hello";
+		final Bitmap smallBmp = getTextImage(inputText, 640, 480);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+		baseApi.setImage(smallBmp);
+		assertEquals(inputText, baseApi.getUTF8Text(60000));
+		assertFalse(baseApi.isTimedOut());
+
+		baseApi.recycle();
+		smallBmp.recycle();
+		bmp.recycle();
+	}
+
 	private void testGetUTF8Text(String language, int ocrEngineMode) {
 		final String inputText = "hello";
 		final Bitmap bmp = getTextImage(inputText, 640, 480);
@@ -390,6 +470,62 @@ public class TessBaseAPITest {
 		bmp.recycle();
 	}
 
+	@Test
+	public void testGetWordLayout() {
+		final String inputText = "hello world\nfoo bar";
+		final Bitmap bmp = getTextImage(inputText, 640, 480);
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_BLOCK);
+		baseApi.setImage(bmp);
+
+		// Ensure that the layout matches the iterator.
+		WordLayout layout = baseApi.getWordLayout(PageIteratorLevel.RIL_WORD);
+		assertEquals(PageIteratorLevel.RIL_WORD, layout.getLevel());
+		assertEquals(4, layout.getCount());
+		assertEquals(layout.getCount() + 1, layout.getOffsets().length);
+		assertEquals(4 * layout.getCount(), layout.getBoxes().length);
+
+		ResultIterator iterator = baseApi.getResultIterator();
+		iterator.begin();
+		for (int i = 0; i < layout.getCount(); i++) {
+			assertEquals(iterator.getUTF8Text(PageIteratorLevel.RIL_WORD), layout.getText(i));
+			assertEquals(iterator.getBoundingRect(PageIteratorLevel.RIL_WORD),
+					layout.getBoundingRect(i));
+			assertEquals(iterator.confidence(PageIteratorLevel.RIL_WORD),
+					layout.getConfidence(i), 0.001f);
+			iterator.next(PageIteratorLevel.RIL_WORD);
+		}
+		iterator.delete();
+
+		// Ensure that words know their lines.
+		assertEquals("hello", layout.getText(0));
+		assertEquals("bar", layout.getText(3));
+		assertEquals(0, layout.getBlockIndex(0));
+		assertEquals(0, layout.getLineIndex(0));
+		assertEquals(0, layout.getLineIndex(1));
+		assertEquals(1, layout.getLineIndex(2));
+		assertEquals(1, layout.getLineIndex(3));
+
+		// Ensure that levels which aren't parents are not set.
+		WordLayout lines = baseApi.getWordLayout(PageIteratorLevel.RIL_TEXTLINE);
+		assertEquals(2, lines.getCount());
+		assertEquals("foo bar", lines.getText(1));
+		assertEquals(-1, lines.getLineIndex(1));
+
+		try {
+			baseApi.getWordLayout(5);
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		}
+
+		baseApi.recycle();
+		bmp.recycle();
+	}
+
 	@Test
 	public void testInit() {
 		// Attempt to initialize the API.
@@ -482,6 +618,53 @@ public class TessBaseAPITest {
 		bmp.recycle();
 	}
 
+	@Test
+	public void testProgressValues_throttle() {
+		StringBuilder inputTextBuilder = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			inputTextBuilder.append("The quick brown fox jumps over the lazy dog.\n");
+		}
+		final Bitmap bmp = getTextImage(inputTextBuilder.toString(), 640, 480);
+		final Rect imageBounds = new Rect(0, 0, bmp.getWidth(), bmp.getHeight());
+		final int minPercentDelta = 10;
+
+		class Notifier implements ProgressNotifier {
+			public int notifications = 0;
+			public int lastPercent = 0;
+			public ProgressValues lastValues;
+
+			@Override
+			public void onProgressValues(ProgressValues progressValues) {
+				// Ensure that the values are reused and throttled.
+				if (lastValues != null) {
+					assertSame(lastValues, progressValues);
+				}
+				assertTrue(progressValues.getPercent() - lastPercent >= minPercentDelta);
+				testProgressValues(progressValues, imageBounds);
+
+				notifications++;
+				lastPercent = progressValues.getPercent();
+				lastValues = progressValues;
+			}
+		}
+
+		final Notifier notifier = new Notifier();
+
+		final TessBaseAPI baseApi = new TessBaseAPI(notifier);
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setProgressThrottle(0, minPercentDelta);
+		baseApi.setImage(bmp);
+
+		// Ensure that we receive at most one notification per delta.
+		baseApi.getHOCRText(0);
+		assertTrue(notifier.notifications > 0);
+		assertTrue(notifier.notifications <= 100 / minPercentDelta);
+
+		baseApi.recycle();
+		bmp.recycle();
+	}
+
 	@Test
 	public void testProgressValues_setRectangle() {
 		class Notifier implements ProgressNotifier {
@@ -585,6 +768,230 @@ public class TessBaseAPITest {
 		}
 	}
 
+	@Test
+	public void testRecognizeRegions() {
+		final int width = 640;
+		final int height = 480;
+		final Bitmap bmp = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+		final Paint paint = new Paint();
+		final Canvas canvas = new Canvas(bmp);
+
+		canvas.drawColor(Color.WHITE);
+
+		paint.setColor(Color.BLACK);
+		paint.setStyle(Style.FILL);
+		paint.setAntiAlias(true);
+		paint.setTextAlign(Align.CENTER);
+		paint.setTextSize(32.0f);
+
+		// Draw separate text on the left and right halves of the image.
+		final String leftInput = "hello";
+		final String rightInput = "world";
+		canvas.drawText(leftInput, width / 4, height / 2, paint);
+		canvas.drawText(rightInput, width * 3 / 4, height / 2, paint);
+		final Pix pix = ReadFile.readBitmap(bmp);
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+
+		// Ensure that the results are returned in the order of the rectangles.
+		OcrBatchResult result = baseApi.recognizeRegions(pix, new int[]{
+				width / 2, 0, width / 2, height,
+				0, 0, width / 2, height});
+		assertEquals(2, result.getCount());
+		assertEquals(rightInput, result.getText(0));
+		assertEquals(leftInput, result.getText(1));
+		assertTrue(result.getMeanConfidence(0) > 0);
+		assertTrue(result.getMeanConfidence(1) > 0);
+		assertEquals(result.getPackedText().length, result.getOffsets()[2]);
+
+		baseApi.recycle();
+		pix.recycle();
+		bmp.recycle();
+	}
+
+	@Test
+	public void testRecognizeBatch() {
+		final String[] inputTexts = {"hello", "world", "quick"};
+		final Bitmap[] bmps = new Bitmap[inputTexts.length];
+		final Pix[] pixs = new Pix[inputTexts.length];
+		for (int i = 0; i < inputTexts.length; i++) {
+			bmps[i] = getTextImage(inputTexts[i], 320, 100);
+			pixs[i] = ReadFile.readBitmap(bmps[i]);
+		}
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+
+		// Ensure that every image is recognized.
+		OcrBatchResult result = baseApi.recognizeBatch(pixs);
+		assertEquals(inputTexts.length, result.getCount());
+		for (int i = 0; i < inputTexts.length; i++) {
+			assertEquals(inputTexts[i], result.getText(i));
+			assertTrue(result.getMeanConfidence(i) > 0);
+		}
+
+		// Ensure that an empty batch works.
+		assertEquals(0, baseApi.recognizeBatch(new Pix[0]).getCount());
+
+		baseApi.recycle();
+		for (int i = 0; i < inputTexts.length; i++) {
+			pixs[i].recycle();
+			bmps[i].recycle();
+		}
+	}
+
+	@Test
+	public void testRecognizeBatch_timeout() {
+		final String inputText = "the quick brown fox jumps over the lazy dog";
+		final Bitmap bmp = getTextImage(inputText, 1280, 100);
+		final Pix pix = ReadFile.readBitmap(bmp);
+		final Pix[] pixs = new Pix[8];
+		Arrays.fill(pixs, pix);
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+
+		// Ensure that a generous timeout doesn't change the results.
+		OcrBatchResult result = baseApi.recognizeBatch(pixs, 60000);
+		assertFalse(baseApi.isTimedOut());
+		assertEquals(inputText, result.getText(pixs.length - 1));
+
+		// Ensure that the deadline covers the whole batch and leaves the
+		// remaining images empty.
+		result = baseApi.recognizeBatch(pixs, 1);
+		assertTrue(baseApi.isTimedOut());
+		assertEquals(pixs.length, result.getCount());
+		assertEquals("", result.getText(pixs.length - 1));
+
+		// Ensure that the timeout must be positive.
+		try {
+			baseApi.recognizeBatch(pixs, 0);
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		}
+
+		baseApi.recycle();
+		pix.recycle();
+		bmp.recycle();
+	}
+
+	@Test
+	public void testRecognizeAsync() throws ExecutionException, InterruptedException {
+		final String inputText = "hello";
+		final Bitmap bmp = getTextImage(inputText, 640, 480);
+		final Pix pix = ReadFile.readBitmap(bmp);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+
+		// The image is cloned, so it may be recycled right away.
+		Future<OcrResult> future = baseApi.recognizeAsync(pix, executor);
+		pix.recycle();
+
+		// Ensure that text is recognized.
+		OcrResult result = future.get();
+		assertEquals(inputText, result.getText());
+		assertTrue(result.getMeanConfidence() > 0);
+
+		executor.shutdown();
+		baseApi.recycle();
+		bmp.recycle();
+	}
+
+	@Test
+	public void testRecognizeAsync_cancel() throws InterruptedException {
+		StringBuilder inputTextBuilder = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			inputTextBuilder.append("The quick brown fox jumps over the lazy dog.\n");
+		}
+		final Bitmap bmp = getTextImage(inputTextBuilder.toString(), 640, 1000);
+		final Pix pix = ReadFile.readBitmap(bmp);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		final Semaphore progressSem = new Semaphore(0);
+		final TessBaseAPI baseApi = new TessBaseAPI(progressValues -> {
+			if (progressValues.getPercent() > 50) {
+				fail("OCR recognition was too fast, try to increase the image size and amount of text?");
+			}
+			if (progressValues.getPercent() > 0) {
+				progressSem.release();
+			}
+		});
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+
+		Future<OcrResult> future = baseApi.recognizeAsync(pix, executor);
+
+		// Wait for recognition to start
+		progressSem.acquire();
+
+		assertTrue(future.cancel(true));
+		assertTrue(future.isCancelled());
+
+		// Ensure that the executor is freed before the recognition would finish
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+		baseApi.recycle();
+		pix.recycle();
+		bmp.recycle();
+	}
+
+	@Test
+	public void testResultCache() {
+		final String inputText = "hello";
+		final Bitmap bmp = getTextImage(inputText, 640, 480);
+		final OcrResultCache cache = new OcrResultCache(4);
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+		baseApi.setResultCache(cache);
+
+		baseApi.setImage(bmp);
+		assertEquals(inputText, baseApi.getUTF8Text());
+		int meanConfidence = baseApi.meanConfidence();
+		assertEquals(0, cache.getHitCount());
+
+		// Ensure that the same image is served from the cache.
+		baseApi.setImage(bmp);
+		assertEquals(inputText, baseApi.getUTF8Text());
+		assertEquals(meanConfidence, baseApi.meanConfidence());
+		assertEquals(1, cache.getHitCount());
+
+		List<OcrWord> words = baseApi.getRecognizedWords();
+		assertEquals(1, words.size());
+		assertEquals(inputText, words.get(0).getText());
+
+		// Ensure that the iterator still works after a cache hit.
+		ResultIterator iterator = baseApi.getResultIterator();
+		assertNotNull(iterator);
+		iterator.begin();
+		assertEquals(inputText, iterator.getUTF8Text(PageIteratorLevel.RIL_WORD));
+		iterator.delete();
+
+		// Ensure that a changed configuration isn't served from the cache.
+		baseApi.setImage(bmp);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_WORD);
+		assertEquals(inputText, baseApi.getUTF8Text());
+		assertEquals(1, cache.getHitCount());
+
+		baseApi.recycle();
+		bmp.recycle();
+	}
+
 	@Test
 	public void testSetImage_bitmap() {
 		// Attempt to initialize the API.
@@ -601,6 +1008,108 @@ public class TessBaseAPITest {
 		bmp.recycle();
 	}
 
+	@Test
+	public void testSetImage_byteBuffer() {
+		final String inputText = "hello";
+		final Bitmap bmp = getTextImage(inputText, 640, 480);
+
+		// Copy the RGBA pixels into a direct buffer, as a camera frame would be.
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(bmp.getByteCount());
+		bmp.copyPixelsToBuffer(buffer);
+		buffer.rewind();
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+
+		// Ensure that the image is recognized from the buffer.
+		baseApi.setImage(buffer, bmp.getWidth(), bmp.getHeight(), 4, bmp.getRowBytes());
+		assertEquals(inputText, baseApi.getUTF8Text());
+
+		// Ensure that heap buffers are rejected.
+		try {
+			baseApi.setImage(ByteBuffer.allocate(16), 2, 2, 4, 8);
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		}
+
+		baseApi.recycle();
+		bmp.recycle();
+	}
+
+	@Test
+	public void testSetImage_roi() {
+		final String inputText = "hello";
+		final Bitmap bmp = getTextImage(inputText, 640, 480);
+
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(bmp.getByteCount());
+		bmp.copyPixelsToBuffer(buffer);
+		buffer.rewind();
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+
+		// The text is drawn centered, so the middle band of the image holds it.
+		final Rect roi = new Rect(160, 200, 480, 280);
+
+		// Ensure that only the region is recognized, from a buffer and a bitmap.
+		baseApi.setImage(buffer, bmp.getWidth(), bmp.getHeight(), 4, bmp.getRowBytes(), roi);
+		assertEquals(inputText, baseApi.getUTF8Text());
+		final Pix thresholded = baseApi.getThresholdedImage();
+		assertEquals(roi.width(), thresholded.getWidth());
+		assertEquals(roi.height(), thresholded.getHeight());
+		thresholded.recycle();
+
+		baseApi.setImage(bmp, roi);
+		assertEquals(inputText, baseApi.getUTF8Text());
+
+		// Ensure that regions outside of the image are rejected.
+		try {
+			baseApi.setImage(buffer, bmp.getWidth(), bmp.getHeight(), 4, bmp.getRowBytes(),
+					new Rect(600, 0, 700, 10));
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		}
+
+		baseApi.recycle();
+		bmp.recycle();
+	}
+
+	@Test
+	public void testSetLumaImage() {
+		final String inputText = "hello";
+		final Bitmap bmp = getTextImage(inputText, 640, 480);
+		final int width = bmp.getWidth();
+		final int height = bmp.getHeight();
+
+		// Build an interleaved luma plane, as some camera devices deliver it.
+		final int pixelStride = 2;
+		final int rowStride = width * pixelStride;
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(rowStride * height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				buffer.put(y * rowStride + x * pixelStride, (byte) Color.red(bmp.getPixel(x, y)));
+			}
+		}
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+
+		// Ensure that the image is recognized from the plane.
+		baseApi.setLumaImage(buffer, width, height, rowStride, pixelStride);
+		assertEquals(inputText, baseApi.getUTF8Text());
+
+		baseApi.recycle();
+		bmp.recycle();
+	}
+
 	@Test
 	public void testSetImage_file() throws IOException {
 		// Attempt to initialize the API.
@@ -803,6 +1312,28 @@ public class TessBaseAPITest {
 		bmp.recycle();
 	}
 
+	@Test
+	public void testWarmUp() {
+		final String inputText = "hello";
+		final Bitmap bmp = getTextImage(inputText, 640, 480);
+
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_BLOCK);
+		baseApi.warmUp();
+
+		// Ensure that the page segmentation mode is kept.
+		assertEquals(TessBaseAPI.PageSegMode.PSM_SINGLE_BLOCK, baseApi.getPageSegMode());
+
+		// Ensure that the warmed up engine recognizes text.
+		baseApi.setImage(bmp);
+		assertEquals(inputText, baseApi.getUTF8Text());
+
+		baseApi.recycle();
+		bmp.recycle();
+	}
+
 	@Test
 	public void testWordConfidences() {
 		final String inputText = "one two three";
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.Map;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class TessEngineCacheTest {
+
+	private String tessDataPath;
+	private String language;
+
+	@Before
+	public void setup() {
+		Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+		// Copy language data to storage
+		Assets.extractAssets(context);
+
+		tessDataPath = Assets.getTessDataPath(context);
+		language = Assets.getLanguage();
+	}
+
+	@Test
+	public void testAcquire_reusesEngine() {
+		final TessEngineCache cache = new TessEngineCache(2, Long.MAX_VALUE);
+
+		TessBaseAPI first = cache.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY);
+		assertNotNull(first);
+		assertEquals(language, first.getInitLanguagesAsString());
+		assertTrue(cache.getSize() > 0);
+		cache.release(first);
+
+		// Ensure that the released engine is handed out again.
+		TessBaseAPI second = cache.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY);
+		assertSame(first, second);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		cache.release(second);
+		cache.recycle();
+	}
+
+	@Test
+	public void testAcquire_config() {
+		final TessEngineCache cache = new TessEngineCache(2, Long.MAX_VALUE);
+		final Map<String, String> config = Collections.singletonMap(
+				TessBaseAPI.VAR_CHAR_WHITELIST, "0123456789");
+
+		TessBaseAPI plain = cache.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY);
+		cache.release(plain);
+
+		// Ensure that engines with different variables are not mixed up.
+		TessBaseAPI digits = cache.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY,
+				config);
+		assertNotSame(plain, digits);
+		assertEquals("0123456789", digits.getVariable(TessBaseAPI.VAR_CHAR_WHITELIST));
+		cache.release(digits);
+
+		assertEquals(2, cache.getIdleCount());
+
+		cache.recycle();
+	}
+
+	@Test
+	public void testEviction_maxEngines() {
+		final TessEngineCache cache = new TessEngineCache(1, Long.MAX_VALUE);
+
+		TessBaseAPI lstm = cache.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY);
+		cache.release(lstm);
+		TessBaseAPI legacy = cache.acquire(tessDataPath, language, TessBaseAPI.OEM_TESSERACT_ONLY);
+		cache.release(legacy);
+
+		// Ensure that the least recently used engine was evicted and recycled.
+		assertEquals(1, cache.getIdleCount());
+		assertEquals(1, cache.getEvictionCount());
+		try {
+			lstm.getInitLanguagesAsString();
+			fail("IllegalStateException not thrown");
+		} catch (IllegalStateException e) {
+			// Continue
+		}
+
+		cache.recycle();
+	}
+
+	@Test
+	public void testEviction_maxBytes() {
+		// Every engine exceeds the budget on its own.
+		final TessEngineCache cache = new TessEngineCache(2, 1);
+
+		TessBaseAPI api = cache.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY);
+		assertNotNull(api);
+
+		// Ensure that the engine in use is kept and evicted once released.
+		assertEquals(0, cache.getEvictionCount());
+		cache.release(api);
+		assertEquals(0, cache.getIdleCount());
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(0, cache.getSize());
+
+		cache.recycle();
+	}
+
+	@Test
+	public void testRecycle() {
+		final TessEngineCache cache = new TessEngineCache(2, Long.MAX_VALUE);
+		cache.recycle();
+
+		// Ensure that no engines can be acquired after recycle() is called.
+		try {
+			cache.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY);
+			fail("IllegalStateException not thrown");
+		} catch (IllegalStateException e) {
+			// Continue
+		}
+	}
+}
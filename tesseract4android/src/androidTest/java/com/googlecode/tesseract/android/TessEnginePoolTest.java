@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class TessEnginePoolTest {
+
+	private String tessDataPath;
+	private String language;
+
+	@Before
+	public void setup() {
+		Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+		// Copy language data to storage
+		Assets.extractAssets(context);
+
+		tessDataPath = Assets.getTessDataPath(context);
+		language = Assets.getLanguage();
+	}
+
+	@Test
+	public void testAcquireRelease() throws InterruptedException {
+		final TessEnginePool pool = new TessEnginePool(2);
+
+		// Ensure that two different engines are handed out.
+		TessBaseAPI first = pool.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY);
+		TessBaseAPI second = pool.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY);
+		assertNotNull(first);
+		assertNotNull(second);
+		assertNotSame(first, second);
+		assertEquals(language, first.getInitLanguagesAsString());
+
+		// Ensure that a released engine is reused.
+		pool.release(first);
+		TessBaseAPI third = pool.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY);
+		assertSame(first, third);
+
+		pool.release(second);
+		pool.release(third);
+
+		TessEnginePool.Stats stats = pool.getStats();
+		assertEquals(1, stats.getKeyCount());
+		assertEquals(2, stats.getEngineCount());
+		assertEquals(2, stats.getIdleCount());
+		assertEquals(0, stats.getInUseCount());
+		assertEquals(3, stats.getAcquireCount());
+
+		pool.recycle();
+	}
+
+	@Test
+	public void testAcquire_timeout() throws InterruptedException {
+		final TessEnginePool pool = new TessEnginePool(1);
+
+		TessBaseAPI api = pool.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY);
+		assertNotNull(api);
+
+		// Ensure that acquisition fails when all engines are in use.
+		TessBaseAPI other = pool.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY,
+				100, TimeUnit.MILLISECONDS);
+		assertNull(other);
+		assertEquals(1, pool.getStats().getTimeoutCount());
+
+		pool.release(api);
+		pool.recycle();
+	}
+
+	@Test
+	public void testAcquire_waitsForRelease() throws InterruptedException {
+		final TessEnginePool pool = new TessEnginePool(1);
+		final TessBaseAPI api = pool.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY);
+		final CountDownLatch acquired = new CountDownLatch(1);
+
+		new Thread(() -> {
+			try {
+				TessBaseAPI waited = pool.acquire(tessDataPath, language,
+						TessBaseAPI.OEM_LSTM_ONLY);
+				pool.release(waited);
+				acquired.countDown();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}).start();
+
+		// Ensure the other thread gets the engine once it is released.
+		assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+		pool.release(api);
+		assertTrue(acquired.await(10, TimeUnit.SECONDS));
+		assertEquals(1, pool.getStats().getWaitCount());
+
+		pool.recycle();
+	}
+
+	@Test
+	public void testPrepare() {
+		final TessEnginePool pool = new TessEnginePool(3);
+
+		pool.prepare(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY);
+
+		TessEnginePool.Stats stats = pool.getStats();
+		assertEquals(3, stats.getEngineCount());
+		assertEquals(3, stats.getIdleCount());
+
+		pool.recycle();
+	}
+
+	@Test
+	public void testPrewarm() throws ExecutionException, InterruptedException {
+		final TessEnginePool pool = new TessEnginePool(2);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		Future<Void> ready = pool.prewarm(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY,
+				executor);
+		ready.get();
+
+		// Ensure that all engines are ready once the future completes.
+		TessEnginePool.Stats stats = pool.getStats();
+		assertEquals(2, stats.getEngineCount());
+		assertEquals(2, stats.getIdleCount());
+
+		executor.shutdown();
+		pool.recycle();
+	}
+
+	@Test
+	public void testRelease_foreignEngine() {
+		final TessEnginePool pool = new TessEnginePool(1);
+		final TessBaseAPI api = new TessBaseAPI();
+
+		try {
+			pool.release(api);
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		} finally {
+			api.recycle();
+			pool.recycle();
+		}
+	}
+
+	@Test
+	public void testRecycle() throws InterruptedException {
+		final TessEnginePool pool = new TessEnginePool(1);
+		pool.recycle();
+
+		// Ensure that acquire() fails after recycle() is called.
+		try {
+			pool.acquire(tessDataPath, language, TessBaseAPI.OEM_LSTM_ONLY);
+			fail("IllegalStateException not thrown");
+		} catch (IllegalStateException e) {
+			// Continue
+		}
+	}
+}
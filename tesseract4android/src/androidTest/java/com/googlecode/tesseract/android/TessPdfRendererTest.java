@@ -17,6 +17,7 @@
 
 package com.googlecode.tesseract.android;
 
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import android.content.Context;
@@ -26,6 +27,7 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Paint.Align;
 import android.graphics.Paint.Style;
+import android.os.ParcelFileDescriptor;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.SmallTest;
@@ -39,8 +41,11 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 
 @SmallTest
 @RunWith(AndroidJUnit4.class)
@@ -127,6 +132,107 @@ public class TessPdfRendererTest {
 		pixTwo.recycle();
 	}
 
+	@Test
+	public void testAddPageToDocument_outputStream() throws IOException {
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+
+		// Attempt to create a TessPdfRenderer writing to a stream.
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TessPdfRenderer pdfRenderer = new TessPdfRenderer(baseApi, out);
+
+		addPages(baseApi, pdfRenderer);
+
+		// Ensure that the whole PDF was written once the renderer is recycled.
+		pdfRenderer.recycle();
+		assertNull(pdfRenderer.getOutputError());
+		String pdf = new String(out.toByteArray(), Charset.forName("ISO-8859-1"));
+		assertTrue(pdf.startsWith("%PDF-"));
+		assertTrue(pdf.trim().endsWith("%%EOF"));
+
+		baseApi.recycle();
+	}
+
+	@Test
+	public void testAddPageToDocument_fd() throws IOException {
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+
+		// Attempt to create a TessPdfRenderer writing to a file descriptor.
+		File pdf = new File(outputPath + "testAddPageToDocument_fd.pdf");
+		ParcelFileDescriptor fd = ParcelFileDescriptor.open(pdf,
+				ParcelFileDescriptor.MODE_WRITE_ONLY | ParcelFileDescriptor.MODE_CREATE
+						| ParcelFileDescriptor.MODE_TRUNCATE);
+		TessPdfRenderer pdfRenderer = new TessPdfRenderer(baseApi, fd);
+		fd.close();
+
+		addPages(baseApi, pdfRenderer);
+		pdfRenderer.recycle();
+
+		// Ensure that a PDF file was written.
+		assertTrue(pdf.length() > 0);
+		assertTrue(pdf.delete());
+
+		baseApi.recycle();
+	}
+
+	@Test
+	public void testAddPageToDocument_pipe() throws IOException, InterruptedException {
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+
+		// Read the pipe while rendering, so the renderer doesn't block when it is full.
+		final ParcelFileDescriptor[] pipe = ParcelFileDescriptor.createPipe();
+		final InputStream in = new ParcelFileDescriptor.AutoCloseInputStream(pipe[0]);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Thread reader = new Thread(() -> {
+			byte[] buffer = new byte[4096];
+			int read;
+			try {
+				while ((read = in.read(buffer)) > 0) {
+					out.write(buffer, 0, read);
+				}
+				in.close();
+			} catch (IOException e) {
+				// The assertions below fail
+			}
+		});
+		reader.start();
+
+		// Attempt to create a TessPdfRenderer writing to a pipe.
+		TessPdfRenderer pdfRenderer = new TessPdfRenderer(baseApi, pipe[1]);
+		pipe[1].close();
+
+		addPages(baseApi, pdfRenderer);
+
+		// Ensure that the whole PDF went through the pipe once the renderer is recycled.
+		pdfRenderer.recycle();
+		reader.join();
+		assertNull(pdfRenderer.getOutputError());
+		String pdf = new String(out.toByteArray(), Charset.forName("ISO-8859-1"));
+		assertTrue(pdf.startsWith("%PDF-"));
+		assertTrue(pdf.trim().endsWith("%%EOF"));
+
+		baseApi.recycle();
+	}
+
+	private static void addPages(TessBaseAPI baseApi, TessPdfRenderer pdfRenderer) {
+		assertTrue(baseApi.beginDocument(pdfRenderer, "title"));
+
+		final Pix pixOne = getTextImage("page one", 640, 480);
+		assertTrue(baseApi.addPageToDocument(pixOne, "", pdfRenderer));
+		final Pix pixTwo = getTextImage("page two", 640, 480);
+		assertTrue(baseApi.addPageToDocument(pixTwo, "", pdfRenderer));
+
+		assertTrue(baseApi.endDocument(pdfRenderer));
+
+		pixOne.recycle();
+		pixTwo.recycle();
+	}
+
 	private static Pix getTextImage(String text, int width, int height) {
 		final Bitmap bmp = Bitmap.createBitmap(width, height,
 				Bitmap.Config.ARGB_8888);
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ * Copyright 2015 Robert Theis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.googlecode.tesseract.android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.ParcelFileDescriptor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.googlecode.leptonica.android.Pix;
+import com.googlecode.leptonica.android.ReadFile;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class TessResultRendererTest {
+
+	private String tessDataPath;
+	private String language;
+	private String outputPath;
+
+	@Before
+	public void setup() {
+		Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+		// Copy language data to storage
+		Assets.extractAssets(context);
+
+		tessDataPath = Assets.getTessDataPath(context);
+		language = Assets.getLanguage();
+		outputPath = Assets.getOutputPath(context);
+	}
+
+	@Test
+	public void testTextRenderer() throws IOException {
+		final TessBaseAPI baseApi = createApi();
+
+		TessTextRenderer renderer = new TessTextRenderer(outputPath + "testTextRenderer");
+		assertEquals("txt", renderer.getFileExtension());
+
+		render(baseApi, renderer, "page one", "page two");
+		renderer.recycle();
+
+		String text = readFile(new File(outputPath + "testTextRenderer.txt"));
+		assertTrue(text.contains("page one"));
+		assertTrue(text.contains("page two"));
+
+		baseApi.recycle();
+	}
+
+	@Test
+	public void testInsert() throws IOException {
+		final TessBaseAPI baseApi = createApi();
+
+		TessPdfRenderer pdfRenderer = new TessPdfRenderer(baseApi, outputPath + "testInsert");
+		TessTextRenderer textRenderer = new TessTextRenderer(outputPath + "testInsert");
+		TessHOcrRenderer hocrRenderer = new TessHOcrRenderer(outputPath + "testInsert");
+		pdfRenderer.insert(textRenderer);
+		textRenderer.insert(hocrRenderer);
+
+		// Ensure that renderers can't be inserted twice or into themselves.
+		try {
+			pdfRenderer.insert(hocrRenderer);
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		}
+		try {
+			hocrRenderer.insert(pdfRenderer);
+			fail("IllegalArgumentException not thrown");
+		} catch (IllegalArgumentException e) {
+			// Continue
+		}
+
+		// Ensure that all renderers write the page.
+		render(baseApi, pdfRenderer, "page one");
+
+		// Ensure that inserted renderers are recycled by their owner only.
+		textRenderer.recycle();
+		textRenderer.getNativeRenderer();
+		pdfRenderer.recycle();
+		try {
+			hocrRenderer.getNativeRenderer();
+			fail("IllegalStateException not thrown");
+		} catch (IllegalStateException e) {
+			// Continue
+		}
+
+		assertTrue(new File(outputPath + "testInsert.pdf").length() > 0);
+		assertTrue(readFile(new File(outputPath + "testInsert.txt")).contains("page one"));
+		assertTrue(readFile(new File(outputPath + "testInsert.hocr")).contains("ocrx_word"));
+
+		baseApi.recycle();
+	}
+
+	@Test
+	public void testRenderers_fd() throws IOException {
+		final TessBaseAPI baseApi = createApi();
+
+		testRenderer_fd(baseApi, "testHOcrRenderer.hocr", "ocrx_word",
+				fd -> new TessHOcrRenderer(fd));
+		testRenderer_fd(baseApi, "testAltoRenderer.xml", "<alto",
+				fd -> new TessAltoRenderer(fd));
+		testRenderer_fd(baseApi, "testTsvRenderer.tsv", "\tpage",
+				fd -> new TessTsvRenderer(fd));
+		testRenderer_fd(baseApi, "testLSTMBoxRenderer.box", " 0\n",
+				fd -> new TessLSTMBoxRenderer(fd));
+		testRenderer_fd(baseApi, "testWordStrBoxRenderer.box", " #page one",
+				fd -> new TessWordStrBoxRenderer(fd));
+
+		baseApi.recycle();
+	}
+
+	@Test
+	public void testTextRenderer_pipe() throws IOException, InterruptedException {
+		final TessBaseAPI baseApi = createApi();
+
+		final ParcelFileDescriptor[] pipe = ParcelFileDescriptor.createPipe();
+		final InputStream in = new ParcelFileDescriptor.AutoCloseInputStream(pipe[0]);
+		final String[] text = new String[1];
+
+		// Read the pipe while rendering, so the renderer doesn't block when it is full.
+		Thread reader = new Thread(() -> {
+			try {
+				text[0] = readStream(in);
+			} catch (IOException e) {
+				text[0] = e.toString();
+			}
+		});
+		reader.start();
+
+		TessTextRenderer renderer = new TessTextRenderer(pipe[1]);
+		pipe[1].close();
+
+		render(baseApi, renderer, "page one");
+
+		// Ensure that recycling closes the pipe, so the reader gets all output.
+		renderer.recycle();
+		reader.join();
+		assertNull(renderer.getOutputError());
+		assertTrue(text[0], text[0].contains("page one"));
+
+		baseApi.recycle();
+	}
+
+	private interface RendererFactory {
+		TessResultRenderer create(ParcelFileDescriptor fd) throws IOException;
+	}
+
+	private void testRenderer_fd(TessBaseAPI baseApi, String filename, String expected,
+								 RendererFactory factory) throws IOException {
+		File file = new File(outputPath + filename);
+		ParcelFileDescriptor fd = ParcelFileDescriptor.open(file,
+				ParcelFileDescriptor.MODE_WRITE_ONLY | ParcelFileDescriptor.MODE_CREATE
+						| ParcelFileDescriptor.MODE_TRUNCATE);
+
+		// The renderer writes to its own duplicate, so the descriptor may be closed.
+		TessResultRenderer renderer = factory.create(fd);
+		fd.close();
+
+		render(baseApi, renderer, "page one");
+		renderer.recycle();
+
+		String text = readFile(file);
+		assertTrue(filename + " doesn't contain " + expected, text.contains(expected));
+		assertTrue(file.delete());
+	}
+
+	private TessBaseAPI createApi() {
+		final TessBaseAPI baseApi = new TessBaseAPI();
+		boolean success = baseApi.init(tessDataPath, language);
+		assertTrue(success);
+		baseApi.setPageSegMode(TessBaseAPI.PageSegMode.PSM_SINGLE_LINE);
+		return baseApi;
+	}
+
+	private static void render(TessBaseAPI baseApi, TessResultRenderer renderer,
+							   String... pages) {
+		assertTrue(baseApi.beginDocument(renderer, "title"));
+
+		for (String page : pages) {
+			Bitmap bmp = TessBaseAPITest.getTextImage(page, 640, 480);
+			Pix pix = ReadFile.readBitmap(bmp);
+			assertTrue(baseApi.addPageToDocument(pix, "", renderer));
+			pix.recycle();
+			bmp.recycle();
+		}
+
+		assertTrue(baseApi.endDocument(renderer));
+	}
+
+	private static String readFile(File file) throws IOException {
+		return readStream(new FileInputStream(file));
+	}
+
+	private static String readStream(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				out.write(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+		return out.toString("UTF-8");
+	}
+}
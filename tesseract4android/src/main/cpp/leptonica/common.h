@@ -44,4 +44,12 @@
 #define LOGE(...) __android_log_print(ANDROID_LOG_ERROR, LOG_TAG, __VA_ARGS__)
 #define LOG_ASSERT(_cond, ...) if (!_cond) __android_log_assert("conditional", LOG_TAG, __VA_ARGS__)
 
+/**
+ * Converts RGB to gray with Leptonica's default weights (0.3, 0.5, 0.2), the
+ * same ones Tesseract uses to convert color images.
+ */
+static inline l_uint32 rgbToGray(l_uint32 r, l_uint32 g, l_uint32 b) {
+  return (77 * r + 128 * g + 51 * b + 128) >> 8;
+}
+
 #endif
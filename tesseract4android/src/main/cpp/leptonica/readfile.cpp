@@ -17,9 +17,332 @@
 
 #include "common.h"
 
+#include <cerrno>
+#include <cstdio>
 #include <cstring>
+#include <unistd.h>
 #include <android/bitmap.h>
 
+/**
+ * Fills an 8bpp pix from rows of source pixels in a single pass, writing four
+ * pixels per word so the loop doesn't depend on the byte order of the raster.
+ */
+template<typename GrayFunc>
+static void writeGrayRows(PIX *pix, const l_uint8 *src, l_int32 stride, GrayFunc gray) {
+  l_int32 w = pixGetWidth(pix);
+  l_int32 h = pixGetHeight(pix);
+  l_int32 wpl = pixGetWpl(pix);
+  l_uint32 *data = pixGetData(pix);
+
+  for (l_int32 y = 0; y < h; y++) {
+    const l_uint8 *src_line = src + y * stride;
+    l_uint32 *dst_line = data + y * wpl;
+
+    l_int32 x = 0;
+    for (; x + 4 <= w; x += 4) {
+      dst_line[x >> 2] = gray(src_line, x) << 24 | gray(src_line, x + 1) << 16
+                         | gray(src_line, x + 2) << 8 | gray(src_line, x + 3);
+    }
+    for (; x < w; x++) {
+      SET_DATA_BYTE(dst_line, x, gray(src_line, x));
+    }
+  }
+}
+
+/**
+ * Copies RGBA_8888 bitmap pixels into a 32bpp pix of the same size.
+ */
+static void writeRgbaRows(PIX *pixd, const AndroidBitmapInfo &info, void *pixels) {
+  l_uint32 *src = (l_uint32 *) pixels;
+  l_uint32 *dst = pixGetData(pixd);
+  l_int32 srcWpl = (info.stride / 4);
+  l_int32 dstWpl = pixGetWpl(pixd);
+  l_uint8 a, r, g, b;
+
+  for (int y = 0; y < info.height; y++) {
+    l_uint32 *dst_line = dst + (y * dstWpl);
+    l_uint32 *src_line = src + (y * srcWpl);
+
+    for (int x = 0; x < info.width; x++) {
+      // Get pixel from RGBA_8888
+      // NOTE: For some reason we have to swap R and B constants in order to get correct values!
+      a = (*src_line >> SK_A32_SHIFT);
+      r = (*src_line >> SK_B32_SHIFT); // intentionally use B shift, see NOTE above
+      g = (*src_line >> SK_G32_SHIFT);
+      b = (*src_line >> SK_R32_SHIFT); // intentionally use R shift, see NOTE above
+
+      // Set pixel to Pix format
+      *dst_line = a << L_ALPHA_SHIFT | r << L_RED_SHIFT | g << L_GREEN_SHIFT | b << L_BLUE_SHIFT;
+
+      // Move to the next pixel
+      src_line++;
+      dst_line++;
+    }
+  }
+
+/*
+  // Alternative version from renard314
+  // Result should be the same, but it iterates over pixels twice, because of the pixEndianByteSwap()
+  PIX *pixd = pixCreate(info.width, info.height, 32);
+  l_uint8 *src = (l_uint8 *) pixels;
+  l_uint8 *dst = (l_uint8 *) pixGetData(pixd);
+  l_int32 srcBpl = (info.stride);
+  l_int32 dstBpl = pixGetWpl(pixd)*4;
+
+  for (int dy = 0; dy < info.height; dy++) {
+    memcpy(dst, src, 4 * info.width);
+    dst += dstBpl;
+    src += srcBpl;
+  }
+  pixEndianByteSwap(pixd);
+*/
+}
+
+/**
+ * Converts RGBA_8888, RGB_565 or A_8 bitmap pixels into an 8bpp pix of the
+ * same size.
+ */
+static void writeBitmapGrayRows(PIX *pixd, const AndroidBitmapInfo &info, void *pixels) {
+  const l_uint8 *src = (const l_uint8 *) pixels;
+  l_int32 stride = (l_int32) info.stride;
+
+  switch (info.format) {
+    case ANDROID_BITMAP_FORMAT_RGBA_8888:
+      // Bytes are R, G, B, A in memory; alpha is ignored
+      writeGrayRows(pixd, src, stride, [](const l_uint8 *line, l_int32 x) {
+        const l_uint8 *p = line + 4 * x;
+        return rgbToGray(p[0], p[1], p[2]);
+      });
+      break;
+    case ANDROID_BITMAP_FORMAT_RGB_565:
+      writeGrayRows(pixd, src, stride, [](const l_uint8 *line, l_int32 x) {
+        l_uint32 p = ((const uint16_t *) line)[x];
+        l_uint32 r = (p >> 11) & 0x1F;
+        l_uint32 g = (p >> 5) & 0x3F;
+        l_uint32 b = p & 0x1F;
+        return rgbToGray(r << 3 | r >> 2, g << 2 | g >> 4, b << 3 | b >> 2);
+      });
+      break;
+    default:
+      // Alpha is the coverage of black ink on a white background
+      writeGrayRows(pixd, src, stride, [](const l_uint8 *line, l_int32 x) {
+        return (l_uint32) (255 - line[x]);
+      });
+      break;
+  }
+}
+
+/**
+ * Reads a bitmap, or the rectangle of it at x, y if w and h are positive, into
+ * a pix of the given depth. Reads into a new pix if pixd is null or into the
+ * given one, which must match the size of the rectangle.
+ *
+ * @return the pix, or null on failure
+ */
+static PIX *readBitmap(JNIEnv *env, jobject bitmap, PIX *pixd, l_int32 depth,
+                       l_int32 x, l_int32 y, l_int32 w, l_int32 h) {
+  AndroidBitmapInfo info;
+  void* pixels;
+  int ret;
+
+  if ((ret = AndroidBitmap_getInfo(env, bitmap, &info)) < 0) {
+    LOGE("AndroidBitmap_getInfo() failed! error=%d", ret);
+    return nullptr;
+  }
+
+  if (depth == 32 && info.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+    LOGE("Bitmap format is not RGBA_8888!");
+    return nullptr;
+  }
+
+  if (depth == 8 && info.format != ANDROID_BITMAP_FORMAT_RGBA_8888
+      && info.format != ANDROID_BITMAP_FORMAT_RGB_565
+      && info.format != ANDROID_BITMAP_FORMAT_A_8) {
+    LOGE("Bitmap format %d is not supported!", info.format);
+    return nullptr;
+  }
+
+  if (w <= 0 || h <= 0) {
+    x = 0;
+    y = 0;
+    w = (l_int32) info.width;
+    h = (l_int32) info.height;
+  } else if (x < 0 || y < 0 || x + w > (l_int32) info.width || y + h > (l_int32) info.height) {
+    LOGE("Rectangle x=%d, y=%d, w=%d, h=%d is outside of the bitmap", x, y, w, h);
+    return nullptr;
+  }
+
+  PIX *pix = pixd;
+  if (!pix) {
+    pix = depth == 32 ? pixCreate(w, h, 32) : pixCreateNoInit(w, h, 8);
+    if (!pix) {
+      LOGE("Failed to create pix object with w=%d, h=%d", w, h);
+      return nullptr;
+    }
+  } else if (pixGetDepth(pix) != depth || pixGetWidth(pix) != w || pixGetHeight(pix) != h) {
+    LOGE("Failed to replace pix at w=%d, h=%d, d=%d with w=%d, h=%d, d=%d", pixGetWidth(pix),
+         pixGetHeight(pix), pixGetDepth(pix), w, h, depth);
+    return nullptr;
+  }
+
+  if ((ret = AndroidBitmap_lockPixels(env, bitmap, &pixels)) < 0) {
+    LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+    if (pix != pixd)
+      pixDestroy(&pix);
+    return nullptr;
+  }
+
+  // Only the rows and columns of the rectangle are read
+  l_int32 bytesPerPixel = info.format == ANDROID_BITMAP_FORMAT_RGBA_8888 ? 4
+                          : info.format == ANDROID_BITMAP_FORMAT_RGB_565 ? 2 : 1;
+  void *start = (l_uint8 *) pixels + y * info.stride + x * bytesPerPixel;
+  AndroidBitmapInfo rect = info;
+  rect.width = (uint32_t) w;
+  rect.height = (uint32_t) h;
+
+  if (depth == 32)
+    writeRgbaRows(pix, rect, start);
+  else
+    writeBitmapGrayRows(pix, rect, start);
+
+  AndroidBitmap_unlockPixels(env, bitmap);
+
+  return pix;
+}
+
+/**
+ * Copies the luma plane of a YUV image from a direct buffer into an 8bpp pix.
+ */
+static bool writeLumaRows(JNIEnv *env, PIX *pix, jobject buffer, jint offset, jint rowStride,
+                          jint pixelStride) {
+  l_uint8 *plane = (l_uint8 *) env->GetDirectBufferAddress(buffer);
+  if (!plane) {
+    LOGE("Failed to get direct buffer address");
+    return false;
+  }
+
+  if (pixelStride == 1) {
+    writeGrayRows(pix, plane + offset, rowStride, [](const l_uint8 *line, l_int32 x) {
+      return (l_uint32) line[x];
+    });
+  } else {
+    writeGrayRows(pix, plane + offset, rowStride, [pixelStride](const l_uint8 *line, l_int32 x) {
+      return (l_uint32) line[x * pixelStride];
+    });
+  }
+
+  return true;
+}
+
+/**
+ * Source of encoded image data read through a stdio stream: either a file
+ * descriptor or a Java InputStream, which is read through a bounded Java
+ * buffer. The first bytes are read ahead to detect the image format and are
+ * replayed to the decoder, so the source never has to be seekable.
+ */
+struct StreamSource {
+  JNIEnv *env;
+  jobject stream;
+  jmethodID read;
+  jbyteArray buffer;
+  jint bufferLength;
+  int fd;
+  l_uint8 header[12];
+  int headerLength;
+  int headerPos;
+};
+
+static int readSource(StreamSource *source, char *buf, int size) {
+  if (source->stream == nullptr) {
+    ssize_t n;
+    do {
+      n = read(source->fd, buf, (size_t) size);
+    } while (n < 0 && errno == EINTR);
+    return (int) n;
+  }
+
+  JNIEnv *env = source->env;
+  if (env->ExceptionCheck())
+    return -1;
+
+  jint n = env->CallIntMethod(source->stream, source->read, source->buffer, 0,
+                              size < source->bufferLength ? size : source->bufferLength);
+  if (env->ExceptionCheck())
+    return -1;
+  if (n <= 0)
+    return 0;
+
+  env->GetByteArrayRegion(source->buffer, 0, n, (jbyte *) buf);
+  return n;
+}
+
+static int readStreamSource(void *cookie, char *buf, int size) {
+  StreamSource *source = (StreamSource *) cookie;
+
+  if (source->headerPos < source->headerLength) {
+    int n = source->headerLength - source->headerPos;
+    if (n > size)
+      n = size;
+    memcpy(buf, source->header + source->headerPos, (size_t) n);
+    source->headerPos += n;
+    return n;
+  }
+
+  return readSource(source, buf, size);
+}
+
+static int closeStreamSource(void *cookie) {
+  // The owner of the source closes it
+  return 0;
+}
+
+/**
+ * Decodes a JPEG, PNG or BMP image sequentially from the source.
+ *
+ * @return the pix, or null on failure
+ */
+static PIX *readStreamSource(StreamSource *source) {
+  while (source->headerLength < (int) sizeof(source->header)) {
+    int n = readSource(source, (char *) source->header + source->headerLength,
+                       (int) sizeof(source->header) - source->headerLength);
+    if (n <= 0)
+      break;
+    source->headerLength += n;
+  }
+
+  if (source->headerLength < (int) sizeof(source->header)) {
+    LOGE("Failed to read image header");
+    return nullptr;
+  }
+
+  l_int32 format;
+  findFileFormatBuffer(source->header, &format);
+  if (format != IFF_JFIF_JPEG && format != IFF_PNG && format != IFF_BMP) {
+    LOGE("Image format %d is not supported for streaming", format);
+    return nullptr;
+  }
+
+  // No seek function: the decoders rewind before reading, which is a no-op
+  // for a stream that has not been read from yet
+  FILE *fp = funopen(source, readStreamSource, nullptr, nullptr, closeStreamSource);
+  if (!fp) {
+    LOGE("Failed to open stream");
+    return nullptr;
+  }
+
+  PIX *pix;
+  if (format == IFF_JFIF_JPEG)
+    pix = pixReadStreamJpeg(fp, 0, 1, nullptr, 0);
+  else if (format == IFF_PNG)
+    pix = pixReadStreamPng(fp);
+  else
+    pix = pixReadStreamBmp(fp);
+
+  fclose(fp);
+
+  return pix;
+}
+
 #ifdef __cplusplus
 extern "C" {
 #endif  /* __cplusplus */
@@ -40,6 +363,23 @@ jlong Java_com_googlecode_leptonica_android_ReadFile_nativeReadMem(JNIEnv *env,
   return (jlong) pix;
 }
 
+jlong Java_com_googlecode_leptonica_android_ReadFile_nativeReadMemJpeg(JNIEnv *env,
+                                                                       jclass clazz,
+                                                                       jbyteArray image,
+                                                                       jint reduction,
+                                                                       jboolean luminance) {
+  jbyte *image_buffer = env->GetByteArrayElements(image, nullptr);
+  int buffer_length = env->GetArrayLength(image);
+
+  // libjpeg scales during the inverse DCT, the full image is never decoded
+  PIX *pix = pixReadMemJpeg((const l_uint8 *) image_buffer, buffer_length, 0, reduction,
+                            nullptr, luminance ? L_JPEG_READ_LUMINANCE : 0);
+
+  env->ReleaseByteArrayElements(image, image_buffer, JNI_ABORT);
+
+  return (jlong) pix;
+}
+
 jlong Java_com_googlecode_leptonica_android_ReadFile_nativeReadBytes8(JNIEnv *env, jclass clazz,
                                                                       jbyteArray data, jint w,
                                                                       jint h) {
@@ -104,6 +444,45 @@ jboolean Java_com_googlecode_leptonica_android_ReadFile_nativeReplaceBytes8(JNIE
   return JNI_TRUE;
 }
 
+jlong Java_com_googlecode_leptonica_android_ReadFile_nativeReadLumaPlane(JNIEnv *env,
+                                                                          jclass clazz,
+                                                                          jobject buffer,
+                                                                          jint offset, jint w,
+                                                                          jint h, jint rowStride,
+                                                                          jint pixelStride) {
+  PIX *pix = pixCreateNoInit((l_int32) w, (l_int32) h, 8);
+  if (!pix) {
+    LOGE("Failed to create pix object with w=%d, h=%d", w, h);
+    return 0;
+  }
+
+  if (!writeLumaRows(env, pix, buffer, offset, rowStride, pixelStride)) {
+    pixDestroy(&pix);
+    return 0;
+  }
+
+  return (jlong) pix;
+}
+
+jboolean Java_com_googlecode_leptonica_android_ReadFile_nativeReplaceLumaPlane(JNIEnv *env,
+                                                                              jclass clazz,
+                                                                              jlong nativePix,
+                                                                              jobject buffer,
+                                                                              jint offset, jint w,
+                                                                              jint h,
+                                                                              jint rowStride,
+                                                                              jint pixelStride) {
+  PIX *pix = (PIX *) nativePix;
+
+  if (pixGetDepth(pix) != 8 || pixGetWidth(pix) != w || pixGetHeight(pix) != h) {
+    LOGE("Failed to replace pix at w=%d, h=%d, d=%d with w=%d, h=%d", pixGetWidth(pix),
+         pixGetHeight(pix), pixGetDepth(pix), w, h);
+    return JNI_FALSE;
+  }
+
+  return writeLumaRows(env, pix, buffer, offset, rowStride, pixelStride) ? JNI_TRUE : JNI_FALSE;
+}
+
 jlong Java_com_googlecode_leptonica_android_ReadFile_nativeReadFile(JNIEnv *env, jclass clazz,
                                                                     jstring fileName) {
   PIX *pixd = nullptr;
@@ -121,76 +500,93 @@ jlong Java_com_googlecode_leptonica_android_ReadFile_nativeReadFile(JNIEnv *env,
   return (jlong) pixd;
 }
 
-jlong Java_com_googlecode_leptonica_android_ReadFile_nativeReadBitmap(JNIEnv *env, jclass clazz,
-                                                                      jobject bitmap) {
-  AndroidBitmapInfo info;
-  void* pixels;
-  int ret;
-
-  if ((ret = AndroidBitmap_getInfo(env, bitmap, &info)) < 0) {
-    LOGE("AndroidBitmap_getInfo() failed! error=%d", ret);
+jlong Java_com_googlecode_leptonica_android_ReadFile_nativeReadJpeg(JNIEnv *env, jclass clazz,
+                                                                    jstring fileName,
+                                                                    jint reduction,
+                                                                    jboolean luminance) {
+  const char *c_fileName = env->GetStringUTFChars(fileName, nullptr);
+  if (c_fileName == nullptr) {
+    LOGE("could not extract fileName string!");
     return (jlong) NULL;
   }
 
-  if (info.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
-    LOGE("Bitmap format is not RGBA_8888!");
-    return (jlong) NULL;
-  }
+  PIX *pixd = pixReadJpeg(c_fileName, 0, reduction, nullptr,
+                          luminance ? L_JPEG_READ_LUMINANCE : 0);
 
-  if ((ret = AndroidBitmap_lockPixels(env, bitmap, &pixels)) < 0) {
-    LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+  env->ReleaseStringUTFChars(fileName, c_fileName);
+
+  return (jlong) pixd;
+}
+
+jlong Java_com_googlecode_leptonica_android_ReadFile_nativeReadStream(JNIEnv *env,
+                                                                      jclass clazz,
+                                                                      jobject stream,
+                                                                      jbyteArray buffer) {
+  jclass streamClass = env->FindClass("java/io/InputStream");
+  if (streamClass == nullptr)
     return (jlong) NULL;
-  }
 
-  PIX *pixd = pixCreate(info.width, info.height, 32);
+  StreamSource source = {};
+  source.env = env;
+  source.stream = stream;
+  source.read = env->GetMethodID(streamClass, "read", "([BII)I");
+  source.buffer = buffer;
+  source.bufferLength = env->GetArrayLength(buffer);
+  source.fd = -1;
 
-  l_uint32 *src = (l_uint32 *) pixels;
-  l_uint32 *dst = pixGetData(pixd);
-  l_int32 srcWpl = (info.stride / 4);
-  l_int32 dstWpl = pixGetWpl(pixd);
-  l_uint8 a, r, g, b;
+  env->DeleteLocalRef(streamClass);
 
-  for (int y = 0; y < info.height; y++) {
-    l_uint32 *dst_line = dst + (y * dstWpl);
-    l_uint32 *src_line = src + (y * srcWpl);
+  PIX *pixd = readStreamSource(&source);
 
-    for (int x = 0; x < info.width; x++) {
-      // Get pixel from RGBA_8888
-      // NOTE: For some reason we have to swap R and B constants in order to get correct values!
-      a = (*src_line >> SK_A32_SHIFT);
-      r = (*src_line >> SK_B32_SHIFT); // intentionally use B shift, see NOTE above
-      g = (*src_line >> SK_G32_SHIFT);
-      b = (*src_line >> SK_R32_SHIFT); // intentionally use R shift, see NOTE above
+  // An IOException thrown by the stream is rethrown to the caller
+  if (env->ExceptionCheck() && pixd)
+    pixDestroy(&pixd);
 
-      // Set pixel to Pix format
-      *dst_line = a << L_ALPHA_SHIFT | r << L_RED_SHIFT | g << L_GREEN_SHIFT | b << L_BLUE_SHIFT;
+  return (jlong) pixd;
+}
 
-      // Move to the next pixel
-      src_line++;
-      dst_line++;
-    }
-  }
+jlong Java_com_googlecode_leptonica_android_ReadFile_nativeReadFd(JNIEnv *env, jclass clazz,
+                                                                  jint fd) {
+  StreamSource source = {};
+  source.env = env;
+  source.stream = nullptr;
+  source.fd = fd;
 
-/*
-  // Alternative version from renard314
-  // Result should be the same, but it iterates over pixels twice, because of the pixEndianByteSwap()
-  PIX *pixd = pixCreate(info.width, info.height, 32);
-  l_uint8 *src = (l_uint8 *) pixels;
-  l_uint8 *dst = (l_uint8 *) pixGetData(pixd);
-  l_int32 srcBpl = (info.stride);
-  l_int32 dstBpl = pixGetWpl(pixd)*4;
+  return (jlong) readStreamSource(&source);
+}
 
-  for (int dy = 0; dy < info.height; dy++) {
-    memcpy(dst, src, 4 * info.width);
-    dst += dstBpl;
-    src += srcBpl;
-  }
-  pixEndianByteSwap(pixd);
-*/
+jlong Java_com_googlecode_leptonica_android_ReadFile_nativeReadBitmap(JNIEnv *env, jclass clazz,
+                                                                      jobject bitmap) {
+  return (jlong) readBitmap(env, bitmap, nullptr, 32, 0, 0, 0, 0);
+}
 
-  AndroidBitmap_unlockPixels(env, bitmap);
+jlong Java_com_googlecode_leptonica_android_ReadFile_nativeReadBitmapGray(JNIEnv *env,
+                                                                          jclass clazz,
+                                                                          jobject bitmap) {
+  return (jlong) readBitmap(env, bitmap, nullptr, 8, 0, 0, 0, 0);
+}
 
-  return (jlong) pixd;
+jlong Java_com_googlecode_leptonica_android_ReadFile_nativeReadBitmapRect(JNIEnv *env,
+                                                                          jclass clazz,
+                                                                          jobject bitmap,
+                                                                          jint x, jint y,
+                                                                          jint w, jint h,
+                                                                          jboolean gray) {
+  return (jlong) readBitmap(env, bitmap, nullptr, gray ? 8 : 32, x, y, w, h);
+}
+
+jboolean Java_com_googlecode_leptonica_android_ReadFile_nativeReplaceBitmap(JNIEnv *env,
+                                                                           jclass clazz,
+                                                                           jlong nativePix,
+                                                                           jobject bitmap) {
+  return readBitmap(env, bitmap, (PIX *) nativePix, 32, 0, 0, 0, 0) ? JNI_TRUE : JNI_FALSE;
+}
+
+jboolean Java_com_googlecode_leptonica_android_ReadFile_nativeReplaceBitmapGray(JNIEnv *env,
+                                                                               jclass clazz,
+                                                                               jlong nativePix,
+                                                                               jobject bitmap) {
+  return readBitmap(env, bitmap, (PIX *) nativePix, 8, 0, 0, 0, 0) ? JNI_TRUE : JNI_FALSE;
 }
 
 #ifdef __cplusplus
@@ -18,8 +18,93 @@
 #include "common.h"
 
 #include <cstring>
+#include <vector>
 #include <android/bitmap.h>
 
+/**
+ * Stores the mean gray value of each of gridW x gridH cells of nearly equal
+ * size of a w x h image in signature, reading every pixel once.
+ */
+template<typename GrayFunc>
+static void cellMeans(l_int32 w, l_int32 h, const l_uint8 *src, l_int32 stride, l_int32 gridW,
+                      l_int32 gridH, GrayFunc gray, l_uint8 *signature) {
+  std::vector<l_int32> colCell((size_t) w);
+  std::vector<l_uint64> colCount((size_t) gridW), rowCount((size_t) gridH);
+  std::vector<l_uint64> sums((size_t) gridW * gridH);
+
+  for (l_int32 x = 0; x < w; x++) {
+    colCell[x] = (l_int32) ((l_int64) x * gridW / w);
+    colCount[colCell[x]]++;
+  }
+
+  for (l_int32 y = 0; y < h; y++) {
+    l_int32 cy = (l_int32) ((l_int64) y * gridH / h);
+    const l_uint8 *line = src + (size_t) y * stride;
+    l_uint64 *sum = &sums[(size_t) cy * gridW];
+
+    rowCount[cy]++;
+    for (l_int32 x = 0; x < w; x++) {
+      sum[colCell[x]] += gray(line, x);
+    }
+  }
+
+  for (l_int32 cy = 0; cy < gridH; cy++) {
+    for (l_int32 cx = 0; cx < gridW; cx++) {
+      l_uint64 n = colCount[cx] * rowCount[cy];
+      signature[cy * gridW + cx] = (l_uint8) ((sums[cy * gridW + cx] + n / 2) / n);
+    }
+  }
+}
+
+static inline l_uint64 mix64(l_uint64 h) {
+  h ^= h >> 33;
+  h *= 0xff51afd7ed558ccdULL;
+  h ^= h >> 33;
+  h *= 0xc4ceb9fe1a85ec53ULL;
+  h ^= h >> 33;
+  return h;
+}
+
+/**
+ * Hashes the raster of a pix into two independent 64-bit lanes, ignoring the
+ * padding bits at the end of each row.
+ */
+static void digestPix(PIX *pix, l_uint64 *h1, l_uint64 *h2) {
+  l_int32 w, h, d;
+  pixGetDimensions(pix, &w, &h, &d);
+  l_int32 wpl = pixGetWpl(pix);
+  const l_uint32 *data = pixGetData(pix);
+
+  l_int64 bits = (l_int64) w * d;
+  l_int32 fullWords = (l_int32) (bits / 32);
+  l_int32 remainder = (l_int32) (bits % 32);
+  // Pixels are stored from the most significant bit of a word
+  l_uint32 lastMask = remainder ? 0xffffffffU << (32 - remainder) : 0;
+
+  l_uint64 a = 0xcbf29ce484222325ULL ^ (l_uint64) w << 32 ^ (l_uint64) h;
+  l_uint64 b = 0x9e3779b97f4a7c15ULL ^ (l_uint64) d;
+
+  for (l_int32 y = 0; y < h; y++) {
+    const l_uint32 *line = data + (size_t) y * wpl;
+    for (l_int32 x = 0; x <= fullWords; x++) {
+      l_uint32 word;
+      if (x < fullWords)
+        word = line[x];
+      else if (lastMask)
+        word = line[x] & lastMask;
+      else
+        break;
+
+      a = (a ^ word) * 0x100000001b3ULL;
+      b = (b + word * 0xc2b2ae3d27d4eb4fULL);
+      b = (b << 31 | b >> 33) * 0x9e3779b97f4a7c15ULL;
+    }
+  }
+
+  *h1 = mix64(a);
+  *h2 = mix64(b ^ a);
+}
+
 #ifdef __cplusplus
 extern "C" {
 #endif  /* __cplusplus */
@@ -197,6 +282,107 @@ jbyteArray Java_com_googlecode_leptonica_android_JpegIO_nativeCompressToJpeg(JNI
   return array;
 }
 
+/******************
+ * ImageSignature *
+ ******************/
+
+jboolean Java_com_googlecode_leptonica_android_ImageSignature_nativeComputePix(JNIEnv *env,
+                                                                               jclass clazz,
+                                                                               jlong nativePix,
+                                                                               jint gridW,
+                                                                               jint gridH,
+                                                                               jbyteArray signature) {
+  PIX *pixs = (PIX *) nativePix;
+  l_int32 d = pixGetDepth(pixs);
+
+  // Only plain 8bpp and 32bpp rasters are read directly
+  PIX *pix = (d == 8 || d == 32) && !pixGetColormap(pixs) ? pixClone(pixs) : pixConvertTo8(pixs, FALSE);
+  if (!pix) {
+    LOGE("Failed to convert pix to 8bpp");
+    return JNI_FALSE;
+  }
+
+  std::vector<l_uint8> means((size_t) gridW * gridH);
+  const l_uint8 *src = (const l_uint8 *) pixGetData(pix);
+  l_int32 stride = pixGetWpl(pix) * 4;
+
+  if (pixGetDepth(pix) == 8) {
+    cellMeans(pixGetWidth(pix), pixGetHeight(pix), src, stride, gridW, gridH,
+              [](const l_uint8 *line, l_int32 x) {
+      return (l_uint32) GET_DATA_BYTE((const l_uint32 *) line, x);
+    }, means.data());
+  } else {
+    cellMeans(pixGetWidth(pix), pixGetHeight(pix), src, stride, gridW, gridH,
+              [](const l_uint8 *line, l_int32 x) {
+      l_uint32 p = ((const l_uint32 *) line)[x];
+      return rgbToGray((p >> L_RED_SHIFT) & 0xff, (p >> L_GREEN_SHIFT) & 0xff,
+                       (p >> L_BLUE_SHIFT) & 0xff);
+    }, means.data());
+  }
+
+  pixDestroy(&pix);
+
+  env->SetByteArrayRegion(signature, 0, (jsize) means.size(), (const jbyte *) means.data());
+
+  return JNI_TRUE;
+}
+
+jboolean Java_com_googlecode_leptonica_android_ImageSignature_nativeComputeBitmap(JNIEnv *env,
+                                                                                  jclass clazz,
+                                                                                  jobject bitmap,
+                                                                                  jint gridW,
+                                                                                  jint gridH,
+                                                                                  jbyteArray signature) {
+  AndroidBitmapInfo info;
+  void *pixels;
+  int ret;
+
+  if ((ret = AndroidBitmap_getInfo(env, bitmap, &info)) < 0) {
+    LOGE("AndroidBitmap_getInfo() failed! error=%d", ret);
+    return JNI_FALSE;
+  }
+
+  if (info.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+    LOGE("Bitmap format is not RGBA_8888!");
+    return JNI_FALSE;
+  }
+
+  if ((ret = AndroidBitmap_lockPixels(env, bitmap, &pixels)) < 0) {
+    LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+    return JNI_FALSE;
+  }
+
+  std::vector<l_uint8> means((size_t) gridW * gridH);
+
+  // Bytes are R, G, B, A in memory; alpha is ignored
+  cellMeans((l_int32) info.width, (l_int32) info.height, (const l_uint8 *) pixels,
+            (l_int32) info.stride, gridW, gridH, [](const l_uint8 *line, l_int32 x) {
+    const l_uint8 *p = line + 4 * x;
+    return rgbToGray(p[0], p[1], p[2]);
+  }, means.data());
+
+  AndroidBitmap_unlockPixels(env, bitmap);
+
+  env->SetByteArrayRegion(signature, 0, (jsize) means.size(), (const jbyte *) means.data());
+
+  return JNI_TRUE;
+}
+
+jboolean Java_com_googlecode_leptonica_android_ImageSignature_nativeDigest(JNIEnv *env,
+                                                                           jclass clazz,
+                                                                           jlong nativePix,
+                                                                           jlongArray digest) {
+  PIX *pixs = (PIX *) nativePix;
+  l_uint64 h[2];
+
+  digestPix(pixs, &h[0], &h[1]);
+
+  jlong values[2] = {(jlong) h[0], (jlong) h[1]};
+  env->SetLongArrayRegion(digest, 0, 2, values);
+
+  return JNI_TRUE;
+}
+
 /************
  * MorphApp *
  ************/
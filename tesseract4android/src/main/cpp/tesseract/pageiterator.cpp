@@ -65,6 +65,14 @@ jintArray Java_com_googlecode_tesseract_android_PageIterator_nativeBoundingBox(J
   return result;
 }
 
+void Java_com_googlecode_tesseract_android_PageIterator_nativeDelete(JNIEnv *env, jclass clazz,
+    jlong nativePageIterator) {
+  PageIterator *pageIterator = (PageIterator *) nativePageIterator;
+  if (pageIterator != 0) {
+    delete pageIterator;
+  }
+}
+
 #ifdef __cplusplus
 }
 #endif  /* __cplusplus */
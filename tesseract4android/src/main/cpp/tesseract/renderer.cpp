@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#include <fcntl.h>
+#include <sys/stat.h>
+#include <unistd.h>
+#include "common.h"
+#include <tesseract/renderer.h>
+
+using namespace tesseract;
+
+/**
+ * Creates a renderer writing to the output base with the extension of the
+ * renderer appended.
+ */
+template<class Renderer, class... Args>
+static jlong createRenderer(JNIEnv *env, jstring outputBase, Args... args) {
+  const char *c_output_base = env->GetStringUTFChars(outputBase, NULL);
+
+  TessResultRenderer *renderer = new Renderer(c_output_base, args...);
+
+  env->ReleaseStringUTFChars(outputBase, c_output_base);
+
+  return (jlong) renderer;
+}
+
+#ifdef __cplusplus
+extern "C" {
+#endif  /* __cplusplus */
+
+void Java_com_googlecode_tesseract_android_TessResultRenderer_nativeRecycle(JNIEnv *env,
+                                                                            jclass clazz,
+                                                                            jlong nativeRenderer) {
+  delete (TessResultRenderer *) nativeRenderer;
+}
+
+jstring Java_com_googlecode_tesseract_android_TessResultRenderer_nativeGetFileExtension(JNIEnv *env,
+                                                                                       jclass clazz,
+                                                                                       jlong nativeRenderer) {
+  return env->NewStringUTF(((TessResultRenderer *) nativeRenderer)->file_extension());
+}
+
+jboolean Java_com_googlecode_tesseract_android_TessResultRenderer_nativeIsHappy(JNIEnv *env,
+                                                                              jclass clazz,
+                                                                              jlong nativeRenderer) {
+  return (jboolean) ((TessResultRenderer *) nativeRenderer)->happy();
+}
+
+jint Java_com_googlecode_tesseract_android_TessResultRenderer_nativeOpenFifo(JNIEnv *env,
+                                                                             jclass clazz,
+                                                                             jstring path) {
+  const char *c_path = env->GetStringUTFChars(path, NULL);
+
+  int fd = -1;
+  if (mkfifo(c_path, 0600) == 0) {
+    // Opening the read end without blocking lets the renderer open the write end right away
+    fd = open(c_path, O_RDONLY | O_NONBLOCK | O_CLOEXEC);
+    if (fd >= 0) {
+      fcntl(fd, F_SETFL, fcntl(fd, F_GETFL) & ~O_NONBLOCK);
+    }
+  }
+
+  if (fd < 0) {
+    LOGE("Could not create named pipe %s", c_path);
+  }
+
+  env->ReleaseStringUTFChars(path, c_path);
+
+  return fd;
+}
+
+void Java_com_googlecode_tesseract_android_TessResultRenderer_nativeInsert(JNIEnv *env,
+                                                                           jclass clazz,
+                                                                           jlong nativeRenderer,
+                                                                           jlong nextRenderer) {
+  // The renderer takes ownership of the inserted one
+  ((TessResultRenderer *) nativeRenderer)->insert((TessResultRenderer *) nextRenderer);
+}
+
+jlong Java_com_googlecode_tesseract_android_TessTextRenderer_nativeCreate(JNIEnv *env,
+                                                                         jclass clazz,
+                                                                         jstring outputBase) {
+  return createRenderer<TessTextRenderer>(env, outputBase);
+}
+
+jlong Java_com_googlecode_tesseract_android_TessHOcrRenderer_nativeCreate(JNIEnv *env,
+                                                                         jclass clazz,
+                                                                         jstring outputBase,
+                                                                         jboolean fontInfo) {
+  return createRenderer<TessHOcrRenderer>(env, outputBase, (bool) fontInfo);
+}
+
+jlong Java_com_googlecode_tesseract_android_TessAltoRenderer_nativeCreate(JNIEnv *env,
+                                                                         jclass clazz,
+                                                                         jstring outputBase) {
+  return createRenderer<TessAltoRenderer>(env, outputBase);
+}
+
+jlong Java_com_googlecode_tesseract_android_TessTsvRenderer_nativeCreate(JNIEnv *env,
+                                                                        jclass clazz,
+                                                                        jstring outputBase,
+                                                                        jboolean fontInfo) {
+  return createRenderer<TessTsvRenderer>(env, outputBase, (bool) fontInfo);
+}
+
+jlong Java_com_googlecode_tesseract_android_TessLSTMBoxRenderer_nativeCreate(JNIEnv *env,
+                                                                            jclass clazz,
+                                                                            jstring outputBase) {
+  return createRenderer<TessLSTMBoxRenderer>(env, outputBase);
+}
+
+jlong Java_com_googlecode_tesseract_android_TessWordStrBoxRenderer_nativeCreate(JNIEnv *env,
+                                                                               jclass clazz,
+                                                                               jstring outputBase) {
+  return createRenderer<TessWordStrBoxRenderer>(env, outputBase);
+}
+
+#ifdef __cplusplus
+}
+#endif  /* __cplusplus */
@@ -102,14 +102,6 @@ jboolean Java_com_googlecode_tesseract_android_ResultIterator_nativeIsAtFinalEle
   return (jboolean) (resultIterator->IsAtFinalElement(enumLevel, enumElement) ? JNI_TRUE : JNI_FALSE);
 }
 
-void Java_com_googlecode_tesseract_android_ResultIterator_nativeDelete(JNIEnv *env, jclass clazz,
-    jlong nativeResultIterator) {
-  ResultIterator *resultIterator = (ResultIterator *) nativeResultIterator;
-  if (resultIterator != 0) {
-    delete resultIterator;
-  }
-}
-
 #ifdef __cplusplus
 }
 #endif  /* __cplusplus */
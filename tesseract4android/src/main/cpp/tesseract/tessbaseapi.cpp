@@ -16,17 +16,37 @@
  * limitations under the License.
  */
 
+#include <chrono>
+#include <errno.h>
 #include <stdio.h>
 #include <malloc.h>
+#include <unistd.h>
 #include "android/bitmap.h"
 #include "common.h"
 #include <tesseract/baseapi.h>
 #include <tesseract/ocrclass.h>
 #include "allheaders.h"
 #include <tesseract/renderer.h>
+#include <tesseract/resultiterator.h>
+#include "serialis.h"
 
 static jmethodID method_onProgressValues;
 
+static jclass class_WordLayout;
+static jmethodID method_WordLayout_init;
+
+// Results of nativeRecognize(), keep in sync with TessBaseAPI
+#define RECOGNIZE_SUCCESS 0
+#define RECOGNIZE_FAILED 1
+#define RECOGNIZE_CANCELLED 2
+#define RECOGNIZE_TIMED_OUT 3
+
+// Binary result format, keep in sync with OcrResultReader
+#define RESULTS_MAGIC 0x52434F54
+#define RESULTS_VERSION 1
+#define RESULTS_HEADER_SIZE 24
+#define RESULTS_RECORD_SIZE 40
+
 struct native_data_t {
   tesseract::TessBaseAPI api;
   PIX *pix;
@@ -37,6 +57,11 @@ struct native_data_t {
   l_int32 lastProgress;
   bool cancel_ocr;
 
+  // Progress throttling, disabled when both limits are zero
+  int64_t progressMinInterval;
+  l_int32 progressMinDelta;
+  int64_t lastProgressTime;
+
   JNIEnv *cachedEnv;
   jobject* cachedObject;
 
@@ -53,11 +78,16 @@ struct native_data_t {
     boxSetGeometry(currentTextBox, x, y, width, height);
   }
 
+  bool isProgressThrottled() {
+    return progressMinInterval > 0 || progressMinDelta > 0;
+  }
+
   void initStateVariables(JNIEnv* env, jobject *object) {
     cancel_ocr = false;
     cachedEnv = env;
     cachedObject = object;
     lastProgress = 0;
+    lastProgressTime = 0;
   }
 
   void resetStateVariables() {
@@ -65,12 +95,16 @@ struct native_data_t {
     cachedEnv = NULL;
     cachedObject = NULL;
     lastProgress = 0;
+    lastProgressTime = 0;
     boxSetGeometry(currentTextBox, 0, 0, 0, 0);
   }
 
   native_data_t() {
     currentTextBox = boxCreate(0, 0, 0, 0);
     lastProgress = 0;
+    progressMinInterval = 0;
+    progressMinDelta = 0;
+    lastProgressTime = 0;
     pix = NULL;
     data = NULL;
     debug = false;
@@ -99,18 +133,381 @@ bool progressJavaCallback(tesseract::ETEXT_DESC* monitor, int left, int right, i
   native_data_t *nat = (native_data_t*)monitor->cancel_this;
   l_int32 progress = monitor->progress;
   if (nat->isStateValid() && nat->currentTextBox != NULL) {
-    if (progress > nat->lastProgress || left != 0 || right != 0 || top != 0 || bottom != 0) {
+    bool report;
+    int64_t now = 0;
+    if (nat->isProgressThrottled()) {
+      now = std::chrono::duration_cast<std::chrono::milliseconds>(
+              std::chrono::steady_clock::now().time_since_epoch()).count();
+      report = progress - nat->lastProgress >= nat->progressMinDelta
+              && now - nat->lastProgressTime >= nat->progressMinInterval;
+    } else {
+      report = progress > nat->lastProgress || left != 0 || right != 0 || top != 0 || bottom != 0;
+    }
+    if (report) {
       int x, y, width, height;
       boxGetGeometry(nat->currentTextBox, &x, &y, &width, &height);
       nat->cachedEnv->CallVoidMethod(*(nat->cachedObject), method_onProgressValues, progress,
               (jint) left, (jint) right, (jint) top, (jint) bottom,
               (jint) x, (jint) (x + width), (jint) (y + height), (jint) y);
       nat->lastProgress = progress;
+      nat->lastProgressTime = now;
     }
   }
   return true;
 }
 
+/**
+ * Copies Java arrays of variable names and values into vectors for TessBaseAPI::Init.
+ */
+static void readVariables(JNIEnv *env, jobjectArray vars, jobjectArray varsValues,
+                          std::vector<std::string> *vars_vec,
+                          std::vector<std::string> *vars_values) {
+  jsize size = env->GetArrayLength(vars);
+
+  for (int i = 0; i < size; i++) {
+    jstring var = (jstring) env->GetObjectArrayElement(vars, i);
+    jstring value = (jstring) env->GetObjectArrayElement(varsValues, i);
+
+    const char *c_var = env->GetStringUTFChars(var, NULL);
+    const char *c_value = env->GetStringUTFChars(value, NULL);
+
+    vars_vec->push_back(std::string(c_var));
+    vars_values->push_back(std::string(c_value));
+
+    env->ReleaseStringUTFChars(var, c_var);
+    env->ReleaseStringUTFChars(value, c_value);
+  }
+}
+
+/**
+ * Traineddata file read from part of a file descriptor, e.g. an asset.
+ */
+struct fd_file_t {
+  std::string path;
+  int fd;
+  off_t offset;
+  size_t length;
+};
+
+// File served by fdFileReader() while an engine initializes on this thread
+static thread_local const fd_file_t *current_fd_file = nullptr;
+
+/**
+ * Tesseract FileReader which reads the current file of the calling thread from
+ * its descriptor and falls back to the filesystem for anything else.
+ */
+static bool fdFileReader(const char *filename, std::vector<char> *data) {
+  const fd_file_t *file = current_fd_file;
+  if (file == nullptr || file->path != filename) {
+    return tesseract::LoadDataFromFile(filename, data);
+  }
+
+  data->resize(file->length);
+  size_t done = 0;
+  while (done < file->length) {
+    ssize_t n = pread(file->fd, data->data() + done, file->length - done,
+                      file->offset + (off_t) done);
+    if (n < 0 && errno == EINTR) {
+      continue;
+    }
+    if (n <= 0) {
+      LOGE("Could not read %zu bytes of %s!", file->length, filename);
+      return false;
+    }
+    done += (size_t) n;
+  }
+
+  return true;
+}
+
+/**
+ * Sets the image on the engine, replacing the previously set image.
+ * Tesseract copies the image right away, so no reference to it is kept and
+ * the caller may reuse its raster, e.g. for the next frame from a PixPool.
+ */
+static void setImagePix(native_data_t *nat, PIX *pixs) {
+  if (pixs) {
+    l_int32 width = pixGetWidth(pixs);
+    l_int32 height = pixGetHeight(pixs);
+    nat->setTextBoundaries(0, 0, static_cast<l_uint32>(width), static_cast<l_uint32>(height));
+  }
+  nat->api.SetImage(pixs);
+
+  if (nat->data != NULL)
+    free(nat->data);
+  else if (nat->pix != NULL)
+    pixDestroy(&nat->pix);
+  nat->data = NULL;
+  nat->pix = NULL;
+}
+
+/**
+ * Sets raw image data on the engine, replacing the previously set image.
+ * Tesseract converts the data to its own Pix right away, so the data only has
+ * to stay valid during this call.
+ */
+static void setImageBytes(native_data_t *nat, const unsigned char *imagedata,
+                          int width, int height, int bpp, int bpl) {
+  nat->setTextBoundaries(0, 0, static_cast<l_uint32>(width), static_cast<l_uint32>(height));
+  nat->api.SetImage(imagedata, width, height, bpp, bpl);
+
+  if (nat->data != NULL)
+    free(nat->data);
+  else if (nat->pix != NULL)
+    pixDestroy(&nat->pix);
+  nat->data = NULL;
+  nat->pix = NULL;
+}
+
+/**
+ * Appends the UTF-8 text trimmed like String.trim() does, since the text of
+ * Tesseract has extra line breaks at the end. Returns the number of bytes
+ * appended.
+ */
+static size_t appendTrimmed(std::string *text, const char *utf8) {
+  const unsigned char *begin = (const unsigned char *) utf8;
+  const unsigned char *last = begin + strlen(utf8);
+  while (begin < last && *begin <= ' ')
+    begin++;
+  while (last > begin && *(last - 1) <= ' ')
+    last--;
+  text->append((const char *) begin, last - begin);
+
+  return last - begin;
+}
+
+/**
+ * Sets up the monitor which reports progress to Java and lets recognition be
+ * stopped or time out. A timeout of 0 means no deadline.
+ */
+static void initMonitor(native_data_t *nat, tesseract::ETEXT_DESC *monitor, jint timeoutMillis) {
+  monitor->progress_callback2 = progressJavaCallback;
+  monitor->cancel = cancelFunc;
+  monitor->cancel_this = nat;
+  monitor->set_deadline_msecs(timeoutMillis);
+}
+
+/**
+ * Recognizes the current image or rectangle and tells whether it succeeded,
+ * was stopped or timed out.
+ */
+static jint recognize(native_data_t *nat, tesseract::ETEXT_DESC *monitor) {
+  if (nat->api.Recognize(monitor) == 0) {
+    return RECOGNIZE_SUCCESS;
+  } else if (nat->cancel_ocr) {
+    return RECOGNIZE_CANCELLED;
+  } else if (monitor->deadline_exceeded()) {
+    return RECOGNIZE_TIMED_OUT;
+  } else {
+    return RECOGNIZE_FAILED;
+  }
+}
+
+/**
+ * Recognizes the current image or rectangle and appends the trimmed UTF-8 text
+ * to the packed batch text, recording where it ends and its mean confidence.
+ */
+static void appendBatchResult(native_data_t *nat, std::string *text,
+                              jint *end, jint *confidence) {
+  char *utf8 = nat->api.GetUTF8Text();
+
+  if (utf8 != NULL) {
+    appendTrimmed(text, utf8);
+    delete[] utf8;
+  }
+
+  *end = (jint) text->size();
+  *confidence = (jint) nat->api.MeanTextConf();
+}
+
+/**
+ * Copies the packed batch results into the Java arrays.
+ */
+static jbyteArray toBatchResult(JNIEnv *env, const std::string &text,
+                                const std::vector<jint> &offsets, jintArray jOffsets,
+                                const std::vector<jint> &confidences, jintArray jConfidences) {
+  env->SetIntArrayRegion(jOffsets, 0, (jsize) offsets.size(), offsets.data());
+  env->SetIntArrayRegion(jConfidences, 0, (jsize) confidences.size(), confidences.data());
+
+  jbyteArray result = env->NewByteArray((jsize) text.size());
+  if (result != NULL)
+    env->SetByteArrayRegion(result, 0, (jsize) text.size(), (const jbyte *) text.data());
+
+  return result;
+}
+
+/**
+ * Returns an iterator to the results, recognizing the image first if needed.
+ * Unlike the text getters, GetIterator() doesn't recognize the image itself.
+ */
+static tesseract::ResultIterator *getRecognizedIterator(native_data_t *nat) {
+  tesseract::ResultIterator *it = nat->api.GetIterator();
+  if (it == NULL && nat->api.Recognize(NULL) == 0)
+    it = nat->api.GetIterator();
+
+  return it;
+}
+
+/**
+ * Record of one element in the binary result format. All Android ABIs are
+ * little-endian, so records are stored as they are laid out in memory.
+ */
+struct result_record_t {
+  jint level;
+  jint parent;
+  jint end;
+  jint left;
+  jint top;
+  jint right;
+  jint bottom;
+  jfloat confidence;
+  jint textOffset;
+  jint textLength;
+};
+
+static_assert(sizeof(result_record_t) == RESULTS_RECORD_SIZE, "Unexpected record size");
+
+/**
+ * Elements of the page hierarchy in the binary result format.
+ */
+struct results_t {
+  std::vector<result_record_t> records;
+  std::string text;
+
+  size_t recordsSize() const {
+    return records.size() * sizeof(result_record_t);
+  }
+
+  /**
+   * Returns the size of the results in the binary result format.
+   */
+  size_t size() const {
+    return RESULTS_HEADER_SIZE + recordsSize() + text.size();
+  }
+
+  void getHeader(jint *header) const {
+    header[0] = RESULTS_MAGIC;
+    header[1] = RESULTS_VERSION;
+    header[2] = RESULTS_HEADER_SIZE;
+    header[3] = RESULTS_RECORD_SIZE;
+    header[4] = (jint) records.size();
+    header[5] = (jint) text.size();
+  }
+
+  /**
+   * Writes the results in the binary result format to the given memory,
+   * which must hold at least size() bytes.
+   */
+  void writeTo(unsigned char *out) const {
+    // The position of the buffer may not be aligned
+    jint header[RESULTS_HEADER_SIZE / sizeof(jint)];
+    getHeader(header);
+
+    memcpy(out, header, sizeof(header));
+    if (!records.empty())
+      memcpy(out + RESULTS_HEADER_SIZE, records.data(), recordsSize());
+    if (!text.empty())
+      memcpy(out + RESULTS_HEADER_SIZE + recordsSize(), text.data(), text.size());
+  }
+
+  /**
+   * Writes the results in the binary result format to the given file.
+   */
+  bool writeTo(FILE *file) const {
+    jint header[RESULTS_HEADER_SIZE / sizeof(jint)];
+    getHeader(header);
+
+    return fwrite(header, 1, sizeof(header), file) == sizeof(header)
+        && fwrite(records.data(), 1, recordsSize(), file) == recordsSize()
+        && fwrite(text.data(), 1, text.size(), file) == text.size();
+  }
+};
+
+static_assert(RESULTS_HEADER_SIZE == 6 * sizeof(jint), "Unexpected header size");
+
+/**
+ * Collects the page hierarchy from blocks down to the given level: one record
+ * per element in pre-order and the UTF-8 text of the page. Each element
+ * references the slice of the page text it covers, words are separated by
+ * spaces and lines by line breaks.
+ */
+static void collectResults(native_data_t *nat, tesseract::PageIteratorLevel ril,
+                           results_t *results) {
+  std::vector<result_record_t> &records = results->records;
+  std::string &text = results->text;
+
+  tesseract::ResultIterator *it = getRecognizedIterator(nat);
+  if (it != NULL) {
+    // Indices of the open elements of each level, -1 if there is none
+    jint open[tesseract::RIL_SYMBOL + 1] = {-1, -1, -1, -1, -1};
+    int pending = ril;
+
+    do {
+      int begin = ril;
+      for (int level = tesseract::RIL_BLOCK; level < ril; level++) {
+        if (it->IsAtBeginningOf((tesseract::PageIteratorLevel) level)) {
+          begin = level;
+          break;
+        }
+      }
+      if (begin < pending)
+        pending = begin;
+
+      if (it->Empty(ril))
+        continue;
+      char *utf8 = it->GetUTF8Text(ril);
+      if (utf8 == NULL)
+        continue;
+
+      begin = pending;
+      pending = ril;
+
+      // Close the elements which end here, then separate them from the next
+      for (int level = begin; level <= ril; level++) {
+        if (open[level] >= 0) {
+          result_record_t &record = records[open[level]];
+          record.end = (jint) records.size();
+          record.textLength = (jint) text.size() - record.textOffset;
+          open[level] = -1;
+        }
+      }
+      if (!text.empty()) {
+        if (begin <= tesseract::RIL_TEXTLINE)
+          text.push_back('\n');
+        else if (begin == tesseract::RIL_WORD)
+          text.push_back(' ');
+      }
+
+      for (int level = begin; level <= ril; level++) {
+        tesseract::PageIteratorLevel current = (tesseract::PageIteratorLevel) level;
+        result_record_t record;
+        record.level = level;
+        record.parent = level > tesseract::RIL_BLOCK ? open[level - 1] : -1;
+        record.end = 0;
+        it->BoundingBox(current, &record.left, &record.top, &record.right, &record.bottom);
+        record.confidence = it->Confidence(current);
+        record.textOffset = (jint) text.size();
+        record.textLength = 0;
+        open[level] = (jint) records.size();
+        records.push_back(record);
+      }
+
+      appendTrimmed(&text, utf8);
+      delete[] utf8;
+    } while (it->Next(ril));
+
+    for (int level = tesseract::RIL_BLOCK; level <= ril; level++) {
+      if (open[level] >= 0) {
+        result_record_t &record = records[open[level]];
+        record.end = (jint) records.size();
+        record.textLength = (jint) text.size() - record.textOffset;
+      }
+    }
+
+    delete it;
+  }
+}
+
 #ifdef __cplusplus
 extern "C" {
 #endif
@@ -130,6 +527,11 @@ void Java_com_googlecode_tesseract_android_TessBaseAPI_nativeClassInit(JNIEnv* e
                                                                        jclass clazz) {
 
   method_onProgressValues = env->GetMethodID(clazz, "onProgressValues", "(IIIIIIIII)V");
+
+  jclass layoutClass = env->FindClass("com/googlecode/tesseract/android/WordLayout");
+  class_WordLayout = (jclass) env->NewGlobalRef(layoutClass);
+  method_WordLayout_init = env->GetMethodID(layoutClass, "<init>", "(I[B[I[I[F[I[I[I)V");
+  env->DeleteLocalRef(layoutClass);
 }
 
 jlong Java_com_googlecode_tesseract_android_TessBaseAPI_nativeConstruct(JNIEnv* env,
@@ -208,33 +610,70 @@ jboolean Java_com_googlecode_tesseract_android_TessBaseAPI_nativeInitParams(JNIE
   const char *c_lang = env->GetStringUTFChars(lang, NULL);
 
   std::vector<std::string> vars_vec, vars_values;
+  readVariables(env, vars, varsValues, &vars_vec, &vars_values);
 
-  jsize size = env->GetArrayLength(vars);
+  jboolean res = JNI_TRUE;
 
-  for (int i = 0; i < size; i++) {
-    jstring var = (jstring) env->GetObjectArrayElement(vars, i);
-    jstring value = (jstring) env->GetObjectArrayElement(varsValues, i);
+  if (nat->api.Init(c_dir, c_lang, (tesseract::OcrEngineMode) mode,
+          nullptr, 0, &vars_vec, &vars_values, false)) {
+    LOGE("Could not initialize Tesseract API with language=%s!", c_lang);
+    res = JNI_FALSE;
+  } else {
+    LOGI("Initialized Tesseract API with language=%s", c_lang);
+  }
 
-    const char *c_var = env->GetStringUTFChars(var, NULL);
-    const char *c_value = env->GetStringUTFChars(value, NULL);
+  env->ReleaseStringUTFChars(dir, c_dir);
+  env->ReleaseStringUTFChars(lang, c_lang);
 
-    vars_vec.push_back(std::string(c_var));
-    vars_values.push_back(std::string(c_value));
+  return res;
+}
 
-    env->ReleaseStringUTFChars(var, c_var);
-    env->ReleaseStringUTFChars(value, c_value);
+jboolean Java_com_googlecode_tesseract_android_TessBaseAPI_nativeInitFd(JNIEnv *env,
+                                                                        jobject thiz,
+                                                                        jlong mNativeData,
+                                                                        jint fd,
+                                                                        jlong offset,
+                                                                        jlong length,
+                                                                        jstring dir,
+                                                                        jstring lang,
+                                                                        jint mode,
+                                                                        jobjectArray vars,
+                                                                        jobjectArray varsValues) {
+
+  native_data_t *nat = (native_data_t*) mNativeData;
+
+  const char *c_dir = env->GetStringUTFChars(dir, NULL);
+  const char *c_lang = env->GetStringUTFChars(lang, NULL);
+
+  std::vector<std::string> vars_vec, vars_values;
+  readVariables(env, vars, varsValues, &vars_vec, &vars_values);
+
+  // The descriptor stands in for the traineddata of the language in the data directory,
+  // resolved the same way as Tesseract does, so everything else is still found there
+  fd_file_t file;
+  file.path = c_dir;
+  if (file.path.empty() || file.path.back() != '/') {
+    file.path += "/";
   }
+  file.path += std::string(c_lang) + ".traineddata";
+  file.fd = fd;
+  file.offset = (off_t) offset;
+  file.length = (size_t) length;
 
   jboolean res = JNI_TRUE;
 
-  if (nat->api.Init(c_dir, c_lang, (tesseract::OcrEngineMode) mode,
-          nullptr, 0, &vars_vec, &vars_values, false)) {
+  current_fd_file = &file;
+
+  if (nat->api.Init(c_dir, 0, c_lang, (tesseract::OcrEngineMode) mode, nullptr, 0,
+          &vars_vec, &vars_values, false, fdFileReader)) {
     LOGE("Could not initialize Tesseract API with language=%s!", c_lang);
     res = JNI_FALSE;
   } else {
     LOGI("Initialized Tesseract API with language=%s", c_lang);
   }
 
+  current_fd_file = nullptr;
+
   env->ReleaseStringUTFChars(dir, c_dir);
   env->ReleaseStringUTFChars(lang, c_lang);
 
@@ -265,30 +704,35 @@ void Java_com_googlecode_tesseract_android_TessBaseAPI_nativeSetImageBytes(JNIEn
                                                                            jint bpp,
                                                                            jint bpl) {
 
+  native_data_t *nat = (native_data_t*) mNativeData;
+
   jbyte *data_array = env->GetByteArrayElements(data, NULL);
-  int count = env->GetArrayLength(data);
-  unsigned char* imagedata = (unsigned char *) malloc(count * sizeof(unsigned char));
 
-  // This is painfully slow, but necessary because we don't know
-  // how many bits the JVM might be using to represent a byte
-  for (int i = 0; i < count; i++) {
-    imagedata[i] = (unsigned char) data_array[i];
-  }
+  setImageBytes(nat, (const unsigned char *) data_array, width, height, bpp, bpl);
 
   env->ReleaseByteArrayElements(data, data_array, JNI_ABORT);
+}
+
+void Java_com_googlecode_tesseract_android_TessBaseAPI_nativeSetImageBuffer(JNIEnv *env,
+                                                                            jobject thiz,
+                                                                            jlong mNativeData,
+                                                                            jobject buffer,
+                                                                            jint offset,
+                                                                            jint width,
+                                                                            jint height,
+                                                                            jint bpp,
+                                                                            jint bpl) {
 
   native_data_t *nat = (native_data_t*) mNativeData;
-  nat->api.SetImage(imagedata, (int) width, (int) height, (int) bpp, (int) bpl);
 
-  // Since Tesseract doesn't take ownership of the memory, we keep a pointer in the native
-  // code struct. We need to free that pointer when we release our instance of Tesseract or
-  // attempt to set a new image using one of the nativeSet* methods.
-  if (nat->data != NULL)
-    free(nat->data);
-  else if (nat->pix != NULL)
-    pixDestroy(&nat->pix);
-  nat->data = imagedata;
-  nat->pix = NULL;
+  unsigned char *address = (unsigned char *) env->GetDirectBufferAddress(buffer);
+
+  if (address == NULL) {
+    LOGE("Could not get direct buffer address!");
+    return;
+  }
+
+  setImageBytes(nat, address + offset, width, height, bpp, bpl);
 }
 
 void Java_com_googlecode_tesseract_android_TessBaseAPI_nativeSetImagePix(JNIEnv *env,
@@ -296,26 +740,9 @@ void Java_com_googlecode_tesseract_android_TessBaseAPI_nativeSetImagePix(JNIEnv
                                                                          jlong mNativeData,
                                                                          jlong nativePix) {
 
-  PIX *pixs = (PIX *) nativePix;
-  PIX *pixd = pixClone(pixs);
-
   native_data_t *nat = (native_data_t*) mNativeData;
-  if (pixd) {
-    l_int32 width = pixGetWidth(pixd);
-    l_int32 height = pixGetHeight(pixd);
-    nat->setTextBoundaries(0, 0, static_cast<l_uint32>(width), static_cast<l_uint32>(height));
-  }
-  nat->api.SetImage(pixd);
 
-  // Since Tesseract doesn't take ownership of the memory, we keep a pointer in the native
-  // code struct. We need to free that pointer when we release our instance of Tesseract or
-  // attempt to set a new image using one of the nativeSet* methods.
-  if (nat->data != NULL)
-    free(nat->data);
-  else if (nat->pix != NULL)
-    pixDestroy(&nat->pix);
-  nat->data = NULL;
-  nat->pix = pixd;
+  setImagePix(nat, (PIX *) nativePix);
 }
 
 void Java_com_googlecode_tesseract_android_TessBaseAPI_nativeSetRectangle(JNIEnv *env,
@@ -351,6 +778,146 @@ jstring Java_com_googlecode_tesseract_android_TessBaseAPI_nativeGetUTF8Text(JNIE
   return result;
 }
 
+jbyteArray Java_com_googlecode_tesseract_android_TessBaseAPI_nativeRecognizeRegions(JNIEnv *env,
+                                                                                   jobject thiz,
+                                                                                   jlong mNativeData,
+                                                                                   jlong nativePix,
+                                                                                   jintArray rects,
+                                                                                   jintArray offsets,
+                                                                                   jintArray confidences,
+                                                                                   jint timeoutMillis,
+                                                                                   jintArray status) {
+
+  native_data_t *nat = (native_data_t*) mNativeData;
+
+  jsize count = env->GetArrayLength(confidences);
+  std::vector<jint> geometry(4 * count);
+  env->GetIntArrayRegion(rects, 0, 4 * count, geometry.data());
+
+  std::string text;
+  std::vector<jint> ends(count + 1, 0);
+  std::vector<jint> confs(count, 0);
+
+  // Keep a stop request which arrived before we got here, as nativeRecognize() does
+  bool cancel_ocr = nat->cancel_ocr;
+  nat->initStateVariables(env, &thiz);
+  nat->cancel_ocr = cancel_ocr;
+
+  // The deadline covers all regions
+  tesseract::ETEXT_DESC monitor;
+  initMonitor(nat, &monitor, timeoutMillis);
+
+  setImagePix(nat, (PIX *) nativePix);
+
+  jint res = RECOGNIZE_SUCCESS;
+
+  for (jsize i = 0; i < count; i++) {
+    // Regions after a stop or timeout are left empty
+    if (res == RECOGNIZE_CANCELLED || res == RECOGNIZE_TIMED_OUT) {
+      ends[i + 1] = ends[i];
+      continue;
+    }
+
+    jint *rect = &geometry[4 * i];
+    nat->setTextBoundaries(static_cast<l_uint32>(rect[0]), static_cast<l_uint32>(rect[1]),
+                           static_cast<l_uint32>(rect[2]), static_cast<l_uint32>(rect[3]));
+    nat->api.SetRectangle(rect[0], rect[1], rect[2], rect[3]);
+
+    res = recognize(nat, &monitor);
+    appendBatchResult(nat, &text, &ends[i + 1], &confs[i]);
+  }
+
+  nat->resetStateVariables();
+
+  env->SetIntArrayRegion(status, 0, 1, &res);
+
+  return toBatchResult(env, text, ends, offsets, confs, confidences);
+}
+
+jbyteArray Java_com_googlecode_tesseract_android_TessBaseAPI_nativeRecognizeBatch(JNIEnv *env,
+                                                                                 jobject thiz,
+                                                                                 jlong mNativeData,
+                                                                                 jlongArray nativePixs,
+                                                                                 jintArray offsets,
+                                                                                 jintArray confidences,
+                                                                                 jint timeoutMillis,
+                                                                                 jintArray status) {
+
+  native_data_t *nat = (native_data_t*) mNativeData;
+
+  jsize count = env->GetArrayLength(nativePixs);
+  std::vector<jlong> pixs(count);
+  env->GetLongArrayRegion(nativePixs, 0, count, pixs.data());
+
+  std::string text;
+  std::vector<jint> ends(count + 1, 0);
+  std::vector<jint> confs(count, 0);
+
+  // Keep a stop request which arrived before we got here, as nativeRecognize() does
+  bool cancel_ocr = nat->cancel_ocr;
+  nat->initStateVariables(env, &thiz);
+  nat->cancel_ocr = cancel_ocr;
+
+  // The deadline covers all images
+  tesseract::ETEXT_DESC monitor;
+  initMonitor(nat, &monitor, timeoutMillis);
+
+  jint res = RECOGNIZE_SUCCESS;
+
+  for (jsize i = 0; i < count; i++) {
+    // Images after a stop or timeout are left empty
+    if (res == RECOGNIZE_CANCELLED || res == RECOGNIZE_TIMED_OUT) {
+      ends[i + 1] = ends[i];
+      continue;
+    }
+
+    setImagePix(nat, (PIX *) pixs[i]);
+
+    res = recognize(nat, &monitor);
+    appendBatchResult(nat, &text, &ends[i + 1], &confs[i]);
+  }
+
+  nat->resetStateVariables();
+
+  env->SetIntArrayRegion(status, 0, 1, &res);
+
+  return toBatchResult(env, text, ends, offsets, confs, confidences);
+}
+
+void Java_com_googlecode_tesseract_android_TessBaseAPI_nativeWarmUp(JNIEnv *env,
+                                                                    jobject thiz,
+                                                                    jlong mNativeData) {
+
+  native_data_t *nat = (native_data_t*) mNativeData;
+
+  // A line of glyph-sized bars makes the layout analysis find text, so the
+  // recognizer, its scratch space and the dictionaries are all set up
+  PIX *pix = pixCreate(320, 48, 8);
+  pixSetAllArbitrary(pix, 255);
+  for (int i = 0; i < 12; i++) {
+    BOX *bar = boxCreate(16 + i * 24, 12, 4 + (i % 3) * 4, 24);
+    pixClearInRect(pix, bar);
+    boxDestroy(&bar);
+  }
+
+  tesseract::PageSegMode mode = nat->api.GetPageSegMode();
+  nat->api.SetPageSegMode(tesseract::PSM_SINGLE_LINE);
+
+  // Tesseract keeps its own copy of the image, which Clear() frees below
+  setImagePix(nat, pix);
+  pixDestroy(&pix);
+  nat->api.Recognize(NULL);
+
+  nat->api.SetPageSegMode(mode);
+  nat->api.Clear();
+
+  // Forget what the adaptive classifier learned from the bars, so it can't
+  // skew the first real recognitions
+  nat->api.ClearAdaptiveClassifier();
+
+  nat->setTextBoundaries(0, 0, 0, 0);
+}
+
 void Java_com_googlecode_tesseract_android_TessBaseAPI_nativeStop(JNIEnv *env, 
                                                                   jobject thiz,
                                                                   jlong mNativeData) {
@@ -362,6 +929,49 @@ void Java_com_googlecode_tesseract_android_TessBaseAPI_nativeStop(JNIEnv *env,
   nat->cancel_ocr = true;
 }
 
+void Java_com_googlecode_tesseract_android_TessBaseAPI_nativeClearStop(JNIEnv *env,
+                                                                       jobject thiz,
+                                                                       jlong mNativeData) {
+
+  native_data_t *nat = (native_data_t*) mNativeData;
+
+  nat->cancel_ocr = false;
+}
+
+jint Java_com_googlecode_tesseract_android_TessBaseAPI_nativeRecognize(JNIEnv *env,
+                                                                     jobject thiz,
+                                                                     jlong mNativeData,
+                                                                     jint timeoutMillis) {
+
+  native_data_t *nat = (native_data_t*) mNativeData;
+
+  // Unlike other calls, keep a stop request which arrived before we got here
+  bool cancel_ocr = nat->cancel_ocr;
+  nat->initStateVariables(env, &thiz);
+  nat->cancel_ocr = cancel_ocr;
+
+  tesseract::ETEXT_DESC monitor;
+  initMonitor(nat, &monitor, timeoutMillis);
+
+  jint res = recognize(nat, &monitor);
+
+  nat->resetStateVariables();
+
+  return res;
+}
+
+void Java_com_googlecode_tesseract_android_TessBaseAPI_nativeSetProgressThrottle(JNIEnv *env,
+                                                                               jobject thiz,
+                                                                               jlong mNativeData,
+                                                                               jlong minIntervalMillis,
+                                                                               jint minPercentDelta) {
+
+  native_data_t *nat = (native_data_t*) mNativeData;
+
+  nat->progressMinInterval = minIntervalMillis;
+  nat->progressMinDelta = minPercentDelta;
+}
+
 jint Java_com_googlecode_tesseract_android_TessBaseAPI_nativeMeanConfidence(JNIEnv *env,
                                                                             jobject thiz,
                                                                             jlong mNativeData) {
@@ -606,6 +1216,146 @@ jlong Java_com_googlecode_tesseract_android_TessBaseAPI_nativeGetResultIterator(
   return (jlong) nat->api.GetIterator();
 }
 
+jobject Java_com_googlecode_tesseract_android_TessBaseAPI_nativeGetWordLayout(JNIEnv *env,
+                                                                             jobject thiz,
+                                                                             jlong mNativeData,
+                                                                             jint level) {
+  native_data_t *nat = (native_data_t*) mNativeData;
+  tesseract::PageIteratorLevel ril = (tesseract::PageIteratorLevel) level;
+
+  tesseract::ResultIterator *it = getRecognizedIterator(nat);
+
+  std::string text;
+  std::vector<jint> offsets(1, 0);
+  std::vector<jint> boxes;
+  std::vector<jfloat> confidences;
+  std::vector<jint> parents[tesseract::RIL_WORD];
+
+  if (it != NULL) {
+    // Parents are counted when their first non-empty element is added, so
+    // their indices are consecutive
+    jint counts[tesseract::RIL_WORD] = {0, 0, 0};
+    bool pending[tesseract::RIL_WORD] = {false, false, false};
+
+    do {
+      for (int parent = tesseract::RIL_BLOCK; parent < ril && parent < tesseract::RIL_WORD; parent++) {
+        if (it->IsAtBeginningOf((tesseract::PageIteratorLevel) parent))
+          pending[parent] = true;
+      }
+
+      if (it->Empty(ril))
+        continue;
+
+      char *utf8 = it->GetUTF8Text(ril);
+      if (utf8 == NULL)
+        continue;
+      size_t length = appendTrimmed(&text, utf8);
+      delete[] utf8;
+      if (length == 0)
+        continue;
+
+      int left, top, right, bottom;
+      it->BoundingBox(ril, &left, &top, &right, &bottom);
+
+      offsets.push_back((jint) text.size());
+      boxes.push_back(left);
+      boxes.push_back(top);
+      boxes.push_back(right);
+      boxes.push_back(bottom);
+      confidences.push_back(it->Confidence(ril));
+
+      for (int parent = tesseract::RIL_BLOCK; parent < tesseract::RIL_WORD; parent++) {
+        if (parent >= ril) {
+          parents[parent].push_back(-1);
+          continue;
+        }
+        if (pending[parent]) {
+          counts[parent]++;
+          pending[parent] = false;
+        }
+        parents[parent].push_back(counts[parent] - 1);
+      }
+    } while (it->Next(ril));
+
+    delete it;
+  }
+
+  jsize count = (jsize) confidences.size();
+  jbyteArray jText = env->NewByteArray((jsize) text.size());
+  jintArray jOffsets = env->NewIntArray(count + 1);
+  jintArray jBoxes = env->NewIntArray(4 * count);
+  jfloatArray jConfidences = env->NewFloatArray(count);
+  jintArray jParents[tesseract::RIL_WORD];
+  for (int parent = tesseract::RIL_BLOCK; parent < tesseract::RIL_WORD; parent++)
+    jParents[parent] = env->NewIntArray(count);
+
+  if (env->ExceptionCheck())
+    return NULL;
+
+  env->SetByteArrayRegion(jText, 0, (jsize) text.size(), (const jbyte *) text.data());
+  env->SetIntArrayRegion(jOffsets, 0, count + 1, offsets.data());
+  env->SetIntArrayRegion(jBoxes, 0, 4 * count, boxes.data());
+  env->SetFloatArrayRegion(jConfidences, 0, count, confidences.data());
+  for (int parent = tesseract::RIL_BLOCK; parent < tesseract::RIL_WORD; parent++)
+    env->SetIntArrayRegion(jParents[parent], 0, count, parents[parent].data());
+
+  return env->NewObject(class_WordLayout, method_WordLayout_init, level, jText, jOffsets,
+                        jBoxes, jConfidences, jParents[tesseract::RIL_BLOCK],
+                        jParents[tesseract::RIL_PARA], jParents[tesseract::RIL_TEXTLINE]);
+}
+
+jint Java_com_googlecode_tesseract_android_TessBaseAPI_nativeWriteResultsBuffer(JNIEnv *env,
+                                                                              jobject thiz,
+                                                                              jlong mNativeData,
+                                                                              jobject buffer,
+                                                                              jint position,
+                                                                              jint remaining,
+                                                                              jint level) {
+  native_data_t *nat = (native_data_t*) mNativeData;
+
+  unsigned char *address = (unsigned char *) env->GetDirectBufferAddress(buffer);
+
+  if (address == NULL) {
+    LOGE("Could not get direct buffer address!");
+    return -1;
+  }
+
+  results_t results;
+  collectResults(nat, (tesseract::PageIteratorLevel) level, &results);
+
+  // Tell the caller how much space is needed if the buffer is too small
+  size_t size = results.size();
+  if (size <= (size_t) remaining)
+    results.writeTo(address + position);
+
+  return (jint) size;
+}
+
+jboolean Java_com_googlecode_tesseract_android_TessBaseAPI_nativeWriteResultsFile(JNIEnv *env,
+                                                                                jobject thiz,
+                                                                                jlong mNativeData,
+                                                                                jstring path,
+                                                                                jint level) {
+  native_data_t *nat = (native_data_t*) mNativeData;
+
+  results_t results;
+  collectResults(nat, (tesseract::PageIteratorLevel) level, &results);
+
+  const char *c_path = env->GetStringUTFChars(path, NULL);
+  FILE *file = fopen(c_path, "wb");
+  env->ReleaseStringUTFChars(path, c_path);
+
+  if (file == NULL) {
+    LOGE("Could not open results file");
+    return JNI_FALSE;
+  }
+
+  bool success = results.writeTo(file);
+  success = fclose(file) == 0 && success;
+
+  return (jboolean) (success ? JNI_TRUE : JNI_FALSE);
+}
+
 jstring Java_com_googlecode_tesseract_android_TessBaseAPI_nativeGetHOCRText(JNIEnv *env,
                                                                             jobject thiz,
                                                                             jlong mNativeData,
@@ -699,22 +1449,15 @@ jlong Java_com_googlecode_tesseract_android_TessPdfRenderer_nativeCreate(JNIEnv
   return (jlong) result;
 }
 
-void Java_com_googlecode_tesseract_android_TessPdfRenderer_nativeRecycle(JNIEnv *env,
-                                                                         jclass type,
-                                                                         jlong jPointer) {
-  tesseract::TessPDFRenderer* renderer = (tesseract::TessPDFRenderer*) jPointer;
-  delete renderer;
-}
-
 jboolean Java_com_googlecode_tesseract_android_TessBaseAPI_nativeBeginDocument(JNIEnv *env,
                                                                                jobject thiz,
                                                                                jlong jRenderer,
                                                                                jstring title) {
 
   const char *c_title = env->GetStringUTFChars(title, NULL);
-  tesseract::TessPDFRenderer* pdfRenderer = (tesseract::TessPDFRenderer*) jRenderer;
+  tesseract::TessResultRenderer* renderer = (tesseract::TessResultRenderer*) jRenderer;
 
-  bool res = pdfRenderer->BeginDocument(c_title);
+  bool res = renderer->BeginDocument(c_title);
 
   env->ReleaseStringUTFChars(title, c_title);
 
@@ -725,9 +1468,9 @@ jboolean Java_com_googlecode_tesseract_android_TessBaseAPI_nativeEndDocument(JNI
                                                                              jobject thiz,
                                                                              jlong jRenderer) {
 
-  tesseract::TessPDFRenderer* pdfRenderer = (tesseract::TessPDFRenderer*) jRenderer;
+  tesseract::TessResultRenderer* renderer = (tesseract::TessResultRenderer*) jRenderer;
 
-  bool res = pdfRenderer->EndDocument();
+  bool res = renderer->EndDocument();
 
   return static_cast<jboolean>(res);
 }
@@ -739,13 +1482,13 @@ jboolean Java_com_googlecode_tesseract_android_TessBaseAPI_nativeAddPageToDocume
                                                                                    jstring jPath,
                                                                                    jlong jRenderer) {
 
-  tesseract::TessPDFRenderer* pdfRenderer = (tesseract::TessPDFRenderer*) jRenderer;
+  tesseract::TessResultRenderer* renderer = (tesseract::TessResultRenderer*) jRenderer;
 
   native_data_t *nat = (native_data_t*) mNativeData;
   PIX* pix = (PIX*) jPix;
   const char *inputImage = env->GetStringUTFChars(jPath, NULL);
 
-  nat->api.ProcessPage(pix, 0, inputImage, NULL, 0, pdfRenderer);
+  nat->api.ProcessPage(pix, 0, inputImage, NULL, 0, renderer);
 
   env->ReleaseStringUTFChars(jPath, inputImage);
 
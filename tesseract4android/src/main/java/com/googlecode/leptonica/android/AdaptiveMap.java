@@ -112,6 +112,7 @@ public class AdaptiveMap {
 
 		long nativePix = nativeBackgroundNormMorph(
 				pixs.getNativePix(), normReduction, normSize, normBgValue);
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0)
 			throw new RuntimeException("Failed to normalize image background");
@@ -176,6 +177,7 @@ public class AdaptiveMap {
 
 		long nativePix = nativePixContrastNorm(
 				pixs.getNativePix(), sizeX, sizeY, minDiff, smoothX, smoothY);
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0)
 			throw new RuntimeException("Failed to normalize image contrast");
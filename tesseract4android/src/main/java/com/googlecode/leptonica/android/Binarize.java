@@ -140,6 +140,7 @@ public class Binarize {
 
 		long nativePix = nativeOtsuAdaptiveThreshold(pixs.getNativePix(),
 				sizeX, sizeY, smoothX, smoothY, scoreFraction);
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0)
 			throw new RuntimeException("Failed to perform Otsu adaptive threshold on image");
@@ -206,6 +207,7 @@ public class Binarize {
 
 		long nativePix = nativeSauvolaBinarizeTiled(pixs.getNativePix(),
 				whsize, factor, nx, ny);
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0)
 			throw new RuntimeException("Failed to perform Sauvola binarization on image");
@@ -22,13 +22,15 @@ import android.util.Log;
 
 import androidx.annotation.Size;
 
+import java.io.Closeable;
+
 /**
  * Wrapper for Leptonica's native BOX.
  *
  * @author alanv@google.com (Alan Viverette)
  */
 @SuppressWarnings("WeakerAccess")
-public class Box {
+public class Box implements Closeable {
 	static {
 		System.loadLibrary("jpeg");
 		System.loadLibrary("pngx");
@@ -63,6 +65,8 @@ public class Box {
 	 */
 	private final long mNativeBox;
 
+	private final NativeReclaimer.Registration mRegistration;
+
 	private boolean mRecycled;
 
 	/**
@@ -72,6 +76,7 @@ public class Box {
 	 */
 	Box(long nativeBox) {
 		mNativeBox = nativeBox;
+		mRegistration = NativeReclaimer.register(this, nativeBox, Box::nativeDestroy);
 		mRecycled = false;
 	}
 
@@ -96,11 +101,14 @@ public class Box {
 		}
 
 		mNativeBox = nativeBox;
+		mRegistration = NativeReclaimer.register(this, nativeBox, Box::nativeDestroy);
 		mRecycled = false;
 	}
 
 	/**
-	 * Returns a pointer to the native Box object.
+	 * Returns a pointer to the native Box object. The Box must be kept
+	 * reachable while the pointer is used, see
+	 * {@link NativeReclaimer#keepAlive(Object)}.
 	 *
 	 * @return a pointer to the native Box object
 	 */
@@ -120,7 +128,11 @@ public class Box {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeGetX(mNativeBox);
+		try {
+			return nativeGetX(mNativeBox);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -132,7 +144,11 @@ public class Box {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeGetY(mNativeBox);
+		try {
+			return nativeGetY(mNativeBox);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -144,7 +160,11 @@ public class Box {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeGetWidth(mNativeBox);
+		try {
+			return nativeGetWidth(mNativeBox);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -156,7 +176,11 @@ public class Box {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeGetHeight(mNativeBox);
+		try {
+			return nativeGetHeight(mNativeBox);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -205,7 +229,11 @@ public class Box {
 			throw new IllegalArgumentException("Geometry array must be at least 4 elements long");
 		}
 
-		return nativeGetGeometry(mNativeBox, geometry);
+		try {
+			return nativeGetGeometry(mNativeBox, geometry);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -213,12 +241,21 @@ public class Box {
 	 */
 	public void recycle() {
 		if (!mRecycled) {
-			nativeDestroy(mNativeBox);
+			if (NativeReclaimer.unregister(mRegistration))
+				nativeDestroy(mNativeBox);
 
 			mRecycled = true;
 		}
 	}
 
+	/**
+	 * Same as {@link #recycle()}.
+	 */
+	@Override
+	public void close() {
+		recycle();
+	}
+
 	// ***************
 	// * NATIVE CODE *
 	// ***************
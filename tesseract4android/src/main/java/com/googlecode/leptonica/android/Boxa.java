@@ -22,13 +22,15 @@ import android.util.Log;
 
 import androidx.annotation.Size;
 
+import java.io.Closeable;
+
 /**
  * Wrapper for Leptonica's native BOXA.
  *
  * @author renard
  */
 @SuppressWarnings("WeakerAccess")
-public class Boxa {
+public class Boxa implements Closeable {
 	static {
 		System.loadLibrary("jpeg");
 		System.loadLibrary("pngx");
@@ -43,6 +45,8 @@ public class Boxa {
 	 */
 	private final long mNativeBoxa;
 
+	private final NativeReclaimer.Registration mRegistration;
+
 	private boolean mRecycled;
 
 	/**
@@ -52,13 +56,16 @@ public class Boxa {
 	 */
 	public Boxa(long nativeBoxa) {
 		mNativeBoxa = nativeBoxa;
+		mRegistration = NativeReclaimer.register(this, nativeBoxa, Boxa::nativeDestroy);
 		mRecycled = false;
 	}
 
 	// TODO Add constructors.
 
 	/**
-	 * Returns a pointer to the native Boxa object.
+	 * Returns a pointer to the native Boxa object. The Boxa must be kept
+	 * reachable while the pointer is used, see
+	 * {@link NativeReclaimer#keepAlive(Object)}.
 	 *
 	 * @return a pointer to the native Boxa object
 	 */
@@ -73,7 +80,11 @@ public class Boxa {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeGetCount(mNativeBoxa);
+		try {
+			return nativeGetCount(mNativeBoxa);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -128,7 +139,11 @@ public class Boxa {
 			throw new IllegalArgumentException("Geometry array must be at least 4 elements long");
 		}
 
-		return nativeGetGeometry(mNativeBoxa, index, geometry);
+		try {
+			return nativeGetGeometry(mNativeBoxa, index, geometry);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -136,12 +151,21 @@ public class Boxa {
 	 */
 	public synchronized void recycle() {
 		if (!mRecycled) {
-			nativeDestroy(mNativeBoxa);
+			if (NativeReclaimer.unregister(mRegistration))
+				nativeDestroy(mNativeBoxa);
 
 			mRecycled = true;
 		}
 	}
 
+	/**
+	 * Same as {@link #recycle()}.
+	 */
+	@Override
+	public void close() {
+		recycle();
+	}
+
 	@Override
 	protected void finalize() throws Throwable {
 		try {
@@ -58,6 +58,8 @@ public class Clip {
 	public static Pix clipRectangle(Pix source, Box box) {
 		long result = nativeClipRectangle(source.getNativePix(),
 				box.getNativeBox());
+		NativeReclaimer.keepAlive(source);
+		NativeReclaimer.keepAlive(box);
 		if (result != 0) {
 			return new Pix(result);
 		}
@@ -40,6 +40,7 @@ public class Convert {
 			throw new IllegalArgumentException("Source pix must be non-null");
 
 		long nativePix = nativeConvertTo8(pixs.getNativePix());
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0)
 			throw new RuntimeException("Failed to natively convert pix");
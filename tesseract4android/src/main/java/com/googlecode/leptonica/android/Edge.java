@@ -92,6 +92,7 @@ public class Edge {
 
 		long nativePix = nativePixSobelEdgeFilter(pixs.getNativePix(),
 				orientFlag);
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0)
 			throw new RuntimeException("Failed to perform Sobel edge filter on image");
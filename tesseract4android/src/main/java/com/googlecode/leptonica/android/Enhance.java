@@ -72,6 +72,7 @@ public class Enhance {
 
 		long nativePix = nativeUnsharpMasking(pixs.getNativePix(), halfwidth,
 				fraction);
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0) {
 			throw new OutOfMemoryError();
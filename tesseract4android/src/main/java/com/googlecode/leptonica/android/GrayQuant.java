@@ -50,6 +50,7 @@ public class GrayQuant {
 
 		long nativePix = nativePixThresholdToBinary(pixs.getNativePix(),
 				thresh);
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0)
 			throw new RuntimeException("Failed to perform binarization");
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.leptonica.android;
+
+import android.graphics.Bitmap;
+
+import java.util.Locale;
+
+/**
+ * Cheap image signatures for detecting whether the content of two images of
+ * the same scene differs, e.g. between consecutive screen captures.
+ * <p>
+ * A signature holds the mean gray value of each cell of a grid laid over the
+ * image. Every pixel contributes to the mean of its cell, but a change which
+ * covers only a small part of a cell, such as a single changed word in a
+ * coarse grid, moves the mean only a little and may be lost in the tolerance
+ * of the comparison. Finer grids detect smaller changes.
+ */
+public class ImageSignature {
+	static {
+		System.loadLibrary("jpeg");
+		System.loadLibrary("pngx");
+		System.loadLibrary("leptonica");
+	}
+
+	/**
+	 * Computes the signature of an image.
+	 *
+	 * @param pixs       Source pix of any bit-depth.
+	 * @param gridWidth  The number of cells per row, at most the image width.
+	 * @param gridHeight The number of cells per column, at most the image
+	 *                   height.
+	 * @return the mean gray values of the cells, row by row
+	 */
+	public static byte[] compute(Pix pixs, int gridWidth, int gridHeight) {
+		if (pixs == null)
+			throw new IllegalArgumentException("Source pix must be non-null");
+		checkGrid(pixs.getWidth(), pixs.getHeight(), gridWidth, gridHeight);
+
+		byte[] signature = new byte[gridWidth * gridHeight];
+
+		boolean success = nativeComputePix(pixs.getNativePix(), gridWidth, gridHeight, signature);
+		NativeReclaimer.keepAlive(pixs);
+
+		if (!success)
+			throw new RuntimeException("Failed to natively compute signature");
+
+		return signature;
+	}
+
+	/**
+	 * Computes the signature of a bitmap. ARGB_8888 bitmaps are read directly,
+	 * other formats are converted to grayscale first.
+	 *
+	 * @param bmp        Source bitmap.
+	 * @param gridWidth  The number of cells per row, at most the bitmap width.
+	 * @param gridHeight The number of cells per column, at most the bitmap
+	 *                   height.
+	 * @return the mean gray values of the cells, row by row
+	 */
+	public static byte[] compute(Bitmap bmp, int gridWidth, int gridHeight) {
+		if (bmp == null)
+			throw new IllegalArgumentException("Source bitmap must be non-null");
+
+		if (bmp.getConfig() != Bitmap.Config.ARGB_8888) {
+			Pix pix = ReadFile.readBitmapGray(bmp);
+			if (pix == null)
+				throw new IllegalArgumentException("Unsupported bitmap config");
+			try {
+				return compute(pix, gridWidth, gridHeight);
+			} finally {
+				pix.recycle();
+			}
+		}
+
+		checkGrid(bmp.getWidth(), bmp.getHeight(), gridWidth, gridHeight);
+
+		byte[] signature = new byte[gridWidth * gridHeight];
+
+		if (!nativeComputeBitmap(bmp, gridWidth, gridHeight, signature))
+			throw new RuntimeException("Failed to natively compute signature");
+
+		return signature;
+	}
+
+	/**
+	 * Computes a 128-bit digest of the pixel data of an image, which identifies
+	 * images with the same content, e.g. to cache results computed from them.
+	 * Unlike signatures, digests change with every pixel. The digest is not
+	 * cryptographic.
+	 *
+	 * @param pixs Source pix of any bit-depth.
+	 * @return the digest as 32 hexadecimal digits
+	 */
+	public static String digest(Pix pixs) {
+		if (pixs == null)
+			throw new IllegalArgumentException("Source pix must be non-null");
+
+		long[] digest = new long[2];
+
+		boolean success = nativeDigest(pixs.getNativePix(), digest);
+		NativeReclaimer.keepAlive(pixs);
+
+		if (!success)
+			throw new RuntimeException("Failed to natively compute digest");
+
+		return String.format(Locale.US, "%016x%016x", digest[0], digest[1]);
+	}
+
+	/**
+	 * Returns the largest difference between the mean gray values of
+	 * corresponding cells of two signatures.
+	 *
+	 * @param a a signature
+	 * @param b a signature of the same grid size
+	 * @return the largest difference (0..255)
+	 */
+	public static int maxDifference(byte[] a, byte[] b) {
+		if (a == null || b == null || a.length != b.length)
+			throw new IllegalArgumentException("Signatures must be of the same size");
+
+		int max = 0;
+		for (int i = 0; i < a.length; i++) {
+			int diff = Math.abs((a[i] & 0xFF) - (b[i] & 0xFF));
+			if (diff > max)
+				max = diff;
+		}
+		return max;
+	}
+
+	private static void checkGrid(int width, int height, int gridWidth, int gridHeight) {
+		if (gridWidth <= 0 || gridHeight <= 0)
+			throw new IllegalArgumentException("Grid size must be greater than 0");
+		if (gridWidth > width || gridHeight > height)
+			throw new IllegalArgumentException("Grid must not be larger than the image");
+	}
+
+	// ***************
+	// * NATIVE CODE *
+	// ***************
+
+	private static native boolean nativeComputePix(long nativePix, int gridWidth, int gridHeight,
+												   byte[] signature);
+
+	private static native boolean nativeComputeBitmap(Bitmap bitmap, int gridWidth, int gridHeight,
+													  byte[] signature);
+
+	private static native boolean nativeDigest(long nativePix, long[] digest);
+}
@@ -78,6 +78,7 @@ public class MorphApp {
 
 		long nativePix = nativePixTophat(pixs.getNativePix(), hsize, vsize,
 				type);
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0)
 			throw new RuntimeException("Failed to perform Tophat on image");
@@ -148,6 +149,7 @@ public class MorphApp {
 
 		long nativePix = nativePixFastTophat(pixs.getNativePix(), xsize, ysize,
 				type);
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0)
 			throw new RuntimeException("Failed to perform pixFastTophat on image");
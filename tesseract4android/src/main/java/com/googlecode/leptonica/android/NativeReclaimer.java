@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.leptonica.android;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Frees the native objects of wrappers which became unreachable without being
+ * recycled, such as {@link Pix}, {@link Box} or the Tesseract iterators.
+ * <p>
+ * Reclamation is disabled by default and only applies to wrappers created
+ * while it is enabled. Recycling objects explicitly remains the preferred way,
+ * as it frees the native memory immediately; reclamation is a safety net for
+ * objects which are forgotten.
+ * <p>
+ * A wrapper may become unreachable as soon as its native pointer has been
+ * loaded, even while a native call still uses the pointer. The wrappers of
+ * this library therefore call {@link #keepAlive(Object)} after every native
+ * call which uses their pointers, or the pointers of wrappers passed to them.
+ * Code which passes a pointer such as {@link Pix#getNativePix()} to its own
+ * native methods must do the same while reclamation is enabled.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class NativeReclaimer {
+
+	/**
+	 * Frees a native object. Must not reference the wrapper of the object.
+	 */
+	public interface Destructor {
+		void destroy(long nativePointer);
+	}
+
+	/**
+	 * Tracks a single wrapper until it is recycled or becomes unreachable.
+	 */
+	public static final class Registration extends PhantomReference<Object> {
+		private final long mNativePointer;
+		private final Destructor mDestructor;
+
+		private Registration(Object owner, long nativePointer, Destructor destructor) {
+			super(owner, sQueue);
+			mNativePointer = nativePointer;
+			mDestructor = destructor;
+		}
+	}
+
+	private static final ReferenceQueue<Object> sQueue = new ReferenceQueue<>();
+
+	/**
+	 * Keeps registrations reachable until they are enqueued. Guarded by itself.
+	 */
+	private static final Set<Registration> sRegistrations = new HashSet<>();
+
+	private static volatile boolean sEnabled;
+
+	private static Thread sThread;
+
+	private static long sReclaimedCount;
+
+	private NativeReclaimer() {
+	}
+
+	/**
+	 * Keeps a reference reachable until this method is called, like
+	 * <code>Reference.reachabilityFence()</code> which needs API 28. The
+	 * reference is stored into a volatile field which is only cleared when a
+	 * condition the compiler can't prove holds, so the call can't be removed.
+	 */
+	private static final class SinkHolder {
+		static volatile Object sink;
+
+		// Only ever changed by a finalizer, which never runs
+		static volatile int finalizeCount;
+
+		@SuppressWarnings("unused")
+		private static final Object sFinalizer = new Object() {
+			@Override
+			protected void finalize() throws Throwable {
+				finalizeCount++;
+				super.finalize();
+			}
+		};
+	}
+
+	/**
+	 * Ensures that the given object is not reclaimed before this method is
+	 * called, even if it is not used afterwards. Must be called after native
+	 * calls which use the native pointer of a wrapper.
+	 *
+	 * @param object the object to keep reachable, may be <code>null</code>
+	 */
+	public static void keepAlive(Object object) {
+		SinkHolder.sink = object;
+		if (SinkHolder.finalizeCount == 0)
+			SinkHolder.sink = null;
+	}
+
+	/**
+	 * Enables or disables reclamation of wrappers created from now on.
+	 * Wrappers which are already registered stay registered.
+	 *
+	 * @param enabled whether to register new wrappers
+	 */
+	public static void setEnabled(boolean enabled) {
+		sEnabled = enabled;
+	}
+
+	/**
+	 * @return whether new wrappers are registered for reclamation
+	 */
+	public static boolean isEnabled() {
+		return sEnabled;
+	}
+
+	/**
+	 * Registers a wrapper, so its native object is freed once the wrapper
+	 * becomes unreachable.
+	 *
+	 * @param owner         the wrapper
+	 * @param nativePointer the native object owned by the wrapper
+	 * @param destructor    frees the native object
+	 * @return the registration or <code>null</code> if reclamation is disabled
+	 */
+	public static Registration register(Object owner, long nativePointer, Destructor destructor) {
+		if (!sEnabled || nativePointer == 0)
+			return null;
+
+		Registration registration = new Registration(owner, nativePointer, destructor);
+
+		synchronized (sRegistrations) {
+			sRegistrations.add(registration);
+
+			if (sThread == null) {
+				sThread = new Thread(NativeReclaimer::reclaimLoop, "NativeReclaimer");
+				sThread.setDaemon(true);
+				sThread.start();
+			}
+		}
+
+		return registration;
+	}
+
+	/**
+	 * Unregisters a wrapper which is about to free its native object itself.
+	 *
+	 * @param registration the registration of the wrapper, may be
+	 *                     <code>null</code>
+	 * @return <code>true</code> if the caller still owns the native object and
+	 * must free it
+	 */
+	public static boolean unregister(Registration registration) {
+		if (registration == null)
+			return true;
+
+		registration.clear();
+
+		synchronized (sRegistrations) {
+			return sRegistrations.remove(registration);
+		}
+	}
+
+	/**
+	 * @return the number of native objects freed by reclamation so far
+	 */
+	public static long getReclaimedCount() {
+		synchronized (sRegistrations) {
+			return sReclaimedCount;
+		}
+	}
+
+	/**
+	 * @return the number of wrappers currently registered
+	 */
+	public static int getRegisteredCount() {
+		synchronized (sRegistrations) {
+			return sRegistrations.size();
+		}
+	}
+
+	private static void reclaimLoop() {
+		while (true) {
+			Registration registration;
+			try {
+				registration = (Registration) sQueue.remove();
+			} catch (InterruptedException e) {
+				continue;
+			}
+
+			boolean owned;
+			synchronized (sRegistrations) {
+				owned = sRegistrations.remove(registration);
+				if (owned)
+					sReclaimedCount++;
+			}
+
+			if (owned)
+				registration.mDestructor.destroy(registration.mNativePointer);
+		}
+	}
+}
@@ -23,6 +23,7 @@ import androidx.annotation.ColorInt;
 import androidx.annotation.IntDef;
 import androidx.annotation.Size;
 
+import java.io.Closeable;
 import java.lang.annotation.Retention;
 
 import static java.lang.annotation.RetentionPolicy.SOURCE;
@@ -33,7 +34,7 @@ import static java.lang.annotation.RetentionPolicy.SOURCE;
  * @author alanv@google.com (Alan Viverette)
  */
 @SuppressWarnings("WeakerAccess")
-public class Pix {
+public class Pix implements Closeable {
 	static {
 		System.loadLibrary("jpeg");
 		System.loadLibrary("pngx");
@@ -94,6 +95,8 @@ public class Pix {
 	 */
 	private final long mNativePix;
 
+	private final NativeReclaimer.Registration mRegistration;
+
 	private boolean mRecycled;
 
 	/**
@@ -103,6 +106,7 @@ public class Pix {
 	 */
 	public Pix(long nativePix) {
 		mNativePix = nativePix;
+		mRegistration = NativeReclaimer.register(this, nativePix, Pix::nativeDestroy);
 		mRecycled = false;
 	}
 
@@ -115,12 +119,15 @@ public class Pix {
 		}
 
 		mNativePix = nativeCreatePix(width, height, depth);
+		mRegistration = NativeReclaimer.register(this, mNativePix, Pix::nativeDestroy);
 		mRecycled = false;
 	}
 
 	/**
 	 * Returns a pointer to the native Pix object. This is used by native code
 	 * and is only valid within the same process in which the Pix was created.
+	 * The Pix must be kept reachable while the pointer is used, see
+	 * {@link NativeReclaimer#keepAlive(Object)}.
 	 *
 	 * @return a native pointer to the Pix object
 	 */
@@ -142,6 +149,7 @@ public class Pix {
 			throw new IllegalStateException();
 
 		byte[] buffer = nativeGetData(mNativePix);
+		NativeReclaimer.keepAlive(this);
 
 		if (buffer == null) {
 			throw new RuntimeException("native getData failed");
@@ -180,7 +188,11 @@ public class Pix {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeGetDimensions(mNativePix, dimensions);
+		try {
+			return nativeGetDimensions(mNativePix, dimensions);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -195,6 +207,7 @@ public class Pix {
 			throw new IllegalStateException();
 
 		long nativePix = nativeClone(mNativePix);
+		NativeReclaimer.keepAlive(this);
 
 		if (nativePix == 0) {
 			throw new OutOfMemoryError();
@@ -214,6 +227,7 @@ public class Pix {
 			throw new IllegalStateException();
 
 		long nativePix = nativeCopy(mNativePix);
+		NativeReclaimer.keepAlive(this);
 
 		if (nativePix == 0) {
 			throw new OutOfMemoryError();
@@ -231,7 +245,11 @@ public class Pix {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeInvert(mNativePix);
+		try {
+			return nativeInvert(mNativePix);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -240,12 +258,21 @@ public class Pix {
 	 */
 	public void recycle() {
 		if (!mRecycled) {
-			nativeDestroy(mNativePix);
+			if (NativeReclaimer.unregister(mRegistration))
+				nativeDestroy(mNativePix);
 
 			mRecycled = true;
 		}
 	}
 
+	/**
+	 * Same as {@link #recycle()}.
+	 */
+	@Override
+	public void close() {
+		recycle();
+	}
+
 	/**
 	 * Creates a new Pix from raw Pix data obtained from getData().
 	 *
@@ -286,7 +313,11 @@ public class Pix {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeGetWidth(mNativePix);
+		try {
+			return nativeGetWidth(mNativePix);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -298,7 +329,11 @@ public class Pix {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeGetHeight(mNativePix);
+		try {
+			return nativeGetHeight(mNativePix);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -310,7 +345,11 @@ public class Pix {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeGetDepth(mNativePix);
+		try {
+			return nativeGetDepth(mNativePix);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -322,7 +361,11 @@ public class Pix {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeGetSpp(mNativePix);
+		try {
+			return nativeGetSpp(mNativePix);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -335,7 +378,11 @@ public class Pix {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeGetInputFormat(mNativePix);
+		try {
+			return nativeGetInputFormat(mNativePix);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -357,7 +404,11 @@ public class Pix {
 			throw new IllegalArgumentException("Supplied y coordinate exceeds image bounds");
 		}
 
-		return nativeGetPixel(mNativePix, x, y);
+		try {
+			return nativeGetPixel(mNativePix, x, y);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -380,6 +431,7 @@ public class Pix {
 		}
 
 		nativeSetPixel(mNativePix, x, y, color);
+		NativeReclaimer.keepAlive(this);
 	}
 
 	// ***************
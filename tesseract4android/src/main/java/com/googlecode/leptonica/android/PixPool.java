@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.leptonica.android;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pool of Pix objects which can be reused for images of the same size and
+ * depth, so continuous frame processing doesn't allocate and free a large
+ * native raster for every frame.
+ * <p>
+ * Typical use is to {@link #acquire(int, int, int) acquire} a Pix for each
+ * frame, fill it with one of the <code>replace</code> methods of
+ * {@link ReadFile}, hand it to Tesseract and {@link #release(Pix) release} it
+ * afterwards. The contents of an acquired Pix are undefined.
+ * <p>
+ * A released Pix must not be used by the caller anymore and must not have
+ * clones which are still in use, e.g. in a {@link Pixa}, since the next user
+ * of the Pix overwrites its raster. Tesseract copies images when they are set,
+ * so a Pix may be released right after it was passed to
+ * <code>TessBaseAPI.setImage(Pix)</code>.
+ */
+@SuppressWarnings("WeakerAccess")
+public class PixPool {
+
+	private final int mMaxIdlePerKey;
+
+	/**
+	 * Idle Pix objects keyed by width, height and depth.
+	 */
+	private final Map<Long, ArrayDeque<Pix>> mIdle = new HashMap<>();
+
+	private int mIdleCount;
+
+	private boolean mRecycled;
+
+	/**
+	 * Constructs a pool keeping at most the given number of idle Pix objects
+	 * for each combination of width, height and depth.
+	 *
+	 * @param maxIdlePerKey maximum number of idle Pix objects per size
+	 */
+	public PixPool(int maxIdlePerKey) {
+		if (maxIdlePerKey <= 0)
+			throw new IllegalArgumentException("Pool size must be greater than 0");
+
+		mMaxIdlePerKey = maxIdlePerKey;
+	}
+
+	/**
+	 * Returns an idle Pix of the given size and depth or creates a new one.
+	 * The contents of the Pix are undefined.
+	 *
+	 * @param width  the width of the Pix
+	 * @param height the height of the Pix
+	 * @param depth  the bit-depth of the Pix
+	 * @return a Pix, which should be returned by {@link #release(Pix)}
+	 */
+	public Pix acquire(int width, int height, int depth) {
+		synchronized (this) {
+			if (mRecycled)
+				throw new IllegalStateException();
+
+			ArrayDeque<Pix> idle = mIdle.get(key(width, height, depth));
+			if (idle != null && !idle.isEmpty()) {
+				mIdleCount--;
+				return idle.pollFirst();
+			}
+		}
+
+		return new Pix(width, height, depth);
+	}
+
+	/**
+	 * Returns a Pix back to the pool, or recycles it if the pool already holds
+	 * enough Pix objects of its size. The Pix must not be used by the caller
+	 * anymore.
+	 *
+	 * @param pix the Pix to return
+	 */
+	public void release(Pix pix) {
+		if (pix == null)
+			throw new IllegalArgumentException("Pix must not be null");
+
+		int[] dimensions = pix.getDimensions();
+		Long key = key(dimensions[Pix.INDEX_W], dimensions[Pix.INDEX_H],
+				dimensions[Pix.INDEX_D]);
+
+		synchronized (this) {
+			if (!mRecycled) {
+				ArrayDeque<Pix> idle = mIdle.get(key);
+				if (idle == null) {
+					idle = new ArrayDeque<>();
+					mIdle.put(key, idle);
+				}
+				if (idle.size() < mMaxIdlePerKey) {
+					idle.addFirst(pix);
+					mIdleCount++;
+					return;
+				}
+			}
+		}
+
+		pix.recycle();
+	}
+
+	/**
+	 * @return the number of idle Pix objects held by the pool
+	 */
+	public synchronized int getIdleCount() {
+		return mIdleCount;
+	}
+
+	/**
+	 * Recycles all idle Pix objects. Pix objects released afterwards are
+	 * recycled right away and no Pix can be acquired anymore.
+	 */
+	public void recycle() {
+		List<Pix> idle = new ArrayList<>();
+
+		synchronized (this) {
+			if (mRecycled)
+				return;
+
+			mRecycled = true;
+			for (ArrayDeque<Pix> pixs : mIdle.values()) {
+				idle.addAll(pixs);
+			}
+			mIdle.clear();
+			mIdleCount = 0;
+		}
+
+		for (Pix pix : idle) {
+			pix.recycle();
+		}
+	}
+
+	private static Long key(int width, int height, int depth) {
+		return ((long) width << 32) | ((long) height << 8) | depth;
+	}
+}
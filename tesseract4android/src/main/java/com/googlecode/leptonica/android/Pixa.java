@@ -20,6 +20,7 @@ package com.googlecode.leptonica.android;
 import android.graphics.Rect;
 import android.util.Log;
 
+import java.io.Closeable;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -33,7 +34,7 @@ import androidx.annotation.Size;
  * @author alanv@google.com (Alan Viverette)
  */
 @SuppressWarnings("WeakerAccess")
-public class Pixa implements Iterable<Pix> {
+public class Pixa implements Iterable<Pix>, Closeable {
 	static {
 		System.loadLibrary("jpeg");
 		System.loadLibrary("pngx");
@@ -57,6 +58,8 @@ public class Pixa implements Iterable<Pix> {
 	 */
 	final int mHeight;
 
+	private final NativeReclaimer.Registration mRegistration;
+
 	private boolean mRecycled;
 
 	/**
@@ -103,11 +106,14 @@ public class Pixa implements Iterable<Pix> {
 		mNativePixa = nativePixa;
 		mWidth = width;
 		mHeight = height;
+		mRegistration = NativeReclaimer.register(this, nativePixa, Pixa::nativeDestroy);
 		mRecycled = false;
 	}
 
 	/**
 	 * Returns a pointer to the native PIXA object. This is used by native code.
+	 * The Pixa must be kept reachable while the pointer is used, see
+	 * {@link NativeReclaimer#keepAlive(Object)}.
 	 *
 	 * @return a pointer to the native PIXA object
 	 */
@@ -129,6 +135,7 @@ public class Pixa implements Iterable<Pix> {
 			throw new IllegalStateException();
 
 		long nativePixa = nativeCopy(mNativePixa);
+		NativeReclaimer.keepAlive(this);
 
 		if (nativePixa == 0) {
 			throw new OutOfMemoryError();
@@ -152,6 +159,7 @@ public class Pixa implements Iterable<Pix> {
 			throw new IllegalStateException();
 
 		long nativePixa = nativeSort(mNativePixa, field, order);
+		NativeReclaimer.keepAlive(this);
 
 		if (nativePixa == 0) {
 			throw new OutOfMemoryError();
@@ -169,7 +177,11 @@ public class Pixa implements Iterable<Pix> {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeGetCount(mNativePixa);
+		try {
+			return nativeGetCount(mNativePixa);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -182,12 +194,21 @@ public class Pixa implements Iterable<Pix> {
 	 */
 	public synchronized void recycle() {
 		if (!mRecycled) {
-			nativeDestroy(mNativePixa);
+			if (NativeReclaimer.unregister(mRegistration))
+				nativeDestroy(mNativePixa);
 
 			mRecycled = true;
 		}
 	}
 
+	/**
+	 * Same as {@link #recycle()}.
+	 */
+	@Override
+	public void close() {
+		recycle();
+	}
+
 	@Override
 	protected void finalize() throws Throwable {
 		try {
@@ -210,7 +231,12 @@ public class Pixa implements Iterable<Pix> {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeJoin(mNativePixa, otherPixa.mNativePixa);
+		try {
+			return nativeJoin(mNativePixa, otherPixa.mNativePixa);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+			NativeReclaimer.keepAlive(otherPixa);
+		}
 	}
 
 	/**
@@ -225,6 +251,8 @@ public class Pixa implements Iterable<Pix> {
 			throw new IllegalStateException();
 
 		nativeAddPix(mNativePixa, pix.getNativePix(), mode);
+		NativeReclaimer.keepAlive(this);
+		NativeReclaimer.keepAlive(pix);
 	}
 
 	/**
@@ -239,6 +267,8 @@ public class Pixa implements Iterable<Pix> {
 			throw new IllegalStateException();
 
 		nativeAddBox(mNativePixa, box.getNativeBox(), mode);
+		NativeReclaimer.keepAlive(this);
+		NativeReclaimer.keepAlive(box);
 	}
 
 	/**
@@ -254,6 +284,9 @@ public class Pixa implements Iterable<Pix> {
 			throw new IllegalStateException();
 
 		nativeAdd(mNativePixa, pix.getNativePix(), box.getNativeBox(), mode);
+		NativeReclaimer.keepAlive(this);
+		NativeReclaimer.keepAlive(pix);
+		NativeReclaimer.keepAlive(box);
 	}
 
 	/**
@@ -268,6 +301,7 @@ public class Pixa implements Iterable<Pix> {
 			throw new IllegalStateException();
 
 		long nativeBox = nativeGetBox(mNativePixa, index);
+		NativeReclaimer.keepAlive(this);
 
 		if (nativeBox == 0) {
 			return null;
@@ -288,6 +322,7 @@ public class Pixa implements Iterable<Pix> {
 			throw new IllegalStateException();
 
 		long nativePix = nativeGetPix(mNativePixa, index);
+		NativeReclaimer.keepAlive(this);
 
 		if (nativePix == 0) {
 			return null;
@@ -370,7 +405,11 @@ public class Pixa implements Iterable<Pix> {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeGetBoxGeometry(mNativePixa, index, dimensions);
+		try {
+			return nativeGetBoxGeometry(mNativePixa, index, dimensions);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -404,6 +443,7 @@ public class Pixa implements Iterable<Pix> {
 			throw new IllegalStateException();
 
 		final int pixaCount = nativeGetCount(mNativePixa);
+		NativeReclaimer.keepAlive(this);
 		final int[] buffer = new int[4];
 		final ArrayList<Rect> rects = new ArrayList<Rect>(pixaCount);
 
@@ -435,6 +475,9 @@ public class Pixa implements Iterable<Pix> {
 
 		nativeReplacePix(mNativePixa, index, pix.getNativePix(),
 				box.getNativeBox());
+		NativeReclaimer.keepAlive(this);
+		NativeReclaimer.keepAlive(pix);
+		NativeReclaimer.keepAlive(box);
 	}
 
 	/**
@@ -450,6 +493,7 @@ public class Pixa implements Iterable<Pix> {
 			throw new IllegalStateException();
 
 		nativeMergeAndReplacePix(mNativePixa, indexA, indexB);
+		NativeReclaimer.keepAlive(this);
 	}
 
 	/**
@@ -463,7 +507,11 @@ public class Pixa implements Iterable<Pix> {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeWriteToFileRandomCmap(mNativePixa, file.getAbsolutePath(), mWidth, mHeight);
+		try {
+			return nativeWriteToFileRandomCmap(mNativePixa, file.getAbsolutePath(), mWidth, mHeight);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	public Iterator<Pix> iterator() {
@@ -19,9 +19,14 @@ package com.googlecode.leptonica.android;
 
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Rect;
+import android.os.ParcelFileDescriptor;
 import android.util.Log;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Image input and output methods.
@@ -37,6 +42,11 @@ public class ReadFile {
 
 	private static final String LOG_TAG = ReadFile.class.getSimpleName();
 
+	/**
+	 * Size of the buffer used to read encoded images from streams.
+	 */
+	private static final int STREAM_BUFFER_SIZE = 16 * 1024;
+
 	/**
 	 * Creates a 32bpp Pix object from encoded data. Supported formats are BMP,
 	 * JPEG, and PNG.
@@ -90,6 +100,80 @@ public class ReadFile {
 		return new Pix(nativePix);
 	}
 
+	/**
+	 * Creates an 8bpp Pix object from the luma (Y) plane of a YUV image, such
+	 * as the first plane of a YUV_420_888 camera frame. The plane is read
+	 * starting at the current position of the buffer, which is not changed.
+	 * <p>
+	 * This avoids converting the frame to an RGBA Bitmap and back to gray,
+	 * since the luma plane already is a grayscale image.
+	 *
+	 * @param buffer      direct buffer holding the plane, e.g. from
+	 *                    <code>Image.Plane.getBuffer()</code>
+	 * @param width       The width of the input image.
+	 * @param height      The height of the input image.
+	 * @param rowStride   The distance between the starts of two rows, in bytes.
+	 * @param pixelStride The distance between two pixels of a row, in bytes.
+	 * @return an 8bpp Pix object
+	 */
+	public static Pix readLumaPlane(ByteBuffer buffer, int width, int height, int rowStride,
+									int pixelStride) {
+		checkLumaPlane(buffer, width, height, rowStride, pixelStride);
+
+		long nativePix = nativeReadLumaPlane(buffer, buffer.position(), width, height, rowStride,
+				pixelStride);
+
+		if (nativePix == 0)
+			throw new RuntimeException("Failed to read pix from luma plane");
+
+		return new Pix(nativePix);
+	}
+
+	/**
+	 * Replaces the pixels of an 8bpp Pix object with the luma (Y) plane of a
+	 * YUV image, e.g. to reuse a Pix from a {@link PixPool} for every camera
+	 * frame. Width and height must be identical to the input Pix.
+	 *
+	 * @param pixs        The Pix whose pixels will be replaced.
+	 * @param buffer      direct buffer holding the plane
+	 * @param width       The width of the input image.
+	 * @param height      The height of the input image.
+	 * @param rowStride   The distance between the starts of two rows, in bytes.
+	 * @param pixelStride The distance between two pixels of a row, in bytes.
+	 * @return <code>true</code> on success
+	 * @see #readLumaPlane(ByteBuffer, int, int, int, int)
+	 */
+	public static boolean replaceLumaPlane(Pix pixs, ByteBuffer buffer, int width, int height,
+										   int rowStride, int pixelStride) {
+		if (pixs == null)
+			throw new IllegalArgumentException("Source pix must be non-null");
+		checkLumaPlane(buffer, width, height, rowStride, pixelStride);
+
+		try {
+			return nativeReplaceLumaPlane(pixs.getNativePix(), buffer, buffer.position(), width,
+					height, rowStride, pixelStride);
+		} finally {
+			NativeReclaimer.keepAlive(pixs);
+		}
+	}
+
+	private static void checkLumaPlane(ByteBuffer buffer, int width, int height, int rowStride,
+									   int pixelStride) {
+		if (buffer == null || !buffer.isDirect())
+			throw new IllegalArgumentException("Buffer must be a direct buffer");
+		if (width <= 0)
+			throw new IllegalArgumentException("Image width must be greater than 0");
+		if (height <= 0)
+			throw new IllegalArgumentException("Image height must be greater than 0");
+		if (pixelStride <= 0)
+			throw new IllegalArgumentException("Pixel stride must be greater than 0");
+		if (rowStride < (long) (width - 1) * pixelStride + 1)
+			throw new IllegalArgumentException("Row stride is too small for the image width");
+		// The last row of a plane may end right after its last pixel
+		if ((long) rowStride * (height - 1) + (long) (width - 1) * pixelStride + 1 > buffer.remaining())
+			throw new IllegalArgumentException("Buffer length does not match dimensions");
+	}
+
 	/**
 	 * Replaces the bytes in an 8bpp Pix object with raw grayscale 8bpp pixels.
 	 * Width and height be identical to the input Pix.
@@ -116,8 +200,12 @@ public class ReadFile {
 		if (pixs.getHeight() != height)
 			throw new IllegalArgumentException("Source pix height does not match image height");
 
-		return nativeReplaceBytes8(pixs.getNativePix(), pixelData, width,
-				height);
+		try {
+			return nativeReplaceBytes8(pixs.getNativePix(), pixelData, width,
+					height);
+		} finally {
+			NativeReclaimer.keepAlive(pixs);
+		}
 	}
 
 	/**
@@ -162,6 +250,233 @@ public class ReadFile {
 		return pix;
 	}
 
+	/**
+	 * Creates a Pix object from a JPEG file, reduced by the given factor while
+	 * decoding. libjpeg scales the image during decompression, so the full
+	 * resolution image is never held in memory, which makes this much faster
+	 * than reading the file and scaling the Pix afterwards.
+	 *
+	 * @param file      The JPEG-encoded file to read in as a Pix.
+	 * @param reduction The scale reduction factor: 1, 2, 4 or 8.
+	 * @param luminance Whether to decode only the luminance into an 8bpp Pix,
+	 *                  instead of a 32bpp color Pix.
+	 * @return a Pix object
+	 */
+	public static Pix readJpeg(File file, int reduction, boolean luminance) {
+		if (file == null) {
+			Log.e(LOG_TAG, "File must be non-null");
+			return null;
+		}
+		if (!file.exists()) {
+			Log.e(LOG_TAG, "File does not exist");
+			return null;
+		}
+		if (!file.canRead()) {
+			Log.e(LOG_TAG, "Cannot read file");
+			return null;
+		}
+		checkJpegReduction(reduction);
+
+		final long nativePix = nativeReadJpeg(file.getAbsolutePath(), reduction, luminance);
+
+		if (nativePix == 0) {
+			Log.e(LOG_TAG, "Failed to read JPEG file");
+			return null;
+		}
+
+		return new Pix(nativePix);
+	}
+
+	/**
+	 * Creates a Pix object from a JPEG file, decoded at the smallest size
+	 * which is still at least the given size, if possible.
+	 *
+	 * @param file      The JPEG-encoded file to read in as a Pix.
+	 * @param minWidth  The minimum width of the Pix.
+	 * @param minHeight The minimum height of the Pix.
+	 * @param luminance Whether to decode only the luminance into an 8bpp Pix,
+	 *                  instead of a 32bpp color Pix.
+	 * @return a Pix object
+	 * @see #readJpeg(File, int, boolean)
+	 */
+	public static Pix readJpeg(File file, int minWidth, int minHeight, boolean luminance) {
+		if (file == null) {
+			Log.e(LOG_TAG, "File must be non-null");
+			return null;
+		}
+
+		final BitmapFactory.Options opts = new BitmapFactory.Options();
+		opts.inJustDecodeBounds = true;
+		BitmapFactory.decodeFile(file.getAbsolutePath(), opts);
+		if (opts.outWidth <= 0 || opts.outHeight <= 0) {
+			Log.e(LOG_TAG, "Cannot decode JPEG header");
+			return null;
+		}
+
+		return readJpeg(file, getJpegReduction(opts.outWidth, opts.outHeight, minWidth,
+				minHeight), luminance);
+	}
+
+	/**
+	 * Creates a Pix object from JPEG-encoded data, reduced by the given factor
+	 * while decoding.
+	 *
+	 * @param encodedData JPEG encoded byte data.
+	 * @param reduction   The scale reduction factor: 1, 2, 4 or 8.
+	 * @param luminance   Whether to decode only the luminance into an 8bpp
+	 *                    Pix, instead of a 32bpp color Pix.
+	 * @return a Pix object
+	 * @see #readJpeg(File, int, boolean)
+	 */
+	public static Pix readMemJpeg(byte[] encodedData, int reduction, boolean luminance) {
+		if (encodedData == null) {
+			Log.e(LOG_TAG, "Image data byte array must be non-null");
+			return null;
+		}
+		checkJpegReduction(reduction);
+
+		final long nativePix = nativeReadMemJpeg(encodedData, reduction, luminance);
+
+		if (nativePix == 0) {
+			Log.e(LOG_TAG, "Failed to read JPEG data");
+			return null;
+		}
+
+		return new Pix(nativePix);
+	}
+
+	/**
+	 * Creates a Pix object from JPEG-encoded data, decoded at the smallest
+	 * size which is still at least the given size, if possible.
+	 *
+	 * @param encodedData JPEG encoded byte data.
+	 * @param minWidth    The minimum width of the Pix.
+	 * @param minHeight   The minimum height of the Pix.
+	 * @param luminance   Whether to decode only the luminance into an 8bpp
+	 *                    Pix, instead of a 32bpp color Pix.
+	 * @return a Pix object
+	 * @see #readJpeg(File, int, boolean)
+	 */
+	public static Pix readMemJpeg(byte[] encodedData, int minWidth, int minHeight,
+								  boolean luminance) {
+		if (encodedData == null) {
+			Log.e(LOG_TAG, "Image data byte array must be non-null");
+			return null;
+		}
+
+		final BitmapFactory.Options opts = new BitmapFactory.Options();
+		opts.inJustDecodeBounds = true;
+		BitmapFactory.decodeByteArray(encodedData, 0, encodedData.length, opts);
+		if (opts.outWidth <= 0 || opts.outHeight <= 0) {
+			Log.e(LOG_TAG, "Cannot decode JPEG header");
+			return null;
+		}
+
+		return readMemJpeg(encodedData, getJpegReduction(opts.outWidth, opts.outHeight,
+				minWidth, minHeight), luminance);
+	}
+
+	/**
+	 * Creates a Pix object from an encoded image stream. Supported formats are
+	 * BMP, JPEG, and PNG.
+	 * <p>
+	 * The image is decoded while it is read through a small buffer, so the
+	 * encoded image is never held on the Java heap as a whole. The stream is
+	 * read ahead in chunks, so its position after this call is undefined and
+	 * may lie beyond the end of the image. The stream is not closed.
+	 *
+	 * @param stream The BMP, JPEG, or PNG-encoded stream to read in as a Pix.
+	 * @return a Pix object
+	 * @throws IOException if reading from the stream fails
+	 */
+	public static Pix readStream(InputStream stream) throws IOException {
+		if (stream == null) {
+			Log.e(LOG_TAG, "Stream must be non-null");
+			return null;
+		}
+
+		final long nativePix = nativeReadStream(stream, new byte[STREAM_BUFFER_SIZE]);
+
+		if (nativePix == 0) {
+			Log.e(LOG_TAG, "Failed to read pix from stream");
+			return null;
+		}
+
+		return new Pix(nativePix);
+	}
+
+	/**
+	 * Creates a Pix object from an encoded image read from a file descriptor,
+	 * e.g. one opened by a content provider. Supported formats are BMP, JPEG,
+	 * and PNG.
+	 *
+	 * @param pfd The file descriptor to read from, starting at its current
+	 *            position. It is not closed.
+	 * @return a Pix object
+	 * @see #readFd(int)
+	 */
+	public static Pix readFd(ParcelFileDescriptor pfd) {
+		if (pfd == null) {
+			Log.e(LOG_TAG, "File descriptor must be non-null");
+			return null;
+		}
+
+		return readFd(pfd.getFd());
+	}
+
+	/**
+	 * Creates a Pix object from an encoded image read from a native file
+	 * descriptor. Supported formats are BMP, JPEG, and PNG.
+	 * <p>
+	 * The image is decoded while it is read, so the descriptor may also be a
+	 * pipe and the encoded image is never copied to the Java heap.
+	 *
+	 * @param fd The file descriptor to read from, starting at its current
+	 *           position. It is not closed.
+	 * @return a Pix object
+	 */
+	public static Pix readFd(int fd) {
+		if (fd < 0) {
+			Log.e(LOG_TAG, "Invalid file descriptor");
+			return null;
+		}
+
+		final long nativePix = nativeReadFd(fd);
+
+		if (nativePix == 0) {
+			Log.e(LOG_TAG, "Failed to read pix from file descriptor");
+			return null;
+		}
+
+		return new Pix(nativePix);
+	}
+
+	/**
+	 * Returns the largest JPEG reduction factor which keeps an image of the
+	 * given size at least as large as the minimum size. libjpeg rounds the
+	 * reduced size up.
+	 *
+	 * @param width     The width of the encoded image.
+	 * @param height    The height of the encoded image.
+	 * @param minWidth  The minimum width of the decoded image.
+	 * @param minHeight The minimum height of the decoded image.
+	 * @return the reduction factor: 1, 2, 4 or 8
+	 */
+	public static int getJpegReduction(int width, int height, int minWidth, int minHeight) {
+		int reduction = 1;
+		while (reduction < 8
+				&& (width + 2 * reduction - 1) / (2 * reduction) >= minWidth
+				&& (height + 2 * reduction - 1) / (2 * reduction) >= minHeight) {
+			reduction *= 2;
+		}
+		return reduction;
+	}
+
+	private static void checkJpegReduction(int reduction) {
+		if (reduction != 1 && reduction != 2 && reduction != 4 && reduction != 8)
+			throw new IllegalArgumentException("Reduction must be 1, 2, 4 or 8");
+	}
+
 	/**
 	 * Creates a Pix object from Bitmap data. Currently supports only
 	 * ARGB_8888-formatted bitmaps.
@@ -189,6 +504,164 @@ public class ReadFile {
 		return new Pix(nativePix);
 	}
 
+	/**
+	 * Creates an 8bpp grayscale Pix object from Bitmap data in a single pass.
+	 * Supports ARGB_8888, RGB_565 and ALPHA_8-formatted bitmaps.
+	 * <p>
+	 * Colors are converted with the same weights Tesseract uses for color
+	 * images, and alpha is ignored. ALPHA_8 bitmaps are treated as black ink
+	 * of the given coverage on a white background.
+	 *
+	 * @param bmp The Bitmap object to convert to a Pix.
+	 * @return an 8bpp Pix object
+	 */
+	public static Pix readBitmapGray(Bitmap bmp) {
+		if (bmp == null) {
+			Log.e(LOG_TAG, "Bitmap must be non-null");
+			return null;
+		}
+		if (bmp.getConfig() != Bitmap.Config.ARGB_8888
+				&& bmp.getConfig() != Bitmap.Config.RGB_565
+				&& bmp.getConfig() != Bitmap.Config.ALPHA_8) {
+			Log.e(LOG_TAG, "Bitmap config must be ARGB_8888, RGB_565 or ALPHA_8");
+			return null;
+		}
+
+		long nativePix = nativeReadBitmapGray(bmp);
+
+		if (nativePix == 0) {
+			Log.e(LOG_TAG, "Failed to read pix from bitmap");
+			return null;
+		}
+
+		return new Pix(nativePix);
+	}
+
+	/**
+	 * Creates a Pix object from a rectangle of Bitmap data. Only the pixels of
+	 * the rectangle are copied, so the size of the Pix and the cost of further
+	 * processing depend on the rectangle instead of the whole bitmap. Currently
+	 * supports only ARGB_8888-formatted bitmaps.
+	 *
+	 * @param bmp  The Bitmap object to convert to a Pix.
+	 * @param rect The rectangle of the bitmap to read, must be non-empty and
+	 *             lie within the bitmap.
+	 * @return a Pix object of the size of the rectangle
+	 */
+	public static Pix readBitmap(Bitmap bmp, Rect rect) {
+		if (bmp == null) {
+			Log.e(LOG_TAG, "Bitmap must be non-null");
+			return null;
+		}
+		if (bmp.getConfig() != Bitmap.Config.ARGB_8888) {
+			Log.e(LOG_TAG, "Bitmap config must be ARGB_8888");
+			return null;
+		}
+
+		return readBitmapRect(bmp, rect, false);
+	}
+
+	/**
+	 * Creates an 8bpp grayscale Pix object from a rectangle of Bitmap data.
+	 * Only the pixels of the rectangle are converted. Supports the same
+	 * bitmap formats as {@link #readBitmapGray(Bitmap)}.
+	 *
+	 * @param bmp  The Bitmap object to convert to a Pix.
+	 * @param rect The rectangle of the bitmap to read, must be non-empty and
+	 *             lie within the bitmap.
+	 * @return an 8bpp Pix object of the size of the rectangle
+	 */
+	public static Pix readBitmapGray(Bitmap bmp, Rect rect) {
+		if (bmp == null) {
+			Log.e(LOG_TAG, "Bitmap must be non-null");
+			return null;
+		}
+		if (bmp.getConfig() != Bitmap.Config.ARGB_8888
+				&& bmp.getConfig() != Bitmap.Config.RGB_565
+				&& bmp.getConfig() != Bitmap.Config.ALPHA_8) {
+			Log.e(LOG_TAG, "Bitmap config must be ARGB_8888, RGB_565 or ALPHA_8");
+			return null;
+		}
+
+		return readBitmapRect(bmp, rect, true);
+	}
+
+	private static Pix readBitmapRect(Bitmap bmp, Rect rect, boolean gray) {
+		if (rect == null)
+			throw new IllegalArgumentException("Rectangle must be non-null");
+		if (rect.isEmpty() || rect.left < 0 || rect.top < 0
+				|| rect.right > bmp.getWidth() || rect.bottom > bmp.getHeight())
+			throw new IllegalArgumentException("Rectangle must be non-empty and lie within the bitmap");
+
+		long nativePix = nativeReadBitmapRect(bmp, rect.left, rect.top, rect.width(),
+				rect.height(), gray);
+
+		if (nativePix == 0) {
+			Log.e(LOG_TAG, "Failed to read pix from bitmap");
+			return null;
+		}
+
+		return new Pix(nativePix);
+	}
+
+	/**
+	 * Replaces the pixels of a 32bpp Pix object with Bitmap data, e.g. to reuse
+	 * a Pix from a {@link PixPool} for every frame. Currently supports only
+	 * ARGB_8888-formatted bitmaps. Width and height must be identical to the
+	 * input Pix.
+	 *
+	 * @param pixs The Pix whose pixels will be replaced.
+	 * @param bmp  The Bitmap object to read.
+	 * @return <code>true</code> on success
+	 * @see #readBitmap(Bitmap)
+	 */
+	public static boolean replaceBitmap(Pix pixs, Bitmap bmp) {
+		if (pixs == null)
+			throw new IllegalArgumentException("Source pix must be non-null");
+		if (bmp == null)
+			throw new IllegalArgumentException("Bitmap must be non-null");
+		if (bmp.getConfig() != Bitmap.Config.ARGB_8888)
+			throw new IllegalArgumentException("Bitmap config must be ARGB_8888");
+		if (pixs.getWidth() != bmp.getWidth() || pixs.getHeight() != bmp.getHeight())
+			throw new IllegalArgumentException("Source pix dimensions do not match bitmap");
+
+		try {
+			return nativeReplaceBitmap(pixs.getNativePix(), bmp);
+		} finally {
+			NativeReclaimer.keepAlive(pixs);
+		}
+	}
+
+	/**
+	 * Replaces the pixels of an 8bpp Pix object with the grayscale conversion
+	 * of Bitmap data, e.g. to reuse a Pix from a {@link PixPool} for every
+	 * frame. Supports ARGB_8888, RGB_565 and ALPHA_8-formatted bitmaps. Width
+	 * and height must be identical to the input Pix.
+	 *
+	 * @param pixs The Pix whose pixels will be replaced.
+	 * @param bmp  The Bitmap object to read.
+	 * @return <code>true</code> on success
+	 * @see #readBitmapGray(Bitmap)
+	 */
+	public static boolean replaceBitmapGray(Pix pixs, Bitmap bmp) {
+		if (pixs == null)
+			throw new IllegalArgumentException("Source pix must be non-null");
+		if (bmp == null)
+			throw new IllegalArgumentException("Bitmap must be non-null");
+		if (bmp.getConfig() != Bitmap.Config.ARGB_8888
+				&& bmp.getConfig() != Bitmap.Config.RGB_565
+				&& bmp.getConfig() != Bitmap.Config.ALPHA_8)
+			throw new IllegalArgumentException("Bitmap config must be ARGB_8888, RGB_565 or ALPHA_8");
+		if (pixs.getWidth() != bmp.getWidth() || pixs.getHeight() != bmp.getHeight())
+			throw new IllegalArgumentException("Source pix dimensions do not match bitmap");
+
+		try {
+			return nativeReplaceBitmapGray(pixs.getNativePix(), bmp);
+		} finally {
+			NativeReclaimer.keepAlive(pixs);
+		}
+	}
+
 	// ***************
 	// * NATIVE CODE *
 	// ***************
@@ -199,7 +672,30 @@ public class ReadFile {
 
 	private static native boolean nativeReplaceBytes8(long nativePix, byte[] data, int w, int h);
 
+	private static native long nativeReadLumaPlane(ByteBuffer buffer, int offset, int w, int h,
+			int rowStride, int pixelStride);
+
+	private static native boolean nativeReplaceLumaPlane(long nativePix, ByteBuffer buffer,
+			int offset, int w, int h, int rowStride, int pixelStride);
+
 	private static native long nativeReadFile(String filename);
 
+	private static native long nativeReadJpeg(String filename, int reduction, boolean luminance);
+
+	private static native long nativeReadStream(InputStream stream, byte[] buffer);
+
+	private static native long nativeReadFd(int fd);
+
+	private static native long nativeReadMemJpeg(byte[] data, int reduction, boolean luminance);
+
 	private static native long nativeReadBitmap(Bitmap bitmap);
+
+	private static native long nativeReadBitmapGray(Bitmap bitmap);
+
+	private static native long nativeReadBitmapRect(Bitmap bitmap, int x, int y, int w, int h,
+													boolean gray);
+
+	private static native boolean nativeReplaceBitmap(long nativePix, Bitmap bitmap);
+
+	private static native boolean nativeReplaceBitmapGray(long nativePix, Bitmap bitmap);
 }
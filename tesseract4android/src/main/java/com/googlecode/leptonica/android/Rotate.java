@@ -92,6 +92,7 @@ public class Rotate {
 
 		long nativePix = nativeRotate(pixs.getNativePix(), degrees, quality,
 				resize);
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0)
 			return null;
@@ -113,6 +114,7 @@ public class Rotate {
 			throw new IllegalArgumentException("quads not in {0,1,2,3}");
 
 		long nativePix = nativeRotateOrth(pixs.getNativePix(), quads);
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0)
 			return null;
@@ -113,8 +113,12 @@ public class Scale {
 		if (scale <= 0.0f)
 			throw new IllegalArgumentException("Scaling factor must be positive");
 
-		return new Pix(nativeScaleGeneral(pixs.getNativePix(), scale, scale,
-				0f, 0));
+		try {
+			return new Pix(nativeScaleGeneral(pixs.getNativePix(), scale, scale,
+					0f, 0));
+		} finally {
+			NativeReclaimer.keepAlive(pixs);
+		}
 	}
 
 	/**
@@ -135,6 +139,7 @@ public class Scale {
 			throw new IllegalArgumentException("Y scaling factor must be positive");
 
 		long nativePix = nativeScale(pixs.getNativePix(), scaleX, scaleY);
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0)
 			throw new RuntimeException("Failed to natively scale pix");
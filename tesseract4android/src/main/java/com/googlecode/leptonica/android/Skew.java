@@ -98,8 +98,12 @@ public class Skew {
 		if (pixs == null)
 			throw new IllegalArgumentException("Source pix must be non-null");
 
-		return nativeFindSkew(pixs.getNativePix(), sweepRange, sweepDelta,
-				sweepReduction, searchReduction, searchMinDelta);
+		try {
+			return nativeFindSkew(pixs.getNativePix(), sweepRange, sweepDelta,
+					sweepReduction, searchReduction, searchMinDelta);
+		} finally {
+			NativeReclaimer.keepAlive(pixs);
+		}
 	}
 
 	/**
@@ -154,6 +158,7 @@ public class Skew {
 
 		long nativePix = nativeDeskew(pixs.getNativePix(), sweepReduction, sweepRange, sweepDelta,
 				searchReduction, threshold, result);
+		NativeReclaimer.keepAlive(pixs);
 
 		if (nativePix == 0)
 			throw new RuntimeException("Failed to deskew pix");
@@ -74,7 +74,11 @@ public class WriteFile {
 		if (data.length < size)
 			throw new IllegalArgumentException("Data array must be large enough to hold image bytes");
 
-		return nativeWriteBytes8(pixs.getNativePix(), data);
+		try {
+			return nativeWriteBytes8(pixs.getNativePix(), data);
+		} finally {
+			NativeReclaimer.keepAlive(pixs);
+		}
 	}
 
 	/**
@@ -100,8 +104,12 @@ public class WriteFile {
 		if (file == null)
 			throw new IllegalArgumentException("File must be non-null");
 
-		return nativeWriteImpliedFormat(pixs.getNativePix(),
-				file.getAbsolutePath(), quality, progressive);
+		try {
+			return nativeWriteImpliedFormat(pixs.getNativePix(),
+					file.getAbsolutePath(), quality, progressive);
+		} finally {
+			NativeReclaimer.keepAlive(pixs);
+		}
 	}
 
 	/**
@@ -137,7 +145,10 @@ public class WriteFile {
 			final Bitmap.Config config = Bitmap.Config.ARGB_8888;
 			final Bitmap bitmap = Bitmap.createBitmap(width, height, config);
 
-			if (nativeWriteBitmap(pixs.getNativePix(), bitmap)) {
+			boolean success = nativeWriteBitmap(pixs.getNativePix(), bitmap);
+			NativeReclaimer.keepAlive(pixs);
+
+			if (success) {
 				return bitmap;
 			}
 
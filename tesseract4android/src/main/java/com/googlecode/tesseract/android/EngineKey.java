@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Identifies the configuration a {@link TessBaseAPI} instance was initialized
+ * with. Two engines with equal keys are interchangeable.
+ */
+/* package */ final class EngineKey {
+	final String datapath;
+	final String language;
+	@TessBaseAPI.OcrEngineMode
+	final int ocrEngineMode;
+	final Map<String, String> config;
+
+	EngineKey(String datapath, String language, @TessBaseAPI.OcrEngineMode int ocrEngineMode) {
+		this(datapath, language, ocrEngineMode, Collections.<String, String>emptyMap());
+	}
+
+	EngineKey(String datapath, String language, @TessBaseAPI.OcrEngineMode int ocrEngineMode,
+			  Map<String, String> config) {
+		if (datapath == null)
+			throw new IllegalArgumentException("Data path must not be null!");
+		if (!datapath.endsWith(File.separator))
+			datapath += File.separator;
+
+		this.datapath = datapath;
+		this.language = language != null ? language : "";
+		this.ocrEngineMode = ocrEngineMode;
+		this.config = config == null || config.isEmpty()
+				? Collections.<String, String>emptyMap()
+				: Collections.unmodifiableMap(new TreeMap<>(config));
+	}
+
+	/**
+	 * Initializes the given engine with the configuration described by this key.
+	 *
+	 * @return <code>true</code> on success
+	 */
+	boolean init(TessBaseAPI api) {
+		return api.init(datapath, language, ocrEngineMode, config);
+	}
+
+	/**
+	 * Returns the total size of the traineddata files of the languages named
+	 * by this key, which is used as an estimate of the native memory taken by
+	 * an engine initialized with it. Missing files count as zero.
+	 *
+	 * @return the size of the language data in bytes
+	 */
+	long getModelSize() {
+		long size = 0;
+		for (String lang : language.split("\\+")) {
+			if (lang.startsWith("~"))
+				continue;
+			if (lang.isEmpty())
+				lang = "eng";
+			size += new File(datapath + "tessdata" + File.separator + lang + ".traineddata").length();
+		}
+		return size;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof EngineKey))
+			return false;
+
+		EngineKey other = (EngineKey) o;
+		return ocrEngineMode == other.ocrEngineMode
+				&& datapath.equals(other.datapath)
+				&& language.equals(other.language)
+				&& config.equals(other.config);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = datapath.hashCode();
+		result = 31 * result + language.hashCode();
+		result = 31 * result + ocrEngineMode;
+		result = 31 * result + config.hashCode();
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "EngineKey{" +
+				"datapath=" + datapath +
+				", language=" + language +
+				", ocrEngineMode=" + ocrEngineMode +
+				", config=" + config +
+				'}';
+	}
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+
+import androidx.annotation.WorkerThread;
+
+import com.googlecode.leptonica.android.ImageSignature;
+import com.googlecode.leptonica.android.Pix;
+
+/**
+ * Detects whether consecutive frames of a stream, e.g. screen captures, differ
+ * from the last recognized frame, so unchanged frames don't have to be
+ * recognized again.
+ * <p>
+ * Frames are compared by their {@link ImageSignature signatures}, the mean
+ * gray values of a grid of cells. A frame is unchanged when no cell differs
+ * from the last recognized frame by more than the tolerance. Frames are
+ * compared to the last recognized frame rather than the previous one, so slow
+ * changes accumulate until they are detected.
+ * <p>
+ * Small changes can go unnoticed: replacing a single word changes only a
+ * fraction of the pixels of its cells, which may not move their means by more
+ * than the tolerance. Use a finer grid or a lower tolerance if such changes
+ * must be detected.
+ */
+@SuppressWarnings("WeakerAccess")
+public class FrameChangeDetector {
+
+	/**
+	 * Default number of cells per row and column.
+	 */
+	public static final int DEFAULT_GRID_SIZE = 32;
+
+	private final int mGridSize;
+
+	private final int mTolerance;
+
+	private byte[] mReference;
+	private int mReferenceWidth;
+	private int mReferenceHeight;
+
+	private OcrResult mResult;
+
+	private long mSkippedCount;
+
+	/**
+	 * Constructs a detector with a grid of {@link #DEFAULT_GRID_SIZE} cells
+	 * per row and column.
+	 *
+	 * @param tolerance the largest difference of the mean gray value of a cell
+	 *                  (0..255) for a frame to be considered unchanged
+	 */
+	public FrameChangeDetector(int tolerance) {
+		this(DEFAULT_GRID_SIZE, tolerance);
+	}
+
+	/**
+	 * Constructs a detector.
+	 *
+	 * @param gridSize  the number of cells per row and column; finer grids
+	 *                  detect smaller changes
+	 * @param tolerance the largest difference of the mean gray value of a cell
+	 *                  (0..255) for a frame to be considered unchanged
+	 */
+	public FrameChangeDetector(int gridSize, int tolerance) {
+		if (gridSize <= 0)
+			throw new IllegalArgumentException("Grid size must be greater than 0");
+		if (tolerance < 0 || tolerance > 255)
+			throw new IllegalArgumentException("Tolerance must be between 0 and 255");
+
+		mGridSize = gridSize;
+		mTolerance = tolerance;
+	}
+
+	/**
+	 * Checks whether the frame differs from the last changed frame. If it does,
+	 * it becomes the new reference frame and the cached result is dropped.
+	 *
+	 * @param frame the frame to check
+	 * @return <code>true</code> if the frame changed
+	 */
+	public synchronized boolean hasChanged(Pix frame) {
+		boolean changed = check(frame);
+		if (!changed)
+			mSkippedCount++;
+
+		return changed;
+	}
+
+	/**
+	 * Checks whether the frame differs from the last changed frame. If it does,
+	 * it becomes the new reference frame and the cached result is dropped.
+	 *
+	 * @param frame the frame to check
+	 * @return <code>true</code> if the frame changed
+	 */
+	public synchronized boolean hasChanged(Bitmap frame) {
+		boolean changed = check(frame);
+		if (!changed)
+			mSkippedCount++;
+
+		return changed;
+	}
+
+	/**
+	 * Recognizes the frame, unless it is unchanged and a result of an earlier
+	 * frame is cached, in which case the cached result is returned.
+	 *
+	 * @param api   the engine to recognize changed frames with
+	 * @param frame the frame to recognize
+	 * @return the result of the frame
+	 */
+	@WorkerThread
+	public synchronized OcrResult recognize(TessBaseAPI api, Pix frame) {
+		if (!check(frame) && mResult != null) {
+			mSkippedCount++;
+			return mResult;
+		}
+
+		long start = SystemClock.elapsedRealtime();
+		api.setImage(frame);
+		return cache(api, start);
+	}
+
+	/**
+	 * Recognizes the frame, unless it is unchanged and a result of an earlier
+	 * frame is cached, in which case the cached result is returned.
+	 *
+	 * @param api   the engine to recognize changed frames with
+	 * @param frame the frame to recognize
+	 * @return the result of the frame
+	 */
+	@WorkerThread
+	public synchronized OcrResult recognize(TessBaseAPI api, Bitmap frame) {
+		if (!check(frame) && mResult != null) {
+			mSkippedCount++;
+			return mResult;
+		}
+
+		long start = SystemClock.elapsedRealtime();
+		api.setImage(frame);
+		return cache(api, start);
+	}
+
+	/**
+	 * @return the result cached for the current reference frame, or
+	 * <code>null</code> if there is none
+	 */
+	public synchronized OcrResult getCachedResult() {
+		return mResult;
+	}
+
+	/**
+	 * Caches the result of the current reference frame, e.g. when it was
+	 * recognized by {@link TessBaseAPI#recognizeAsync}.
+	 *
+	 * @param result the result of the frame last reported as changed
+	 */
+	public synchronized void setCachedResult(OcrResult result) {
+		mResult = result;
+	}
+
+	/**
+	 * @return the number of frames which were skipped, i.e. reported as
+	 * unchanged by {@link #hasChanged} or answered from the cached result by
+	 * {@link #recognize}
+	 */
+	public synchronized long getSkippedCount() {
+		return mSkippedCount;
+	}
+
+	/**
+	 * Forgets the reference frame and the cached result, so the next frame is
+	 * reported as changed.
+	 */
+	public synchronized void reset() {
+		mReference = null;
+		mResult = null;
+	}
+
+	private int gridWidth(int width) {
+		return Math.min(mGridSize, width);
+	}
+
+	private int gridHeight(int height) {
+		return Math.min(mGridSize, height);
+	}
+
+	private boolean check(Pix frame) {
+		if (frame == null)
+			throw new IllegalArgumentException("Frame must not be null");
+
+		int width = frame.getWidth();
+		int height = frame.getHeight();
+		return update(ImageSignature.compute(frame, gridWidth(width), gridHeight(height)),
+				width, height);
+	}
+
+	private boolean check(Bitmap frame) {
+		if (frame == null)
+			throw new IllegalArgumentException("Frame must not be null");
+
+		int width = frame.getWidth();
+		int height = frame.getHeight();
+		return update(ImageSignature.compute(frame, gridWidth(width), gridHeight(height)),
+				width, height);
+	}
+
+	private boolean update(byte[] signature, int width, int height) {
+		if (mReference != null && width == mReferenceWidth && height == mReferenceHeight
+				&& ImageSignature.maxDifference(mReference, signature) <= mTolerance)
+			return false;
+
+		mReference = signature;
+		mReferenceWidth = width;
+		mReferenceHeight = height;
+		mResult = null;
+		return true;
+	}
+
+	private OcrResult cache(TessBaseAPI api, long start) {
+		String text = api.getUTF8Text();
+		mResult = new OcrResult(text != null ? text.trim() : "", api.meanConfidence(),
+				SystemClock.elapsedRealtime() - start, false);
+		return mResult;
+	}
+}
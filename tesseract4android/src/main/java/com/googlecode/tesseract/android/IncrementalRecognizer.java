@@ -0,0 +1,384 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import com.googlecode.leptonica.android.ImageSignature;
+import com.googlecode.leptonica.android.Pix;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Recognizes a stream of frames, e.g. screen captures, by re-recognizing only
+ * the regions which changed since they were last recognized.
+ * <p>
+ * Frames are divided into a grid of cells which are compared by their mean
+ * gray values, as in {@link FrameChangeDetector}. Changed cells are grouped
+ * into regions, which are extended to whole words recognized before, and only
+ * those regions are analyzed and recognized using
+ * {@link TessBaseAPI#setRectangle(Rect)}. The recognized words replace the
+ * words of the regions in a cached page model. When most of the frame
+ * changed, the whole frame is recognized instead.
+ * <p>
+ * The recognizer uses the given engine for all frames and is not thread-safe,
+ * just like the engine. The engine must not be used otherwise meanwhile.
+ */
+@SuppressWarnings("WeakerAccess")
+public class IncrementalRecognizer {
+
+	/**
+	 * Fraction of the frame above which the whole frame is recognized.
+	 */
+	private static final float FULL_FRAME_RATIO = 0.5f;
+
+	private static final Comparator<OcrWord> TOP_TO_BOTTOM = new Comparator<OcrWord>() {
+		@Override
+		public int compare(OcrWord a, OcrWord b) {
+			Rect ra = a.getBoundingRect();
+			Rect rb = b.getBoundingRect();
+			if (ra.top != rb.top)
+				return ra.top < rb.top ? -1 : 1;
+			return ra.left < rb.left ? -1 : (ra.left == rb.left ? 0 : 1);
+		}
+	};
+
+	private static final Comparator<OcrWord> LEFT_TO_RIGHT = new Comparator<OcrWord>() {
+		@Override
+		public int compare(OcrWord a, OcrWord b) {
+			int la = a.getBoundingRect().left;
+			int lb = b.getBoundingRect().left;
+			return la < lb ? -1 : (la == lb ? 0 : 1);
+		}
+	};
+
+	private final TessBaseAPI mApi;
+
+	private final int mGridSize;
+
+	private final int mTolerance;
+
+	private byte[] mReference;
+	private int mWidth;
+	private int mHeight;
+	private int mGridWidth;
+	private int mGridHeight;
+
+	private final List<OcrWord> mWords = new ArrayList<>();
+
+	private final List<Rect> mLastRegions = new ArrayList<>();
+
+	/**
+	 * Constructs a recognizer.
+	 *
+	 * @param api       an initialized engine to recognize the frames with
+	 * @param gridSize  the number of cells per row and column; finer grids
+	 *                  result in smaller regions
+	 * @param tolerance the largest difference of the mean gray value of a cell
+	 *                  (0..255) for it to be considered unchanged
+	 */
+	public IncrementalRecognizer(TessBaseAPI api, int gridSize, int tolerance) {
+		if (api == null)
+			throw new IllegalArgumentException("Engine must not be null");
+		if (gridSize <= 0)
+			throw new IllegalArgumentException("Grid size must be greater than 0");
+		if (tolerance < 0 || tolerance > 255)
+			throw new IllegalArgumentException("Tolerance must be between 0 and 255");
+
+		mApi = api;
+		mGridSize = gridSize;
+		mTolerance = tolerance;
+	}
+
+	/**
+	 * Recognizes the changed regions of the frame.
+	 *
+	 * @param frame the frame to recognize
+	 * @return the words of the whole frame in reading order
+	 */
+	@WorkerThread
+	@NonNull
+	public List<OcrWord> recognize(Pix frame) {
+		if (frame == null)
+			throw new IllegalArgumentException("Frame must not be null");
+
+		int width = frame.getWidth();
+		int height = frame.getHeight();
+		prepare(width, height);
+
+		List<Rect> regions = findChangedRegions(ImageSignature.compute(frame, mGridWidth,
+				mGridHeight));
+		if (!regions.isEmpty()) {
+			mApi.setImage(frame);
+			recognizeRegions(regions);
+		}
+
+		return getWords();
+	}
+
+	/**
+	 * Recognizes the changed regions of the frame.
+	 *
+	 * @param frame the frame to recognize
+	 * @return the words of the whole frame in reading order
+	 */
+	@WorkerThread
+	@NonNull
+	public List<OcrWord> recognize(Bitmap frame) {
+		if (frame == null)
+			throw new IllegalArgumentException("Frame must not be null");
+
+		int width = frame.getWidth();
+		int height = frame.getHeight();
+		prepare(width, height);
+
+		List<Rect> regions = findChangedRegions(ImageSignature.compute(frame, mGridWidth,
+				mGridHeight));
+		if (!regions.isEmpty()) {
+			mApi.setImage(frame);
+			recognizeRegions(regions);
+		}
+
+		return getWords();
+	}
+
+	/**
+	 * @return the words of the last frame in reading order
+	 */
+	@NonNull
+	public List<OcrWord> getWords() {
+		return Collections.unmodifiableList(new ArrayList<>(mWords));
+	}
+
+	/**
+	 * @return the regions recognized for the last frame; empty if the frame
+	 * was unchanged
+	 */
+	@NonNull
+	public List<Rect> getLastRegions() {
+		List<Rect> regions = new ArrayList<>(mLastRegions.size());
+		for (Rect region : mLastRegions) {
+			regions.add(new Rect(region));
+		}
+		return regions;
+	}
+
+	/**
+	 * Forgets the previous frame and its words, so the next frame is
+	 * recognized as a whole.
+	 */
+	public void reset() {
+		mReference = null;
+		mWords.clear();
+		mLastRegions.clear();
+	}
+
+	private void prepare(int width, int height) {
+		if (mReference != null && (width != mWidth || height != mHeight))
+			reset();
+
+		mWidth = width;
+		mHeight = height;
+		mGridWidth = Math.min(mGridSize, width);
+		mGridHeight = Math.min(mGridSize, height);
+	}
+
+	/**
+	 * Compares the signature with the cells as they were last recognized and
+	 * groups changed cells into regions. Consecutive rows of cells with
+	 * changes form a region spanning their changed columns, grown by one cell
+	 * to catch text which barely reaches into neighboring cells.
+	 */
+	private List<Rect> findChangedRegions(byte[] signature) {
+		byte[] reference = mReference;
+		mLastRegions.clear();
+
+		if (reference == null) {
+			mReference = signature;
+			mLastRegions.add(new Rect(0, 0, mWidth, mHeight));
+			return mLastRegions;
+		}
+
+		List<Rect> regions = new ArrayList<>();
+		int top = -1;
+		int left = mGridWidth;
+		int right = -1;
+
+		for (int cy = 0; cy <= mGridHeight; cy++) {
+			int rowLeft = mGridWidth;
+			int rowRight = -1;
+			for (int cx = 0; cy < mGridHeight && cx < mGridWidth; cx++) {
+				int i = cy * mGridWidth + cx;
+				if (Math.abs((signature[i] & 0xFF) - (reference[i] & 0xFF)) > mTolerance) {
+					rowLeft = Math.min(rowLeft, cx);
+					rowRight = cx;
+				}
+			}
+
+			if (rowRight >= 0) {
+				if (top < 0)
+					top = cy;
+				left = Math.min(left, rowLeft);
+				right = Math.max(right, rowRight);
+			} else if (top >= 0) {
+				regions.add(new Rect(cellX(Math.max(left - 1, 0)), cellY(Math.max(top - 1, 0)),
+						cellX(Math.min(right + 2, mGridWidth)), cellY(Math.min(cy + 1, mGridHeight))));
+				top = -1;
+				left = mGridWidth;
+				right = -1;
+			}
+		}
+
+		growToWords(regions);
+
+		long area = 0;
+		for (Rect region : regions) {
+			area += (long) region.width() * region.height();
+		}
+		if (area > FULL_FRAME_RATIO * mWidth * mHeight) {
+			regions.clear();
+			regions.add(new Rect(0, 0, mWidth, mHeight));
+		}
+
+		updateReference(signature, regions);
+
+		mLastRegions.addAll(regions);
+		return mLastRegions;
+	}
+
+	/**
+	 * Takes over the signature of the cells which lie within the regions about
+	 * to be recognized. The other cells keep the signature they were last
+	 * recognized with, so slow changes accumulate until they are detected.
+	 */
+	private void updateReference(byte[] signature, List<Rect> regions) {
+		for (int cy = 0; cy < mGridHeight; cy++) {
+			for (int cx = 0; cx < mGridWidth; cx++) {
+				int left = cellX(cx);
+				int top = cellY(cy);
+				int right = cellX(cx + 1);
+				int bottom = cellY(cy + 1);
+				for (Rect region : regions) {
+					if (region.contains(left, top, right, bottom)) {
+						int i = cy * mGridWidth + cx;
+						mReference[i] = signature[i];
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Grows the regions until they don't cut through cached words, merging
+	 * regions which overlap.
+	 */
+	private void growToWords(List<Rect> regions) {
+		boolean grown = true;
+		while (grown) {
+			grown = false;
+
+			for (Rect region : regions) {
+				for (OcrWord word : mWords) {
+					Rect box = word.getBoundingRect();
+					if (Rect.intersects(region, box) && !region.contains(box)) {
+						region.union(box);
+						grown = true;
+					}
+				}
+			}
+
+			for (int i = 0; i < regions.size(); i++) {
+				for (int j = regions.size() - 1; j > i; j--) {
+					if (Rect.intersects(regions.get(i), regions.get(j))) {
+						regions.get(i).union(regions.remove(j));
+						grown = true;
+					}
+				}
+			}
+		}
+	}
+
+	private void recognizeRegions(List<Rect> regions) {
+		for (Rect region : regions) {
+			Iterator<OcrWord> it = mWords.iterator();
+			while (it.hasNext()) {
+				if (it.next().intersects(region))
+					it.remove();
+			}
+
+			mApi.setRectangle(region);
+			mWords.addAll(mApi.getRecognizedWords());
+		}
+
+		sortInReadingOrder(mWords);
+	}
+
+	/**
+	 * Sorts the words into lines from top to bottom and each line from left to
+	 * right. Words whose rectangles overlap the rectangles of a line vertically
+	 * belong to that line.
+	 */
+	private static void sortInReadingOrder(List<OcrWord> words) {
+		Collections.sort(words, TOP_TO_BOTTOM);
+
+		List<List<OcrWord>> lines = new ArrayList<>();
+		List<OcrWord> line = null;
+		int lineBottom = 0;
+		for (OcrWord word : words) {
+			Rect box = word.getBoundingRect();
+			if (line == null || box.top >= lineBottom) {
+				line = new ArrayList<>();
+				lines.add(line);
+				lineBottom = box.bottom;
+			} else {
+				lineBottom = Math.max(lineBottom, box.bottom);
+			}
+			line.add(word);
+		}
+
+		words.clear();
+		for (List<OcrWord> lineWords : lines) {
+			Collections.sort(lineWords, LEFT_TO_RIGHT);
+			words.addAll(lineWords);
+		}
+	}
+
+	/**
+	 * @return the left edge of the cell column, the way signatures assign
+	 * pixels to cells
+	 */
+	private int cellX(int cx) {
+		return (int) (((long) cx * mWidth + mGridWidth - 1) / mGridWidth);
+	}
+
+	/**
+	 * @return the top edge of the cell row, the way signatures assign pixels
+	 * to cells
+	 */
+	private int cellY(int cy) {
+		return (int) (((long) cy * mHeight + mGridHeight - 1) / mGridHeight);
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import androidx.annotation.NonNull;
+
+import java.nio.charset.Charset;
+
+/**
+ * Results of several recognitions performed in a single call, stored in packed
+ * arrays.
+ * <p>
+ * The texts of all items are concatenated into one UTF-8 byte array. The text
+ * of item <code>i</code> spans the bytes from <code>offsets[i]</code> to
+ * <code>offsets[i + 1]</code>, so no String is created until a text is
+ * requested.
+ *
+ * @see TessBaseAPI#recognizeRegions(com.googlecode.leptonica.android.Pix, int[])
+ * @see TessBaseAPI#recognizeBatch(com.googlecode.leptonica.android.Pix[])
+ */
+@SuppressWarnings("WeakerAccess")
+public final class OcrBatchResult {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	@NonNull
+	private final byte[] mText;
+
+	@NonNull
+	private final int[] mOffsets;
+
+	@NonNull
+	private final int[] mConfidences;
+
+	OcrBatchResult(@NonNull byte[] text, @NonNull int[] offsets, @NonNull int[] confidences) {
+		mText = text;
+		mOffsets = offsets;
+		mConfidences = confidences;
+	}
+
+	/**
+	 * @return the number of recognized items
+	 */
+	public int getCount() {
+		return mConfidences.length;
+	}
+
+	/**
+	 * Decodes the text of a single item.
+	 *
+	 * @param index the index of the item
+	 * @return the trimmed text of the item
+	 */
+	@NonNull
+	public String getText(int index) {
+		int start = mOffsets[index];
+		return new String(mText, start, mOffsets[index + 1] - start, UTF_8);
+	}
+
+	/**
+	 * @param index the index of the item
+	 * @return the mean confidence of the text of the item (0..100)
+	 */
+	public int getMeanConfidence(int index) {
+		return mConfidences[index];
+	}
+
+	/**
+	 * Returns the packed UTF-8 text of all items. The array is not copied and
+	 * must not be modified.
+	 *
+	 * @return the concatenated texts
+	 */
+	@NonNull
+	public byte[] getPackedText() {
+		return mText;
+	}
+
+	/**
+	 * Returns the offsets of the texts in {@link #getPackedText()}, one more
+	 * than the number of items. The array is not copied and must not be
+	 * modified.
+	 *
+	 * @return the offsets of the texts
+	 */
+	@NonNull
+	public int[] getOffsets() {
+		return mOffsets;
+	}
+
+	/**
+	 * Returns the mean confidences of all items. The array is not copied and
+	 * must not be modified.
+	 *
+	 * @return the mean confidences (0..100)
+	 */
+	@NonNull
+	public int[] getMeanConfidences() {
+		return mConfidences;
+	}
+}
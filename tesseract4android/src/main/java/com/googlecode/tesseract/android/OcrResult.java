@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Immutable result of a single recognition.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class OcrResult {
+	@NonNull
+	private final String mText;
+
+	private final int mMeanConfidence;
+
+	private final long mElapsedMillis;
+
+	private final boolean mTimedOut;
+
+	OcrResult(@NonNull String text, int meanConfidence, long elapsedMillis, boolean timedOut) {
+		mText = text;
+		mMeanConfidence = meanConfidence;
+		mElapsedMillis = elapsedMillis;
+		mTimedOut = timedOut;
+	}
+
+	/**
+	 * @return the recognized text as UTF-8
+	 */
+	@NonNull
+	public String getText() {
+		return mText;
+	}
+
+	/**
+	 * @return the mean confidence of the recognized text (0..100)
+	 */
+	public int getMeanConfidence() {
+		return mMeanConfidence;
+	}
+
+	/**
+	 * @return the time the recognition took, in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return mElapsedMillis;
+	}
+
+	/**
+	 * @return <code>true</code> if the recognition gave up at its deadline, so
+	 * the text contains only the words recognized until then
+	 */
+	public boolean isTimedOut() {
+		return mTimedOut;
+	}
+
+	@Override
+	public String toString() {
+		return "OcrResult{" +
+				"text=" + mText +
+				", meanConfidence=" + mMeanConfidence +
+				", elapsedMillis=" + mElapsedMillis +
+				", timedOut=" + mTimedOut +
+				'}';
+	}
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import android.graphics.Rect;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cache of recognition results keyed by the content of the image and the
+ * configuration of the engine, so recognizing the same image again returns
+ * right away.
+ * <p>
+ * Results are kept in a memory tier of recently used results and, optionally,
+ * in a disk tier which survives restarts of the application. The disk tier is
+ * trimmed to its size limit by removing the least recently used files.
+ * <p>
+ * A cache is used by setting it on an engine with
+ * {@link TessBaseAPI#setResultCache(OcrResultCache)}; it may be shared by
+ * several engines.
+ */
+@SuppressWarnings("WeakerAccess")
+public class OcrResultCache {
+	private static final String TAG = OcrResultCache.class.getSimpleName();
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final String FILE_SUFFIX = ".ocr";
+
+	/**
+	 * Version of the disk format, files of other versions are ignored.
+	 */
+	private static final int DISK_FORMAT_VERSION = 1;
+
+	/**
+	 * Cached result of a recognition.
+	 */
+	public static final class Entry {
+		@NonNull
+		private final String mText;
+
+		private final int mMeanConfidence;
+
+		@NonNull
+		private final List<OcrWord> mWords;
+
+		Entry(@NonNull String text, int meanConfidence, @NonNull List<OcrWord> words) {
+			mText = text;
+			mMeanConfidence = meanConfidence;
+			mWords = Collections.unmodifiableList(new ArrayList<>(words));
+		}
+
+		/**
+		 * @return the recognized text
+		 */
+		@NonNull
+		public String getText() {
+			return mText;
+		}
+
+		/**
+		 * @return the mean confidence of the recognized text (0..100)
+		 */
+		public int getMeanConfidence() {
+			return mMeanConfidence;
+		}
+
+		/**
+		 * @return the recognized words in reading order
+		 */
+		@NonNull
+		public List<OcrWord> getWords() {
+			return mWords;
+		}
+	}
+
+	private final LruCache<String, Entry> mMemory;
+
+	@Nullable
+	private final File mDirectory;
+
+	private final long mMaxDiskBytes;
+
+	private final Object mDiskLock = new Object();
+
+	private long mHitCount;
+	private long mMissCount;
+
+	/**
+	 * Constructs a cache keeping results in memory only.
+	 *
+	 * @param maxEntries maximum number of results kept in memory
+	 */
+	public OcrResultCache(int maxEntries) {
+		this(maxEntries, null, 0);
+	}
+
+	/**
+	 * Constructs a cache keeping results in memory and on disk.
+	 *
+	 * @param maxEntries   maximum number of results kept in memory
+	 * @param directory    directory for the disk tier, e.g. in the cache
+	 *                     directory of the application, or <code>null</code>
+	 *                     to keep results in memory only
+	 * @param maxDiskBytes maximum size of the disk tier, in bytes
+	 */
+	public OcrResultCache(int maxEntries, @Nullable File directory, long maxDiskBytes) {
+		if (maxEntries <= 0)
+			throw new IllegalArgumentException("Cache size must be greater than 0");
+		if (directory != null && maxDiskBytes <= 0)
+			throw new IllegalArgumentException("Disk size must be greater than 0");
+
+		mMemory = new LruCache<>(maxEntries);
+		mDirectory = directory;
+		mMaxDiskBytes = maxDiskBytes;
+	}
+
+	/**
+	 * Looks up a result, first in memory and then on disk.
+	 *
+	 * @param key the key of the result
+	 * @return the result, or <code>null</code> if it is not cached
+	 */
+	@Nullable
+	public Entry get(String key) {
+		Entry entry = mMemory.get(key);
+
+		if (entry == null && mDirectory != null) {
+			entry = readFromDisk(key);
+			if (entry != null)
+				mMemory.put(key, entry);
+		}
+
+		synchronized (this) {
+			if (entry != null)
+				mHitCount++;
+			else
+				mMissCount++;
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Stores a result in memory and on disk.
+	 *
+	 * @param key   the key of the result
+	 * @param entry the result
+	 */
+	public void put(String key, Entry entry) {
+		if (key == null || entry == null)
+			throw new IllegalArgumentException("Key and entry must not be null");
+
+		mMemory.put(key, entry);
+
+		if (mDirectory != null)
+			writeToDisk(key, entry);
+	}
+
+	/**
+	 * Removes all results from memory. The disk tier is kept.
+	 */
+	public void evictAll() {
+		mMemory.evictAll();
+	}
+
+	/**
+	 * Removes all results from memory and disk.
+	 */
+	public void clear() {
+		mMemory.evictAll();
+
+		if (mDirectory != null) {
+			synchronized (mDiskLock) {
+				for (File file : listFiles()) {
+					//noinspection ResultOfMethodCallIgnored
+					file.delete();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the number of lookups which found a result
+	 */
+	public synchronized long getHitCount() {
+		return mHitCount;
+	}
+
+	/**
+	 * @return the number of lookups which didn't find a result
+	 */
+	public synchronized long getMissCount() {
+		return mMissCount;
+	}
+
+	@Nullable
+	private Entry readFromDisk(String key) {
+		synchronized (mDiskLock) {
+			File file = getFile(key);
+			if (!file.exists())
+				return null;
+
+			DataInputStream in = null;
+			try {
+				in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+				// The key is stored as well, file names are only hashes of it
+				if (in.readInt() != DISK_FORMAT_VERSION || !key.equals(readString(in)))
+					return null;
+
+				String text = readString(in);
+				int meanConfidence = in.readInt();
+				int count = in.readInt();
+				if (count < 0)
+					throw new IOException("Invalid word count");
+				List<OcrWord> words = new ArrayList<>(count);
+				for (int i = 0; i < count; i++) {
+					String wordText = readString(in);
+					float confidence = in.readFloat();
+					Rect rect = new Rect(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+					words.add(new OcrWord(wordText, confidence, rect));
+				}
+
+				// Most recently used files are kept when trimming
+				//noinspection ResultOfMethodCallIgnored
+				file.setLastModified(System.currentTimeMillis());
+
+				return new Entry(text, meanConfidence, words);
+			} catch (IOException e) {
+				Log.w(TAG, "Failed to read cached result", e);
+				//noinspection ResultOfMethodCallIgnored
+				file.delete();
+				return null;
+			} finally {
+				closeQuietly(in);
+			}
+		}
+	}
+
+	private void writeToDisk(String key, Entry entry) {
+		synchronized (mDiskLock) {
+			//noinspection ConstantConditions
+			if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+				Log.w(TAG, "Failed to create cache directory");
+				return;
+			}
+
+			File file = getFile(key);
+			File temp = new File(file.getPath() + ".tmp");
+
+			DataOutputStream out = null;
+			try {
+				out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+
+				out.writeInt(DISK_FORMAT_VERSION);
+				writeString(out, key);
+				writeString(out, entry.getText());
+				out.writeInt(entry.getMeanConfidence());
+				out.writeInt(entry.getWords().size());
+				for (OcrWord word : entry.getWords()) {
+					Rect rect = word.getBoundingRect();
+					writeString(out, word.getText());
+					out.writeFloat(word.getConfidence());
+					out.writeInt(rect.left);
+					out.writeInt(rect.top);
+					out.writeInt(rect.right);
+					out.writeInt(rect.bottom);
+				}
+				out.close();
+				out = null;
+			} catch (IOException e) {
+				Log.w(TAG, "Failed to write cached result", e);
+				closeQuietly(out);
+				//noinspection ResultOfMethodCallIgnored
+				temp.delete();
+				return;
+			}
+
+			// Readers never see partially written files
+			if (!temp.renameTo(file)) {
+				//noinspection ResultOfMethodCallIgnored
+				temp.delete();
+				return;
+			}
+
+			trimDisk();
+		}
+	}
+
+	/**
+	 * Removes the least recently used files until the disk tier is within its
+	 * size limit. Must be called while holding the disk lock.
+	 */
+	private void trimDisk() {
+		File[] files = listFiles();
+
+		long size = 0;
+		for (File file : files) {
+			size += file.length();
+		}
+		if (size <= mMaxDiskBytes)
+			return;
+
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) {
+				long la = a.lastModified();
+				long lb = b.lastModified();
+				return la < lb ? -1 : (la == lb ? 0 : 1);
+			}
+		});
+
+		for (int i = 0; i < files.length && size > mMaxDiskBytes; i++) {
+			long length = files[i].length();
+			if (files[i].delete())
+				size -= length;
+		}
+	}
+
+	@NonNull
+	private File[] listFiles() {
+		//noinspection ConstantConditions
+		File[] files = mDirectory.listFiles();
+		if (files == null)
+			return new File[0];
+
+		List<File> results = new ArrayList<>(files.length);
+		for (File file : files) {
+			if (file.getName().endsWith(FILE_SUFFIX))
+				results.add(file);
+		}
+		return results.toArray(new File[0]);
+	}
+
+	private File getFile(String key) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-1").digest(key.getBytes(UTF_8));
+			StringBuilder name = new StringBuilder(hash.length * 2 + FILE_SUFFIX.length());
+			for (byte b : hash) {
+				name.append(Character.forDigit((b >> 4) & 0xF, 16));
+				name.append(Character.forDigit(b & 0xF, 16));
+			}
+			return new File(mDirectory, name.append(FILE_SUFFIX).toString());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// Nothing left to do
+			}
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0)
+			throw new IOException("Invalid string length");
+
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		// Unlike writeUTF, not limited to 64 KiB
+		byte[] bytes = value.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+
+import com.googlecode.tesseract.android.TessBaseAPI.PageIteratorLevel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Reader of recognition results in the binary format written by
+ * {@link TessBaseAPI#writeResults(ByteBuffer, int)}. The results are read in
+ * place from the buffer, no objects are created except by the methods
+ * returning text or rectangles.
+ * <p>
+ * The format starts with a header of six little-endian ints: the magic
+ * number, the format version, the size of the header, the size of an element
+ * record, the number of elements and the size of the text. It is followed by
+ * one record per element and the UTF-8 text of the page. Each record consists
+ * of the level, the index of the parent, the index after the last descendant,
+ * the left, top, right and bottom edges of the bounding box, the confidence as
+ * a float, and the offset and length of the text of the element.
+ * <p>
+ * Elements are stored in pre-order, so the descendants of element
+ * <code>i</code> are the elements from <code>i + 1</code> to
+ * <code>getEnd(i)</code>. The text of an element is the slice of the page
+ * text it covers, words are separated by spaces and lines by line breaks.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class OcrResultReader {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * Magic number at the start of the results, "TOCR" in little-endian.
+	 */
+	public static final int MAGIC = 0x52434F54;
+
+	/**
+	 * Version of the format this reader understands.
+	 */
+	public static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 24;
+	private static final int RECORD_SIZE = 40;
+
+	private static final int FIELD_LEVEL = 0;
+	private static final int FIELD_PARENT = 4;
+	private static final int FIELD_END = 8;
+	private static final int FIELD_LEFT = 12;
+	private static final int FIELD_TOP = 16;
+	private static final int FIELD_RIGHT = 20;
+	private static final int FIELD_BOTTOM = 24;
+	private static final int FIELD_CONFIDENCE = 28;
+	private static final int FIELD_TEXT_OFFSET = 32;
+	private static final int FIELD_TEXT_LENGTH = 36;
+
+	@NonNull
+	private final ByteBuffer mBuffer;
+
+	private final int mRecordsOffset;
+	private final int mRecordSize;
+	private final int mCount;
+	private final int mTextOffset;
+	private final int mTextSize;
+
+	/**
+	 * Constructs a reader of the results starting at the position of the
+	 * buffer. The buffer is not copied and its position is not changed.
+	 *
+	 * @param buffer the buffer holding the results
+	 * @throws IllegalArgumentException if the buffer doesn't hold valid
+	 *                                  results
+	 */
+	public OcrResultReader(@NonNull ByteBuffer buffer) {
+		mBuffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+		if (mBuffer.remaining() < HEADER_SIZE || mBuffer.getInt(0) != MAGIC)
+			throw new IllegalArgumentException("Not a recognition result");
+		if (mBuffer.getInt(4) != VERSION)
+			throw new IllegalArgumentException("Unsupported version " + mBuffer.getInt(4));
+
+		mRecordsOffset = mBuffer.getInt(8);
+		mRecordSize = mBuffer.getInt(12);
+		mCount = mBuffer.getInt(16);
+		mTextSize = mBuffer.getInt(20);
+		mTextOffset = mRecordsOffset + mCount * mRecordSize;
+
+		if (mRecordsOffset < HEADER_SIZE || mRecordSize < RECORD_SIZE || mCount < 0
+				|| mTextSize < 0
+				|| (long) mRecordsOffset + (long) mCount * mRecordSize + mTextSize > mBuffer.remaining())
+			throw new IllegalArgumentException("Truncated recognition result");
+	}
+
+	/**
+	 * Maps a file written by {@link TessBaseAPI#writeResults(File, int)} into
+	 * memory and constructs a reader of it.
+	 *
+	 * @param file the file holding the results
+	 * @return the reader
+	 * @throws IOException if the file can't be read
+	 */
+	@NonNull
+	public static OcrResultReader map(@NonNull File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			// The mapping stays valid after the file is closed
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new OcrResultReader(buffer);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * @return the size of the results in bytes
+	 */
+	public int getSize() {
+		return mTextOffset + mTextSize;
+	}
+
+	/**
+	 * @return the number of elements
+	 */
+	public int getCount() {
+		return mCount;
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the page iterator level of the element
+	 */
+	@PageIteratorLevel.Level
+	public int getLevel(int index) {
+		return getField(index, FIELD_LEVEL);
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the index of the parent element, or -1 for blocks
+	 */
+	public int getParent(int index) {
+		return getField(index, FIELD_PARENT);
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the index after the last descendant of the element, i.e. the
+	 * index of its next sibling if there is one
+	 */
+	public int getEnd(int index) {
+		return getField(index, FIELD_END);
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the left edge of the bounding box of the element
+	 */
+	public int getLeft(int index) {
+		return getField(index, FIELD_LEFT);
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the top edge of the bounding box of the element
+	 */
+	public int getTop(int index) {
+		return getField(index, FIELD_TOP);
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the right edge of the bounding box of the element
+	 */
+	public int getRight(int index) {
+		return getField(index, FIELD_RIGHT);
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the bottom edge of the bounding box of the element
+	 */
+	public int getBottom(int index) {
+		return getField(index, FIELD_BOTTOM);
+	}
+
+	/**
+	 * Sets the bounding box of an element to a rectangle, so the rectangle
+	 * can be reused for all elements.
+	 *
+	 * @param index the index of the element
+	 * @param rect  the rectangle to be set
+	 */
+	public void getBoundingRect(int index, @NonNull Rect rect) {
+		rect.set(getLeft(index), getTop(index), getRight(index), getBottom(index));
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the confidence of the element (0..100)
+	 */
+	public float getConfidence(int index) {
+		return mBuffer.getFloat(getRecordOffset(index) + FIELD_CONFIDENCE);
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the offset of the text of the element in
+	 * {@link #getTextBuffer()}
+	 */
+	public int getTextOffset(int index) {
+		return getField(index, FIELD_TEXT_OFFSET);
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the length of the UTF-8 text of the element in bytes
+	 */
+	public int getTextLength(int index) {
+		return getField(index, FIELD_TEXT_LENGTH);
+	}
+
+	/**
+	 * Decodes the text of a single element.
+	 *
+	 * @param index the index of the element
+	 * @return the text of the element
+	 */
+	@NonNull
+	public String getText(int index) {
+		byte[] bytes = new byte[getTextLength(index)];
+		ByteBuffer text = getTextBuffer();
+		text.position(getTextOffset(index));
+		text.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	/**
+	 * Returns a read-only view of the UTF-8 text of the page, which the text
+	 * offsets of the elements refer to. The text is not copied.
+	 *
+	 * @return the text of the page
+	 */
+	@NonNull
+	public ByteBuffer getTextBuffer() {
+		ByteBuffer text = mBuffer.asReadOnlyBuffer();
+		text.position(mTextOffset);
+		text.limit(mTextOffset + mTextSize);
+		return text.slice();
+	}
+
+	private int getRecordOffset(int index) {
+		if (index < 0 || index >= mCount)
+			throw new IndexOutOfBoundsException("Invalid element index " + index);
+
+		return mRecordsOffset + index * mRecordSize;
+	}
+
+	private int getField(int index, int field) {
+		return mBuffer.getInt(getRecordOffset(index) + field);
+	}
+}
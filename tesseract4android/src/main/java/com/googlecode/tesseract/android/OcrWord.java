@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Immutable recognized word with its position in the image.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class OcrWord {
+	@NonNull
+	private final String mText;
+
+	private final float mConfidence;
+
+	@NonNull
+	private final Rect mBoundingRect;
+
+	OcrWord(@NonNull String text, float confidence, @NonNull Rect boundingRect) {
+		mText = text;
+		mConfidence = confidence;
+		mBoundingRect = new Rect(boundingRect);
+	}
+
+	/**
+	 * @return the recognized text of the word
+	 */
+	@NonNull
+	public String getText() {
+		return mText;
+	}
+
+	/**
+	 * @return the confidence of the word (0..100)
+	 */
+	public float getConfidence() {
+		return mConfidence;
+	}
+
+	/**
+	 * @return a copy of the bounding rectangle of the word in image
+	 * coordinates
+	 */
+	@NonNull
+	public Rect getBoundingRect() {
+		return new Rect(mBoundingRect);
+	}
+
+	/**
+	 * @return <code>true</code> if the word intersects the rectangle
+	 */
+	boolean intersects(Rect rect) {
+		return Rect.intersects(mBoundingRect, rect);
+	}
+
+	@Override
+	public String toString() {
+		return "OcrWord{" +
+				"text=" + mText +
+				", confidence=" + mConfidence +
+				", boundingRect=" + mBoundingRect.toShortString() +
+				'}';
+	}
+}
@@ -19,9 +19,12 @@ package com.googlecode.tesseract.android;
 
 import android.graphics.Rect;
 
+import com.googlecode.leptonica.android.NativeReclaimer;
 import com.googlecode.tesseract.android.TessBaseAPI.PageIteratorLevel;
 
-public class PageIterator {
+import java.io.Closeable;
+
+public class PageIterator implements Closeable {
 	static {
 		System.loadLibrary("jpeg");
 		System.loadLibrary("pngx");
@@ -34,8 +37,14 @@ public class PageIterator {
 	 */
 	private final long mNativePageIterator;
 
+	private final NativeReclaimer.Registration mRegistration;
+
+	private boolean mDeleted;
+
 	/* package */PageIterator(long nativePageIterator) {
 		mNativePageIterator = nativePageIterator;
+		mRegistration = NativeReclaimer.register(this, nativePageIterator,
+				PageIterator::nativeDelete);
 	}
 
 	/**
@@ -43,6 +52,7 @@ public class PageIterator {
 	 */
 	public void begin() {
 		nativeBegin(mNativePageIterator);
+		NativeReclaimer.keepAlive(this);
 	}
 
 	/**
@@ -64,7 +74,11 @@ public class PageIterator {
 	 * otherwise.
 	 */
 	public boolean next(@PageIteratorLevel.Level int level) {
-		return nativeNext(mNativePageIterator, level);
+		try {
+			return nativeNext(mNativePageIterator, level);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -94,7 +108,11 @@ public class PageIterator {
 	 * @return the bounding rectangle of the current object at the given level
 	 */
 	public int[] getBoundingBox(@PageIteratorLevel.Level int level) {
-		return nativeBoundingBox(mNativePageIterator, level);
+		try {
+			return nativeBoundingBox(mNativePageIterator, level);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -109,9 +127,31 @@ public class PageIterator {
 		return new Rect(box[0], box[1], box[2], box[3]);
 	}
 
+	/**
+	 * Deletes the iterator after use
+	 */
+	public void delete() {
+		if (!mDeleted) {
+			if (NativeReclaimer.unregister(mRegistration))
+				nativeDelete(mNativePageIterator);
+
+			mDeleted = true;
+		}
+	}
+
+	/**
+	 * Same as {@link #delete()}.
+	 */
+	@Override
+	public void close() {
+		delete();
+	}
+
 	private static native void nativeBegin(long nativeIterator);
 
 	private static native boolean nativeNext(long nativeIterator, int level);
 
 	private static native int[] nativeBoundingBox(long nativeIterator, int level);
+
+	private static native void nativeDelete(long nativeIterator);
 }
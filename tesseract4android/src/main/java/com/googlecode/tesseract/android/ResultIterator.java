@@ -20,6 +20,7 @@ package com.googlecode.tesseract.android;
 import android.util.Log;
 import android.util.Pair;
 
+import com.googlecode.leptonica.android.NativeReclaimer;
 import com.googlecode.tesseract.android.TessBaseAPI.PageIteratorLevel;
 
 import java.util.ArrayList;
@@ -58,7 +59,11 @@ public class ResultIterator extends PageIterator {
 	 * @return the text string for the current object at the given level.
 	 */
 	public String getUTF8Text(@PageIteratorLevel.Level int level) {
-		return nativeGetUTF8Text(mNativeResultIterator, level);
+		try {
+			return nativeGetUTF8Text(mNativeResultIterator, level);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -69,7 +74,11 @@ public class ResultIterator extends PageIterator {
 	 * @return the mean confidence of the current object at the given level.
 	 */
 	public float confidence(@PageIteratorLevel.Level int level) {
-		return nativeConfidence(mNativeResultIterator, level);
+		try {
+			return nativeConfidence(mNativeResultIterator, level);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -81,7 +90,11 @@ public class ResultIterator extends PageIterator {
 	 * @return {@code true} if iterator points to the start of an object at the given level.
 	 */
 	public boolean isAtBeginningOf(@PageIteratorLevel.Level int level) {
-		return nativeIsAtBeginningOf(mNativeResultIterator, level);
+		try {
+			return nativeIsAtBeginningOf(mNativeResultIterator, level);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -94,7 +107,11 @@ public class ResultIterator extends PageIterator {
 	 */
 	public boolean isAtFinalElement(@PageIteratorLevel.Level int level,
 									@PageIteratorLevel.Level int element) {
-		return nativeIsAtFinalElement(mNativeResultIterator, level, element);
+		try {
+			return nativeIsAtFinalElement(mNativeResultIterator, level, element);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
 	}
 
 	/**
@@ -109,6 +126,7 @@ public class ResultIterator extends PageIterator {
 	public List<Pair<String, Double>> getSymbolChoicesAndConfidence() {
 		// Get the native choices
 		String[] nativeChoices = nativeGetSymbolChoices(mNativeResultIterator);
+		NativeReclaimer.keepAlive(this);
 
 		// Create the output list
 		ArrayList<Pair<String, Double>> pairedResults = new ArrayList<Pair<String, Double>>();
@@ -141,13 +159,6 @@ public class ResultIterator extends PageIterator {
 		return pairedResults;
 	}
 
-	/**
-	 * Deletes the iterator after use
-	 */
-	public void delete() {
-		nativeDelete(mNativeResultIterator);
-	}
-
 	private static native String[] nativeGetSymbolChoices(long nativeResultIterator);
 
 	private static native String nativeGetUTF8Text(long nativeResultIterator, int level);
@@ -157,6 +168,4 @@ public class ResultIterator extends PageIterator {
 	private static native boolean nativeIsAtBeginningOf(long nativeResultIterator, int level);
 
 	private static native boolean nativeIsAtFinalElement(long nativeResultIterator, int level, int element);
-
-	private static native void nativeDelete(long nativeResultIterator);
 }
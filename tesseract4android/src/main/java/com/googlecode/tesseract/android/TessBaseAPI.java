@@ -20,22 +20,34 @@ package com.googlecode.tesseract.android;
 
 import static java.lang.annotation.RetentionPolicy.SOURCE;
 
+import android.content.res.AssetFileDescriptor;
 import android.graphics.Bitmap;
 import android.graphics.Rect;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.IntDef;
 import androidx.annotation.Keep;
 import androidx.annotation.WorkerThread;
 
+import com.googlecode.leptonica.android.ImageSignature;
+import com.googlecode.leptonica.android.NativeReclaimer;
 import com.googlecode.leptonica.android.Pix;
 import com.googlecode.leptonica.android.Pixa;
 import com.googlecode.leptonica.android.ReadFile;
 
 import java.io.File;
 import java.lang.annotation.Retention;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import cz.adaptech.tesseract4android.BuildConfig;
 
@@ -49,7 +61,10 @@ import cz.adaptech.tesseract4android.BuildConfig;
 @SuppressWarnings({"unused", "WeakerAccess"})
 public class TessBaseAPI {
 	/**
-	 * Used by the native implementation of the class.
+	 * Used by the native implementation of the class. The native methods
+	 * using it are instance methods, so this instance stays reachable, and
+	 * can't be finalized, while they run. Wrappers passed to them are kept
+	 * reachable by {@link NativeReclaimer#keepAlive(Object)}.
 	 */
 	private long mNativeData;
 
@@ -64,6 +79,12 @@ public class TessBaseAPI {
 
 	private static final String TAG = TessBaseAPI.class.getSimpleName();
 
+	// Results of nativeRecognize(), keep in sync with tessbaseapi.cpp
+	private static final int RECOGNIZE_SUCCESS = 0;
+	private static final int RECOGNIZE_FAILED = 1;
+	private static final int RECOGNIZE_CANCELLED = 2;
+	private static final int RECOGNIZE_TIMED_OUT = 3;
+
 	/**
 	 * Page segmentation mode.
 	 */
@@ -239,13 +260,63 @@ public class TessBaseAPI {
 
 	private ProgressNotifier progressNotifier;
 
+	/**
+	 * Passed to every progress notification while progress is throttled.
+	 */
+	private ProgressValues mReusableProgressValues;
+
 	private boolean mRecycled;
 
+	private boolean mTimedOut;
+
+	/**
+	 * Serializes asynchronous recognitions of this instance.
+	 */
+	private final Object mRecognitionLock = new Object();
+
+	private OcrResultCache mResultCache;
+
+	/**
+	 * Description of the last initialization, part of the result cache keys.
+	 */
+	private String mInitConfig;
+
+	/**
+	 * Variables and config files set after initialization, part of the result
+	 * cache keys.
+	 */
+	private final TreeMap<String, String> mVariables = new TreeMap<>();
+
+	/**
+	 * Digest of the current image, or <code>null</code> if there is no result
+	 * cache or the image can't be cached.
+	 */
+	private String mImageDigest;
+
+	/**
+	 * The current rectangle, or <code>null</code> for the whole image.
+	 */
+	private Rect mRectangle;
+
+	/**
+	 * The result of the current image, rectangle and configuration, if it went
+	 * through the result cache.
+	 */
+	private OcrResultCache.Entry mCachedResult;
+
+	/**
+	 * Whether the current result was served from the result cache, so the
+	 * engine itself hasn't recognized the image.
+	 */
+	private boolean mRecognitionSkipped;
+
 	/**
 	 * Interface that may be implemented by calling object in order to receive
 	 * progress callbacks during OCR.
 	 * <p>
-	 * Progress callbacks are available when {@link #getHOCRText(int)} is used.
+	 * Progress callbacks are available when {@link #getHOCRText(int)},
+	 * {@link #getUTF8Text(long)} or {@link #recognizeAsync(Pix, Executor)} is
+	 * used.
 	 */
 	public interface ProgressNotifier {
 		void onProgressValues(ProgressValues progressValues);
@@ -255,7 +326,7 @@ public class TessBaseAPI {
 	 * Represents values indicating recognition progress and status.
 	 */
 	public class ProgressValues {
-		private final int percent;
+		private int percent;
 		private final Rect wordRect;
 		private final Rect textRect;
 
@@ -265,6 +336,16 @@ public class TessBaseAPI {
 			this.textRect = textRect;
 		}
 
+		/**
+		 * Updates the values in place, for reuse across notifications.
+		 */
+		private void set(int percent, int wordLeft, int wordTop, int wordRight, int wordBottom,
+						 int textLeft, int textTop, int textRight, int textBottom) {
+			this.percent = percent;
+			wordRect.set(wordLeft, wordTop, wordRight, wordBottom);
+			textRect.set(textLeft, textTop, textRight, textBottom);
+		}
+
 		/**
 		 * Return word recognition progress.
 		 *
@@ -409,6 +490,94 @@ public class TessBaseAPI {
 		if (mRecycled)
 			throw new IllegalStateException();
 
+		datapath = checkDatapath(datapath);
+
+		onInit(datapath, language, ocrEngineMode, config);
+
+		if (config.isEmpty()) {
+			return nativeInitOem(mNativeData, datapath + "tessdata", language, ocrEngineMode);
+		} else {
+			String[] vars = new String[config.size()];
+			String[] varsValues = new String[config.size()];
+			toArrays(config, vars, varsValues);
+
+			return nativeInitParams(mNativeData, datapath + "tessdata", language, ocrEngineMode,
+					vars, varsValues);
+		}
+	}
+
+	/**
+	 * Initializes the Tesseract engine with the traineddata of a single
+	 * language read from an asset, so it doesn't have to be extracted to
+	 * storage first. Returns <code>true</code> on success.
+	 * <p>
+	 * The asset takes the place of {@code <language>.traineddata} in the
+	 * tessdata subfolder of the data path. Any other file the engine needs,
+	 * such as configs or languages loaded by the traineddata itself, is read
+	 * from that folder as usual. The asset is read like a traineddata file,
+	 * so initialization takes as much time and memory as with
+	 * {@link #init(String, String, int)}.
+	 * <p>
+	 * The asset must be stored uncompressed in the APK, otherwise it can't be
+	 * opened as a file descriptor. The descriptor may be closed once this
+	 * method returns.
+	 *
+	 * @param datapath      the parent directory of tessdata ending in a forward
+	 *                      slash
+	 * @param afd           the descriptor of the traineddata asset
+	 * @param language      an ISO 639-3 string representing the language of
+	 *                      the traineddata asset
+	 * @param ocrEngineMode the OCR engine mode to be set
+	 * @return <code>true</code> on success
+	 * @see #init(String, String, int)
+	 */
+	public boolean init(String datapath, AssetFileDescriptor afd, String language,
+						@OcrEngineMode int ocrEngineMode) {
+		return init(datapath, afd, language, ocrEngineMode, Collections.emptyMap());
+	}
+
+	/**
+	 * Initializes the Tesseract engine with the traineddata of a single
+	 * language read from an asset. Returns <code>true</code> on success.
+	 *
+	 * @param datapath      the parent directory of tessdata ending in a forward
+	 *                      slash
+	 * @param afd           the descriptor of the traineddata asset
+	 * @param language      an ISO 639-3 string representing the language of
+	 *                      the traineddata asset
+	 * @param ocrEngineMode the OCR engine mode to be set
+	 * @param config        variables to be set at initialization; can be empty
+	 * @return <code>true</code> on success
+	 * @see #init(String, AssetFileDescriptor, String, int)
+	 */
+	public boolean init(String datapath, AssetFileDescriptor afd, String language,
+						@OcrEngineMode int ocrEngineMode, Map<String, String> config) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (afd == null)
+			throw new IllegalArgumentException("Asset file descriptor must not be null!");
+		if (language == null || language.isEmpty() || language.contains("+"))
+			throw new IllegalArgumentException("Language must be a single language!");
+
+		datapath = checkDatapath(datapath);
+
+		long length = afd.getLength();
+		if (length == AssetFileDescriptor.UNKNOWN_LENGTH)
+			length = afd.getParcelFileDescriptor().getStatSize() - afd.getStartOffset();
+
+		onInit(datapath, language, ocrEngineMode, config);
+
+		String[] vars = new String[config.size()];
+		String[] varsValues = new String[config.size()];
+		toArrays(config, vars, varsValues);
+
+		return nativeInitFd(mNativeData, afd.getParcelFileDescriptor().getFd(),
+				afd.getStartOffset(), length, datapath + "tessdata", language, ocrEngineMode,
+				vars, varsValues);
+	}
+
+	private static String checkDatapath(String datapath) {
 		if (datapath == null)
 			throw new IllegalArgumentException("Data path must not be null!");
 		if (!datapath.endsWith(File.separator))
@@ -422,23 +591,23 @@ public class TessBaseAPI {
 		if (!tessdata.exists() || !tessdata.isDirectory())
 			throw new IllegalArgumentException("Data path must contain subfolder tessdata!");
 
-		if (config.isEmpty()) {
-			return nativeInitOem(mNativeData, datapath + "tessdata", language, ocrEngineMode);
-		} else {
-			int size = config.size();
-
-			String[] vars = new String[size];
-			String[] varsValues = new String[size];
+		return datapath;
+	}
 
-			int i = 0;
-			for (Map.Entry<String, String> entry : config.entrySet()) {
-				vars[i] = entry.getKey();
-				varsValues[i] = entry.getValue();
-				i++;
-			}
+	private void onInit(String datapath, String language, int ocrEngineMode,
+						Map<String, String> config) {
+		mInitConfig = datapath + '|' + language + '|' + ocrEngineMode + '|'
+				+ new TreeMap<>(config);
+		mVariables.clear();
+		onImageSet(null);
+	}
 
-			return nativeInitParams(mNativeData, datapath + "tessdata", language, ocrEngineMode,
-					vars, varsValues);
+	private static void toArrays(Map<String, String> config, String[] vars, String[] varsValues) {
+		int i = 0;
+		for (Map.Entry<String, String> entry : config.entrySet()) {
+			vars[i] = entry.getKey();
+			varsValues[i] = entry.getValue();
+			i++;
 		}
 	}
 
@@ -468,6 +637,29 @@ public class TessBaseAPI {
 			throw new IllegalStateException();
 
 		nativeClear(mNativeData);
+		onImageSet(null);
+	}
+
+	/**
+	 * Runs a recognition of a small synthetic image, so the first real
+	 * recognition after {@link #init} isn't slowed down by one-time setup, such
+	 * as allocating the LSTM scratch space, setting up the dictionaries and
+	 * faulting in the model pages.
+	 * <p>
+	 * Like {@link #clear()}, discards the image, any recognition results and
+	 * the adaptive classifier data, so it should be called right after
+	 * initialization, before setting an image. Variables and page segmentation
+	 * mode are kept.
+	 *
+	 * @see TessEnginePool#prewarm(String, String, int, java.util.concurrent.Executor)
+	 */
+	@WorkerThread
+	public void warmUp() {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		nativeWarmUp(mNativeData);
+		onImageSet(null);
 	}
 
 	/**
@@ -533,7 +725,12 @@ public class TessBaseAPI {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeSetVariable(mNativeData, var, value);
+		if (!nativeSetVariable(mNativeData, var, value))
+			return false;
+
+		mVariables.put(var, value);
+		mCachedResult = null;
+		return true;
 	}
 
 	/**
@@ -564,6 +761,7 @@ public class TessBaseAPI {
 			throw new IllegalStateException();
 
 		nativeSetPageSegMode(mNativeData, mode);
+		mCachedResult = null;
 	}
 
 	/**
@@ -579,6 +777,36 @@ public class TessBaseAPI {
 		nativeSetDebug(mNativeData, enabled);
 	}
 
+	/**
+	 * Sets the cache of recognition results consulted by
+	 * {@link #getUTF8Text()}, {@link #getUTF8Text(long)},
+	 * {@link #meanConfidence()}, {@link #getRecognizedWords()} and
+	 * {@link #recognizeAsync}, so an image which was recognized before with the
+	 * same configuration is not recognized again.
+	 * <p>
+	 * Results are keyed by a digest of the pixels together with the languages,
+	 * engine mode, page segmentation mode, variables and rectangle. Only images
+	 * set as a file, Bitmap or Pix are cached. The cache may be shared by
+	 * several instances. Must be called before setting the image.
+	 *
+	 * @param cache the result cache, or <code>null</code> to disable caching
+	 */
+	public void setResultCache(OcrResultCache cache) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		mResultCache = cache;
+		onImageSet(null);
+	}
+
+	/**
+	 * @return the result cache set by {@link #setResultCache}, or
+	 * <code>null</code>
+	 */
+	public OcrResultCache getResultCache() {
+		return mResultCache;
+	}
+
 	/**
 	 * Restricts recognition to a sub-rectangle of the image. Call after
 	 * SetImage. Each SetRectangle clears the recognition results so multiple
@@ -608,6 +836,9 @@ public class TessBaseAPI {
 			throw new IllegalStateException();
 
 		nativeSetRectangle(mNativeData, left, top, width, height);
+		mRectangle = new Rect(left, top, left + width, top + height);
+		mCachedResult = null;
+		mRecognitionSkipped = false;
 	}
 
 	/**
@@ -631,6 +862,8 @@ public class TessBaseAPI {
 		}
 
 		nativeSetImagePix(mNativeData, image.getNativePix());
+		NativeReclaimer.keepAlive(image);
+		onImageSet(image);
 
 		image.recycle();
 	}
@@ -656,14 +889,48 @@ public class TessBaseAPI {
 		}
 
 		nativeSetImagePix(mNativeData, image.getNativePix());
+		NativeReclaimer.keepAlive(image);
+		onImageSet(image);
 
 		image.recycle();
 	}
 
 	/**
-	 * Provides a Leptonica pix format image for Tesseract to recognize. Clones
-	 * the pix object. The source image may be destroyed immediately after
-	 * SetImage is called, but its contents may not be modified.
+	 * Provides a region of an image for Tesseract to recognize. Only the
+	 * pixels of the region are copied, so unlike {@link #setRectangle(Rect)}
+	 * after {@link #setImage(Bitmap)}, memory use and thresholding cost depend
+	 * on the size of the region instead of the whole bitmap.
+	 * <p>
+	 * The region becomes the whole image, so coordinates of all results are
+	 * relative to its top left corner.
+	 *
+	 * @param bmp bitmap representation of the image
+	 * @param roi the region of the bitmap to recognize, must be non-empty and
+	 *            lie within the bitmap
+	 */
+	@WorkerThread
+	public void setImage(Bitmap bmp, Rect roi) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		Pix image = ReadFile.readBitmap(bmp, roi);
+
+		if (image == null) {
+			throw new RuntimeException("Failed to read bitmap");
+		}
+
+		nativeSetImagePix(mNativeData, image.getNativePix());
+		NativeReclaimer.keepAlive(image);
+		onImageSet(image);
+
+		image.recycle();
+	}
+
+	/**
+	 * Provides a Leptonica pix format image for Tesseract to recognize. Copies
+	 * the image. The source image may be destroyed, modified or reused, e.g.
+	 * through a {@link com.googlecode.leptonica.android.PixPool}, immediately
+	 * after SetImage is called.
 	 *
 	 * @param image Leptonica pix representation of the image
 	 */
@@ -673,6 +940,8 @@ public class TessBaseAPI {
 			throw new IllegalStateException();
 
 		nativeSetImagePix(mNativeData, image.getNativePix());
+		NativeReclaimer.keepAlive(image);
+		onImageSet(image);
 	}
 
 	/**
@@ -694,13 +963,135 @@ public class TessBaseAPI {
 			throw new IllegalStateException();
 
 		nativeSetImageBytes(mNativeData, imagedata, width, height, bpp, bpl);
+		onImageSet(null);
+	}
+
+	/**
+	 * Provides an image for Tesseract to recognize directly from the memory of
+	 * a direct buffer, without copying it to the Java heap first. The image
+	 * starts at the current position of the buffer, which is not changed.
+	 * <p>
+	 * Tesseract converts the image to its internal representation during this
+	 * call, so the buffer may be reused or refilled, e.g. with the next camera
+	 * frame, as soon as this method returns. It must not be modified from
+	 * another thread while this method runs.
+	 * <p>
+	 * SetImage clears all recognition results, and sets the rectangle to the
+	 * full image, so it may be followed immediately by a GetUTF8Text, and it
+	 * will automatically perform recognition.
+	 *
+	 * @param buffer direct buffer holding the image data
+	 * @param width  image width
+	 * @param height image height
+	 * @param bpp    bytes per pixel, or 0 for binary images
+	 * @param bpl    bytes per line
+	 */
+	@WorkerThread
+	public void setImage(ByteBuffer buffer, int width, int height, int bpp, int bpl) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (buffer == null || !buffer.isDirect())
+			throw new IllegalArgumentException("Buffer must be a direct buffer!");
+		if (width <= 0 || height <= 0 || bpp < 0 || bpl <= 0)
+			throw new IllegalArgumentException("Invalid image geometry!");
+		// The last row may end right after its last pixel
+		if ((long) bpl * (height - 1) + (bpp == 0 ? (width + 7) / 8 : (long) width * bpp)
+				> buffer.remaining())
+			throw new IllegalArgumentException("Buffer is too small for the image!");
+
+		nativeSetImageBuffer(mNativeData, buffer, buffer.position(), width, height, bpp, bpl);
+		onImageSet(null);
+	}
+
+	/**
+	 * Provides a region of an image for Tesseract to recognize directly from
+	 * the memory of a direct buffer. Only the rows and columns of the region
+	 * are read, so memory use and thresholding cost depend on the size of the
+	 * region instead of the whole frame. The image starts at the current
+	 * position of the buffer, which is not changed.
+	 * <p>
+	 * The same lifetime rules as for {@link #setImage(ByteBuffer, int, int, int, int)}
+	 * apply. The region becomes the whole image, so coordinates of all results
+	 * are relative to its top left corner.
+	 *
+	 * @param buffer direct buffer holding the image data
+	 * @param width  image width
+	 * @param height image height
+	 * @param bpp    bytes per pixel, or 0 for binary images
+	 * @param bpl    bytes per line
+	 * @param roi    the region of the image to recognize, must be non-empty
+	 *               and lie within the image; for binary images its left edge
+	 *               must be a multiple of 8
+	 */
+	@WorkerThread
+	public void setImage(ByteBuffer buffer, int width, int height, int bpp, int bpl, Rect roi) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (buffer == null || !buffer.isDirect())
+			throw new IllegalArgumentException("Buffer must be a direct buffer!");
+		if (width <= 0 || height <= 0 || bpp < 0 || bpl <= 0)
+			throw new IllegalArgumentException("Invalid image geometry!");
+		if (roi == null || roi.isEmpty() || roi.left < 0 || roi.top < 0
+				|| roi.right > width || roi.bottom > height)
+			throw new IllegalArgumentException("Region must be non-empty and lie within the image!");
+		if (bpp == 0 && roi.left % 8 != 0)
+			throw new IllegalArgumentException("Region of a binary image must start at a byte boundary!");
+
+		// Only the rows down to the bottom of the region have to be present
+		if ((long) bpl * (roi.bottom - 1) + (bpp == 0 ? (roi.right + 7) / 8 : (long) roi.right * bpp)
+				> buffer.remaining())
+			throw new IllegalArgumentException("Buffer is too small for the image!");
+
+		int offset = buffer.position() + roi.top * bpl + (bpp == 0 ? roi.left / 8 : roi.left * bpp);
+		nativeSetImageBuffer(mNativeData, buffer, offset, roi.width(), roi.height(), bpp, bpl);
+		onImageSet(null);
+	}
+
+	/**
+	 * Provides the luma (Y) plane of a YUV image, such as the first plane of a
+	 * YUV_420_888 camera frame, for Tesseract to recognize as a grayscale
+	 * image. This avoids converting the frame to an RGBA Bitmap and back.
+	 * <p>
+	 * The same lifetime rules as for {@link #setImage(ByteBuffer, int, int, int, int)}
+	 * apply: the buffer may be reused as soon as this method returns.
+	 *
+	 * @param buffer      direct buffer holding the plane, e.g. from
+	 *                    <code>Image.Plane.getBuffer()</code>
+	 * @param width       image width
+	 * @param height      image height
+	 * @param rowStride   the distance between the starts of two rows, in bytes
+	 * @param pixelStride the distance between two pixels of a row, in bytes
+	 * @see ReadFile#readLumaPlane(ByteBuffer, int, int, int, int)
+	 */
+	@WorkerThread
+	public void setLumaImage(ByteBuffer buffer, int width, int height, int rowStride,
+							 int pixelStride) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (pixelStride == 1) {
+			// Tightly packed rows are an 8bpp image already
+			setImage(buffer, width, height, 1, rowStride);
+			return;
+		}
+
+		Pix image = ReadFile.readLumaPlane(buffer, width, height, rowStride, pixelStride);
+
+		nativeSetImagePix(mNativeData, image.getNativePix());
+		NativeReclaimer.keepAlive(image);
+		onImageSet(image);
+
+		image.recycle();
 	}
 
 	/**
 	 * The recognized text is returned as a String which is coded as UTF8.
 	 * This is a blocking operation that will not work with {@link #stop()}.
 	 * Call {@link #getHOCRText(int)} before calling this function to
-	 * interrupt a recognition task with {@link #stop()}
+	 * interrupt a recognition task with {@link #stop()}, or use
+	 * {@link #getUTF8Text(long)} instead.
 	 *
 	 * @return the recognized text
 	 */
@@ -709,12 +1100,477 @@ public class TessBaseAPI {
 		if (mRecycled)
 			throw new IllegalStateException();
 
+		String key = getCacheKey();
+		if (key != null)
+			return recognizeCached(key, 0);
+
 		// Trim because the text will have extra line breaks at the end
 		String text = nativeGetUTF8Text(mNativeData);
 
 		return text != null ? text.trim() : null;
 	}
 
+	/**
+	 * Recognizes the image, giving up when the timeout elapses, and returns the
+	 * recognized text as a String which is coded as UTF8. Interruptible by
+	 * {@link #stop()}.
+	 * <p>
+	 * When the recognition is stopped or times out, the text of the words
+	 * recognized until then is returned and {@link #isTimedOut()} tells which
+	 * of the two happened. The partial results are also available through
+	 * {@link #getResultIterator()}. The deadline is checked between words, so
+	 * the page layout analysis which precedes recognition is not bounded.
+	 *
+	 * @param timeoutMillis the maximum time to spend recognizing words, in
+	 *                      milliseconds
+	 * @return the recognized text
+	 */
+	@WorkerThread
+	public String getUTF8Text(long timeoutMillis) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (timeoutMillis <= 0)
+			throw new IllegalArgumentException("Timeout must be positive!");
+
+		String key = getCacheKey();
+		if (key != null)
+			return recognizeCached(key, toDeadline(timeoutMillis));
+
+		nativeClearStop(mNativeData);
+		mTimedOut = nativeRecognize(mNativeData, toDeadline(timeoutMillis)) == RECOGNIZE_TIMED_OUT;
+
+		// Trim because the text will have extra line breaks at the end
+		String text = nativeGetUTF8Text(mNativeData);
+
+		return text != null ? text.trim() : null;
+	}
+
+	/**
+	 * Returns whether the last recognition with a timeout gave up because its
+	 * deadline passed, i.e. its results are partial.
+	 *
+	 * @return <code>true</code> if the last recognition timed out
+	 * @see #getUTF8Text(long)
+	 * @see #getHOCRText(int, long)
+	 * @see #recognizeRegions(Pix, int[], long)
+	 * @see #recognizeBatch(Pix[], long)
+	 */
+	public boolean isTimedOut() {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		return mTimedOut;
+	}
+
+	private static int toDeadline(long timeoutMillis) {
+		return (int) Math.min(timeoutMillis, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the trimmed text of the current image from the result cache, or
+	 * recognizes the image and stores its results. Partial results of stopped
+	 * or timed out recognitions are not stored.
+	 *
+	 * @param key           the cache key of the current image
+	 * @param timeoutMillis the maximum time to spend recognizing words, or 0
+	 * @return the recognized text
+	 */
+	private String recognizeCached(String key, int timeoutMillis) {
+		if (mCachedResult == null) {
+			OcrResultCache.Entry entry = mResultCache.get(key);
+			if (entry != null) {
+				mCachedResult = entry;
+				mRecognitionSkipped = true;
+			} else {
+				int result = RECOGNIZE_SUCCESS;
+				if (timeoutMillis > 0) {
+					nativeClearStop(mNativeData);
+					result = nativeRecognize(mNativeData, timeoutMillis);
+				}
+				mTimedOut = result == RECOGNIZE_TIMED_OUT;
+
+				String text = nativeGetUTF8Text(mNativeData);
+				if (result != RECOGNIZE_SUCCESS || text == null)
+					return text != null ? text.trim() : null;
+
+				cacheResult(key, text.trim(), nativeMeanConfidence(mNativeData));
+			}
+		}
+
+		mTimedOut = false;
+		return mCachedResult.getText();
+	}
+
+	/**
+	 * Stores the results of the engine for the current image in the result
+	 * cache.
+	 */
+	private void cacheResult(String key, String text, int meanConfidence) {
+		mCachedResult = new OcrResultCache.Entry(text, meanConfidence, collectWords());
+		mResultCache.put(key, mCachedResult);
+	}
+
+	/**
+	 * Collects the words recognized by the engine, recognizing the current
+	 * image first if needed.
+	 */
+	private List<OcrWord> collectWords() {
+		WordLayout layout = nativeGetWordLayout(mNativeData, PageIteratorLevel.RIL_WORD);
+
+		int count = layout.getCount();
+		List<OcrWord> words = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			words.add(new OcrWord(layout.getText(i), layout.getConfidence(i),
+					layout.getBoundingRect(i)));
+		}
+
+		return words;
+	}
+
+	/**
+	 * Called whenever the image changes. Computes the digest of the new image
+	 * when a result cache is set and forgets the rectangle and cached result
+	 * of the previous one.
+	 *
+	 * @param image the new image, or <code>null</code> if it can't be cached
+	 */
+	private void onImageSet(Pix image) {
+		mImageDigest = mResultCache != null && image != null ? ImageSignature.digest(image) : null;
+		mRectangle = null;
+		mCachedResult = null;
+		mRecognitionSkipped = false;
+	}
+
+	/**
+	 * Returns the key of the current image, rectangle and configuration in
+	 * the result cache, or <code>null</code> if the results can't be cached.
+	 */
+	private String getCacheKey() {
+		if (mResultCache == null || mImageDigest == null || mInitConfig == null)
+			return null;
+
+		return mImageDigest + '|' + mInitConfig + '|' + nativeGetPageSegMode(mNativeData)
+				+ '|' + mVariables + '|'
+				+ (mRectangle != null ? mRectangle.toShortString() : "full");
+	}
+
+	/**
+	 * Recognizes several rectangles of the same image in a single native call,
+	 * which saves the per-call overhead of {@link #setRectangle(int, int, int, int)},
+	 * {@link #getUTF8Text()} and {@link #meanConfidence()} when there are many
+	 * small regions, e.g. the fields of a form.
+	 * <p>
+	 * The image is set as with {@link #setImage(Pix)} and stays set afterwards,
+	 * restricted to the last rectangle. Interruptible by {@link #stop()}, which
+	 * leaves the rectangles that weren't recognized yet empty.
+	 *
+	 * @param image the image to recognize
+	 * @param rects the rectangles to recognize as consecutive
+	 *              <code>left, top, width, height</code> quadruples
+	 * @return the texts and mean confidences of the rectangles, in order
+	 */
+	@WorkerThread
+	public OcrBatchResult recognizeRegions(Pix image, int[] rects) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		return recognizeRegionsWithDeadline(image, rects, 0);
+	}
+
+	/**
+	 * Recognizes several rectangles of the same image in a single native call,
+	 * giving up when the timeout elapses. Interruptible by {@link #stop()}.
+	 * <p>
+	 * The timeout covers all rectangles. When the recognition is stopped or
+	 * times out, the rectangle being recognized keeps the words recognized
+	 * until then, the following ones are left empty and {@link #isTimedOut()}
+	 * tells which of the two happened.
+	 *
+	 * @param image         the image to recognize
+	 * @param rects         the rectangles to recognize as consecutive
+	 *                      <code>left, top, width, height</code> quadruples
+	 * @param timeoutMillis the maximum time to spend recognizing words, in
+	 *                      milliseconds
+	 * @return the texts and mean confidences of the rectangles, in order
+	 * @see #recognizeRegions(Pix, int[])
+	 */
+	@WorkerThread
+	public OcrBatchResult recognizeRegions(Pix image, int[] rects, long timeoutMillis) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (timeoutMillis <= 0)
+			throw new IllegalArgumentException("Timeout must be positive!");
+
+		return recognizeRegionsWithDeadline(image, rects, toDeadline(timeoutMillis));
+	}
+
+	/**
+	 * @param timeoutMillis the maximum time to spend recognizing words, or 0
+	 *                      for no limit
+	 */
+	private OcrBatchResult recognizeRegionsWithDeadline(Pix image, int[] rects, int timeoutMillis) {
+		if (image == null)
+			throw new IllegalArgumentException("Image must not be null!");
+		if (rects == null || rects.length % 4 != 0)
+			throw new IllegalArgumentException("Rectangles must be quadruples of left, top, width and height!");
+
+		int count = rects.length / 4;
+		int[] offsets = new int[count + 1];
+		int[] confidences = new int[count];
+		int[] status = new int[1];
+
+		nativeClearStop(mNativeData);
+		byte[] text = nativeRecognizeRegions(mNativeData, image.getNativePix(), rects,
+				offsets, confidences, timeoutMillis, status);
+		NativeReclaimer.keepAlive(image);
+		mTimedOut = status[0] == RECOGNIZE_TIMED_OUT;
+		onImageSet(null);
+
+		return new OcrBatchResult(text, offsets, confidences);
+	}
+
+	/**
+	 * Recognizes several images in a single native call, which saves the
+	 * per-call overhead of {@link #setImage(Pix)}, {@link #getUTF8Text()} and
+	 * {@link #meanConfidence()} when there are many small images.
+	 * <p>
+	 * The last image stays set afterwards. Interruptible by {@link #stop()},
+	 * which leaves the images that weren't recognized yet empty.
+	 *
+	 * @param images the images to recognize
+	 * @return the texts and mean confidences of the images, in order
+	 */
+	@WorkerThread
+	public OcrBatchResult recognizeBatch(Pix[] images) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		return recognizeBatchWithDeadline(images, 0);
+	}
+
+	/**
+	 * Recognizes several images in a single native call, giving up when the
+	 * timeout elapses. Interruptible by {@link #stop()}.
+	 * <p>
+	 * The timeout covers all images. When the recognition is stopped or times
+	 * out, the image being recognized keeps the words recognized until then,
+	 * the following ones are left empty and {@link #isTimedOut()} tells which
+	 * of the two happened.
+	 *
+	 * @param images        the images to recognize
+	 * @param timeoutMillis the maximum time to spend recognizing words, in
+	 *                      milliseconds
+	 * @return the texts and mean confidences of the images, in order
+	 * @see #recognizeBatch(Pix[])
+	 */
+	@WorkerThread
+	public OcrBatchResult recognizeBatch(Pix[] images, long timeoutMillis) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (timeoutMillis <= 0)
+			throw new IllegalArgumentException("Timeout must be positive!");
+
+		return recognizeBatchWithDeadline(images, toDeadline(timeoutMillis));
+	}
+
+	/**
+	 * @param timeoutMillis the maximum time to spend recognizing words, or 0
+	 *                      for no limit
+	 */
+	private OcrBatchResult recognizeBatchWithDeadline(Pix[] images, int timeoutMillis) {
+		if (images == null)
+			throw new IllegalArgumentException("Images must not be null!");
+
+		long[] nativePixs = new long[images.length];
+		for (int i = 0; i < images.length; i++) {
+			if (images[i] == null)
+				throw new IllegalArgumentException("Images must not be null!");
+			nativePixs[i] = images[i].getNativePix();
+		}
+
+		int[] offsets = new int[images.length + 1];
+		int[] confidences = new int[images.length];
+
+		int[] status = new int[1];
+
+		nativeClearStop(mNativeData);
+		byte[] text = nativeRecognizeBatch(mNativeData, nativePixs, offsets, confidences,
+				timeoutMillis, status);
+		NativeReclaimer.keepAlive(images);
+		mTimedOut = status[0] == RECOGNIZE_TIMED_OUT;
+		onImageSet(null);
+
+		return new OcrBatchResult(text, offsets, confidences);
+	}
+
+	/**
+	 * Recognizes the image asynchronously on the given executor.
+	 * <p>
+	 * The image is cloned, so the caller may recycle it as soon as this method
+	 * returns. Cancelling the returned future with
+	 * <code>mayInterruptIfRunning</code> set to <code>true</code> stops a
+	 * running recognition the same way {@link #stop()} does, so the executor
+	 * thread is freed as soon as Tesseract notices the request.
+	 * <p>
+	 * Recognitions of the same instance run one at a time. The instance must
+	 * not be used by other threads or recycled until the future is done. The
+	 * results of the last recognition stay available, e.g. through
+	 * {@link #getResultIterator()}, until a new image is set.
+	 *
+	 * @param image    the image to recognize
+	 * @param executor the executor to run the recognition on
+	 * @return the future result of the recognition
+	 */
+	public Future<OcrResult> recognizeAsync(Pix image, Executor executor) {
+		return recognizeAsync(image, executor, 0);
+	}
+
+	/**
+	 * Recognizes the image asynchronously on the given executor, giving up
+	 * when the timeout elapses.
+	 * <p>
+	 * When the recognition times out, the result contains the words recognized
+	 * until then and {@link OcrResult#isTimedOut()} returns <code>true</code>.
+	 *
+	 * @param image         the image to recognize
+	 * @param executor      the executor to run the recognition on
+	 * @param timeoutMillis the maximum time to spend recognizing words, in
+	 *                      milliseconds, or 0 for no limit
+	 * @return the future result of the recognition
+	 * @see #recognizeAsync(Pix, Executor)
+	 */
+	public Future<OcrResult> recognizeAsync(Pix image, Executor executor, long timeoutMillis) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (image == null)
+			throw new IllegalArgumentException("Image must not be null!");
+		if (executor == null)
+			throw new IllegalArgumentException("Executor must not be null!");
+		if (timeoutMillis < 0)
+			throw new IllegalArgumentException("Timeout must not be negative!");
+
+		RecognitionTask task = new RecognitionTask(
+				new Recognition(image.clone(), toDeadline(timeoutMillis)));
+		executor.execute(task);
+		return task;
+	}
+
+	/**
+	 * Recognition of a single image which can be stopped while running.
+	 */
+	private final class Recognition implements Callable<OcrResult> {
+		private final Pix mImage;
+		private final int mTimeoutMillis;
+
+		// Guarded by this, as is recycling the image
+		private boolean mRunning;
+		private boolean mCancelled;
+
+		Recognition(Pix image, int timeoutMillis) {
+			mImage = image;
+			mTimeoutMillis = timeoutMillis;
+		}
+
+		@Override
+		public OcrResult call() {
+			synchronized (mRecognitionLock) {
+				try {
+					synchronized (this) {
+						if (mCancelled)
+							return null;
+
+						// Forget any earlier stop() so it doesn't cancel this recognition
+						nativeClearStop(mNativeData);
+						mRunning = true;
+					}
+
+					long start = SystemClock.elapsedRealtime();
+
+					nativeSetImagePix(mNativeData, mImage.getNativePix());
+					NativeReclaimer.keepAlive(mImage);
+					onImageSet(mImage);
+
+					String key = getCacheKey();
+					OcrResultCache.Entry entry = key != null ? mResultCache.get(key) : null;
+					if (entry != null) {
+						synchronized (this) {
+							mRunning = false;
+						}
+						mCachedResult = entry;
+						mRecognitionSkipped = true;
+						return new OcrResult(entry.getText(), entry.getMeanConfidence(),
+								SystemClock.elapsedRealtime() - start, false);
+					}
+
+					int result = nativeRecognize(mNativeData, mTimeoutMillis);
+
+					synchronized (this) {
+						mRunning = false;
+
+						if (result == RECOGNIZE_CANCELLED && mCancelled)
+							return null;
+						if (result == RECOGNIZE_FAILED)
+							throw new RuntimeException("Recognition failed");
+					}
+
+					String text = nativeGetUTF8Text(mNativeData);
+					text = text != null ? text.trim() : "";
+					int meanConfidence = nativeMeanConfidence(mNativeData);
+
+					if (key != null && result == RECOGNIZE_SUCCESS)
+						cacheResult(key, text, meanConfidence);
+
+					return new OcrResult(text, meanConfidence,
+							SystemClock.elapsedRealtime() - start, result == RECOGNIZE_TIMED_OUT);
+				} finally {
+					synchronized (this) {
+						mImage.recycle();
+					}
+				}
+			}
+		}
+
+		/**
+		 * Prevents the recognition from starting and optionally stops it when
+		 * it is already running.
+		 */
+		synchronized void cancel(boolean stop) {
+			mCancelled = true;
+
+			if (mRunning) {
+				if (stop)
+					nativeStop(mNativeData);
+			} else {
+				// The recognition won't run anymore, so nobody else releases the image
+				mImage.recycle();
+			}
+		}
+	}
+
+	private static final class RecognitionTask extends FutureTask<OcrResult> {
+		private final Recognition mRecognition;
+
+		RecognitionTask(Recognition recognition) {
+			super(recognition);
+			mRecognition = recognition;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			// Interrupting the thread wouldn't stop the native code, stop() does
+			boolean cancelled = super.cancel(false);
+
+			if (cancelled)
+				mRecognition.cancel(mayInterruptIfRunning);
+
+			return cancelled;
+		}
+	}
+
 	/**
 	 * Returns the (average) confidence value between 0 and 100.
 	 *
@@ -724,6 +1580,9 @@ public class TessBaseAPI {
 		if (mRecycled)
 			throw new IllegalStateException();
 
+		if (mCachedResult != null)
+			return mCachedResult.getMeanConfidence();
+
 		return nativeMeanConfidence(mNativeData);
 	}
 
@@ -838,6 +1697,124 @@ public class TessBaseAPI {
 		return new Pixa(nativeGetConnectedComponents(mNativeData), 0, 0);
 	}
 
+	/**
+	 * Returns the recognized words with their confidences and bounding
+	 * rectangles in reading order, recognizing the image first if needed.
+	 * Results served by the {@link #setResultCache result cache} include the
+	 * words, so the image is not recognized again.
+	 *
+	 * @return the recognized words
+	 */
+	@WorkerThread
+	public List<OcrWord> getRecognizedWords() {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		String key = getCacheKey();
+		if (key != null) {
+			recognizeCached(key, 0);
+			if (mCachedResult != null)
+				return mCachedResult.getWords();
+		}
+
+		return Collections.unmodifiableList(collectWords());
+	}
+
+	/**
+	 * Returns the text, bounding boxes, confidences and parent block, paragraph
+	 * and line indices of all elements of the given level, recognizing the
+	 * image first if needed. Unlike walking a {@link ResultIterator}, all
+	 * elements are collected in a single native call into packed arrays, which
+	 * is much cheaper for pages with many words. Elements without text are
+	 * skipped.
+	 *
+	 * @param level the page iterator level of the elements, e.g.
+	 *              {@link PageIteratorLevel#RIL_WORD}
+	 * @return the layout of the recognized elements
+	 */
+	@WorkerThread
+	public WordLayout getWordLayout(@PageIteratorLevel.Level int level) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (level < PageIteratorLevel.RIL_BLOCK || level > PageIteratorLevel.RIL_SYMBOL)
+			throw new IllegalArgumentException("Invalid page iterator level");
+
+		// Recognizes the image even if the result came from the cache
+		mRecognitionSkipped = false;
+
+		return nativeGetWordLayout(mNativeData, level);
+	}
+
+	/**
+	 * Writes the page hierarchy from blocks down to the given level in the
+	 * binary format read by {@link OcrResultReader}, recognizing the image
+	 * first if needed. Native code collects the elements of the page, then
+	 * copies the results into the buffer at its position, without creating
+	 * any Java objects.
+	 * <p>
+	 * If the results don't fit into the remaining space of the buffer, nothing
+	 * is written and the buffer is left unchanged; the returned size tells how
+	 * large a buffer is needed. The page is walked again by the next call, so
+	 * a buffer large enough for typical pages should be reused. Otherwise the
+	 * position of the buffer is advanced past the results.
+	 *
+	 * @param buffer a direct buffer
+	 * @param level  the deepest page iterator level to be included, e.g.
+	 *               {@link PageIteratorLevel#RIL_WORD}
+	 * @return the size of the results in bytes
+	 */
+	@WorkerThread
+	public int writeResults(ByteBuffer buffer, @PageIteratorLevel.Level int level) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (buffer == null)
+			throw new IllegalArgumentException("Buffer must not be null!");
+		if (!buffer.isDirect())
+			throw new IllegalArgumentException("Buffer must be direct");
+		if (buffer.isReadOnly())
+			throw new IllegalArgumentException("Buffer must be writable");
+		if (level < PageIteratorLevel.RIL_BLOCK || level > PageIteratorLevel.RIL_SYMBOL)
+			throw new IllegalArgumentException("Invalid page iterator level");
+
+		// Recognizes the image even if the result came from the cache
+		mRecognitionSkipped = false;
+
+		int size = nativeWriteResultsBuffer(mNativeData, buffer, buffer.position(),
+				buffer.remaining(), level);
+		if (size < 0)
+			throw new IllegalArgumentException("Could not access the memory of the buffer");
+		if (size <= buffer.remaining())
+			buffer.position(buffer.position() + size);
+
+		return size;
+	}
+
+	/**
+	 * Writes the page hierarchy from blocks down to the given level to a file
+	 * in the binary format read by {@link OcrResultReader}, recognizing the
+	 * image first if needed.
+	 *
+	 * @param file  the file to be written
+	 * @param level the deepest page iterator level to be included, e.g.
+	 *              {@link PageIteratorLevel#RIL_WORD}
+	 * @return <code>true</code> on success
+	 * @see OcrResultReader#map(File)
+	 */
+	@WorkerThread
+	public boolean writeResults(File file, @PageIteratorLevel.Level int level) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (level < PageIteratorLevel.RIL_BLOCK || level > PageIteratorLevel.RIL_SYMBOL)
+			throw new IllegalArgumentException("Invalid page iterator level");
+
+		mRecognitionSkipped = false;
+
+		return nativeWriteResultsFile(mNativeData, file.getAbsolutePath(), level);
+	}
+
 	/**
 	 * Get a reading-order iterator to the results of LayoutAnalysis and/or
 	 * Recognize. The returned iterator must be deleted after use.
@@ -848,6 +1825,12 @@ public class TessBaseAPI {
 		if (mRecycled)
 			throw new IllegalStateException();
 
+		if (mRecognitionSkipped) {
+			// The result came from the cache, recognize for the details
+			nativeRecognize(mNativeData, 0);
+			mRecognitionSkipped = false;
+		}
+
 		long nativeResultIterator = nativeGetResultIterator(mNativeData);
 
 		if (nativeResultIterator == 0) {
@@ -872,6 +1855,34 @@ public class TessBaseAPI {
 		return nativeGetHOCRText(mNativeData, page);
 	}
 
+	/**
+	 * Recognizes the image, giving up when the timeout elapses, and makes a
+	 * HTML-formatted string with hOCR markup from the internal data
+	 * structures. Interruptible by {@link #stop()}.
+	 * <p>
+	 * Partial results are returned the same way as by
+	 * {@link #getUTF8Text(long)}.
+	 *
+	 * @param page          is 0-based but will appear in the output as 1-based.
+	 * @param timeoutMillis the maximum time to spend recognizing words, in
+	 *                      milliseconds
+	 * @return HTML-formatted string with hOCR markup
+	 * @see #isTimedOut()
+	 */
+	@WorkerThread
+	public String getHOCRText(int page, long timeoutMillis) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (timeoutMillis <= 0)
+			throw new IllegalArgumentException("Timeout must be positive!");
+
+		nativeClearStop(mNativeData);
+		mTimedOut = nativeRecognize(mNativeData, toDeadline(timeoutMillis)) == RECOGNIZE_TIMED_OUT;
+
+		return nativeGetHOCRText(mNativeData, page);
+	}
+
 	/**
 	 * Set the name of the input file. Needed for training and reading a UNLV
 	 * zone file.
@@ -910,6 +1921,9 @@ public class TessBaseAPI {
 			throw new IllegalStateException();
 
 		nativeReadConfigFile(mNativeData, filename);
+		// Config files can't be variable names, which contain no path separators
+		mVariables.put("/" + filename, "");
+		mCachedResult = null;
 	}
 
 	/**
@@ -950,7 +1964,9 @@ public class TessBaseAPI {
 	}
 
 	/**
-	 * Cancel recognition started by {@link #getHOCRText(int)}.
+	 * Cancel recognition started by {@link #getHOCRText(int)}. Recognitions
+	 * started by {@link #recognizeAsync(Pix, Executor)} are cancelled through
+	 * their future instead.
 	 */
 	public void stop() {
 		if (mRecycled)
@@ -959,6 +1975,54 @@ public class TessBaseAPI {
 		nativeStop(mNativeData);
 	}
 
+	/**
+	 * Limits how often the {@link ProgressNotifier} is called. Notifications
+	 * are dropped in native code before reaching Java, so a throttled notifier
+	 * is cheap enough to be left enabled.
+	 * <p>
+	 * While throttling is enabled, the same {@link ProgressValues} instance is
+	 * updated and passed to every notification, so no objects are allocated
+	 * per notification. The values are only valid during the callback and must
+	 * be copied to be kept.
+	 *
+	 * @param minIntervalMillis the minimum time between two notifications, in
+	 *                          milliseconds
+	 * @param minPercentDelta   the minimum increase of the percentage between
+	 *                          two notifications
+	 * @see #clearProgressThrottle()
+	 */
+	public void setProgressThrottle(long minIntervalMillis, int minPercentDelta) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (minIntervalMillis < 0 || minPercentDelta < 0)
+			throw new IllegalArgumentException("Limits must not be negative!");
+
+		if (minIntervalMillis == 0 && minPercentDelta == 0) {
+			clearProgressThrottle();
+			return;
+		}
+
+		if (mReusableProgressValues == null)
+			mReusableProgressValues = new ProgressValues(0, new Rect(), new Rect());
+
+		nativeSetProgressThrottle(mNativeData, minIntervalMillis, minPercentDelta);
+	}
+
+	/**
+	 * Restores the default progress notifications, sent for every recognized
+	 * word with values allocated for each notification.
+	 *
+	 * @see #setProgressThrottle(long, int)
+	 */
+	public void clearProgressThrottle() {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		nativeSetProgressThrottle(mNativeData, 0, 0);
+		mReusableProgressValues = null;
+	}
+
 	/**
 	 * Called from native code to update progress of ongoing recognition passes.
 	 *
@@ -978,10 +2042,16 @@ public class TessBaseAPI {
 									final int textLeft, final int textRight, final int textTop, final int textBottom) {
 
 		if (progressNotifier != null) {
-			Rect wordRect = new Rect(left, textTop - top, right, textTop - bottom);
-			Rect textRect = new Rect(textLeft, textBottom, textRight, textTop);
-
-			ProgressValues pv = new ProgressValues(percent, wordRect, textRect);
+			ProgressValues pv = mReusableProgressValues;
+			if (pv != null) {
+				pv.set(percent, left, textTop - top, right, textTop - bottom,
+						textLeft, textBottom, textRight, textTop);
+			} else {
+				Rect wordRect = new Rect(left, textTop - top, right, textTop - bottom);
+				Rect textRect = new Rect(textLeft, textBottom, textRight, textTop);
+
+				pv = new ProgressValues(percent, wordRect, textRect);
+			}
 			progressNotifier.onProgressValues(pv);
 		}
 	}
@@ -991,61 +2061,83 @@ public class TessBaseAPI {
 	 * <p>
 	 * Caller is responsible for escaping the provided title.
 	 *
-	 * @param tessPdfRenderer the renderer instance to use
-	 * @param title           a title to be used in the document metadata
+	 * @param renderer the renderer instance to use
+	 * @param title    a title to be used in the document metadata
 	 * @return {@code true} on success. {@code false} on failure
 	 */
-	public boolean beginDocument(TessPdfRenderer tessPdfRenderer, String title) {
+	public boolean beginDocument(TessResultRenderer renderer, String title) {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeBeginDocument(tessPdfRenderer.getNativePdfRenderer(),
-				title);
+		try {
+			return nativeBeginDocument(renderer.getNativeRenderer(), title);
+		} finally {
+			NativeReclaimer.keepAlive(renderer);
+		}
 	}
 
 	/**
 	 * Starts a new document with no title.
 	 *
-	 * @param tessPdfRenderer the renderer instance to use
+	 * @param renderer the renderer instance to use
 	 * @return {@code true} on success. {@code false} on failure
-	 * @see #beginDocument(TessPdfRenderer, String)
+	 * @see #beginDocument(TessResultRenderer, String)
 	 */
-	public boolean beginDocument(TessPdfRenderer tessPdfRenderer) {
+	public boolean beginDocument(TessResultRenderer renderer) {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeBeginDocument(tessPdfRenderer.getNativePdfRenderer(), "");
+		try {
+			return nativeBeginDocument(renderer.getNativeRenderer(), "");
+		} finally {
+			NativeReclaimer.keepAlive(renderer);
+		}
 	}
 
 	/**
 	 * Finishes the document and finalizes the output data.
 	 * Invalid if beginDocument not yet called.
 	 *
-	 * @param tessPdfRenderer the renderer instance to use
+	 * @param renderer the renderer instance to use
 	 * @return {@code true} on success. {@code false} on failure
 	 */
-	public boolean endDocument(TessPdfRenderer tessPdfRenderer) {
+	public boolean endDocument(TessResultRenderer renderer) {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeEndDocument(tessPdfRenderer.getNativePdfRenderer());
+		try {
+			return nativeEndDocument(renderer.getNativeRenderer());
+		} finally {
+			NativeReclaimer.keepAlive(renderer);
+		}
 	}
 
 	/**
-	 * Adds the given data to the opened document (if any).
+	 * Adds the given data to the opened document (if any). The page is
+	 * recognized and its results are written by the renderer right away. The
+	 * renderers {@link TessResultRenderer#insert inserted} into the renderer
+	 * write the results of the same recognition.
 	 *
-	 * @param imageToProcess  image to be used for OCR
-	 * @param imageToWrite    path to image to be written into resulting document
-	 * @param tessPdfRenderer the renderer instance to use
+	 * @param imageToProcess image to be used for OCR
+	 * @param imageToWrite   path to image to be written into resulting document
+	 * @param renderer       the renderer instance to use
 	 * @return {@code true} on success. {@code false} on failure
 	 */
 	public boolean addPageToDocument(Pix imageToProcess, String imageToWrite,
-									 TessPdfRenderer tessPdfRenderer) {
+									 TessResultRenderer renderer) {
 		if (mRecycled)
 			throw new IllegalStateException();
 
-		return nativeAddPageToDocument(mNativeData, imageToProcess.getNativePix(),
-				imageToWrite, tessPdfRenderer.getNativePdfRenderer());
+		// The page replaces the current image
+		onImageSet(null);
+
+		try {
+			return nativeAddPageToDocument(mNativeData, imageToProcess.getNativePix(),
+					imageToWrite, renderer.getNativeRenderer());
+		} finally {
+			NativeReclaimer.keepAlive(imageToProcess);
+			NativeReclaimer.keepAlive(renderer);
+		}
 	}
 
 	/*package*/ long getNativeData() {
@@ -1081,19 +2173,34 @@ public class TessBaseAPI {
 	private native boolean nativeInitParams(long mNativeData, String datapath, String language,
 											int mode, String[] vars, String[] varsValues);
 
+	private native boolean nativeInitFd(long mNativeData, int fd, long offset, long length,
+									   String datapath, String language, int mode,
+									   String[] vars, String[] varsValues);
+
 	private native String nativeGetInitLanguagesAsString(long mNativeData);
 
 	private native void nativeClear(long mNativeData);
 
+	private native void nativeWarmUp(long mNativeData);
+
 	private native void nativeSetImageBytes(
 			long mNativeData, byte[] imagedata, int width, int height, int bpp, int bpl);
 
 	private native void nativeSetImagePix(long mNativeData, long nativePix);
 
+	private native void nativeSetImageBuffer(long mNativeData, ByteBuffer buffer, int offset,
+			int width, int height, int bpp, int bpl);
+
 	private native void nativeSetRectangle(long mNativeData, int left, int top, int width, int height);
 
 	private native String nativeGetUTF8Text(long mNativeData);
 
+	private native byte[] nativeRecognizeRegions(long mNativeData, long nativePix, int[] rects,
+			int[] offsets, int[] confidences, int timeoutMillis, int[] status);
+
+	private native byte[] nativeRecognizeBatch(long mNativeData, long[] nativePixs,
+			int[] offsets, int[] confidences, int timeoutMillis, int[] status);
+
 	private native int nativeMeanConfidence(long mNativeData);
 
 	private native int[] nativeWordConfidences(long mNativeData);
@@ -1123,6 +2230,13 @@ public class TessBaseAPI {
 
 	private native long nativeGetResultIterator(long mNativeData);
 
+	private native WordLayout nativeGetWordLayout(long mNativeData, int level);
+
+	private native int nativeWriteResultsBuffer(long mNativeData, ByteBuffer buffer, int position,
+			int remaining, int level);
+
+	private native boolean nativeWriteResultsFile(long mNativeData, String path, int level);
+
 	private native String nativeGetBoxText(long mNativeData, int page_number);
 
 	private native String nativeGetHOCRText(long mNativeData, int page_number);
@@ -1137,6 +2251,13 @@ public class TessBaseAPI {
 
 	private native void nativeStop(long mNativeData);
 
+	private native void nativeClearStop(long mNativeData);
+
+	private native void nativeSetProgressThrottle(long mNativeData, long minIntervalMillis,
+												  int minPercentDelta);
+
+	private native int nativeRecognize(long mNativeData, int timeoutMillis);
+
 	private native boolean nativeBeginDocument(long rendererPointer, String title);
 
 	private native boolean nativeEndDocument(long rendererPointer);
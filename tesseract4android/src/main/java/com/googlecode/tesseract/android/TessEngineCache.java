@@ -0,0 +1,336 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of recently used, initialized {@link TessBaseAPI} instances, so
+ * switching back to a previously used language doesn't have to initialize a
+ * new engine.
+ * <p>
+ * Engines are keyed by data path, language, OCR engine mode and the variables
+ * set at initialization. Idle engines are evicted in least recently used
+ * order when there are more than <code>maxEngines</code> of them, or when the
+ * estimated native memory of all engines exceeds <code>maxBytes</code>. The
+ * memory of an engine is estimated as the size of its traineddata files.
+ * <p>
+ * Engines obtained by {@link #acquire(String, String, int)} must be returned
+ * by {@link #release(TessBaseAPI)} and must not be recycled by the caller.
+ * Engines in use are never evicted, so the budget may be exceeded while they
+ * are checked out. Returned engines are {@link TessBaseAPI#clear() cleared},
+ * but variables and page segmentation mode changed by the caller are kept.
+ * <p>
+ * When the cache is no longer needed, its {@link #recycle} method must be
+ * invoked to dispose of all engines.
+ *
+ * @see TessEnginePool
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class TessEngineCache {
+
+	private final int mMaxEngines;
+
+	private final long mMaxBytes;
+
+	/**
+	 * Idle engines in access order, the eldest first.
+	 */
+	private final LinkedHashMap<EngineKey, Entry> mIdle = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final Map<TessBaseAPI, Entry> mCheckedOut = new IdentityHashMap<>();
+
+	private long mSize;
+
+	private boolean mRecycled;
+
+	private long mHitCount;
+	private long mMissCount;
+	private long mEvictionCount;
+
+	private static final class Entry {
+		final EngineKey key;
+		final TessBaseAPI api;
+		final long size;
+
+		Entry(EngineKey key, TessBaseAPI api, long size) {
+			this.key = key;
+			this.api = api;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * Constructs a cache keeping at most the given number of idle engines
+	 * within the given memory budget.
+	 *
+	 * @param maxEngines maximum number of idle engines
+	 * @param maxBytes   maximum estimated native memory of all engines, in bytes
+	 */
+	public TessEngineCache(int maxEngines, long maxBytes) {
+		if (maxEngines <= 0)
+			throw new IllegalArgumentException("Cache size must be greater than 0");
+		if (maxBytes <= 0)
+			throw new IllegalArgumentException("Memory budget must be greater than 0");
+
+		mMaxEngines = maxEngines;
+		mMaxBytes = maxBytes;
+	}
+
+	/**
+	 * Acquires an engine initialized with the given configuration, reusing a
+	 * cached one if possible.
+	 *
+	 * @param datapath      the parent directory of tessdata ending in a forward
+	 *                      slash
+	 * @param language      an ISO 639-3 string representing the language(s)
+	 * @param ocrEngineMode the OCR engine mode to be set
+	 * @return an initialized engine, which must be returned by {@link #release}
+	 * @see TessBaseAPI#init(String, String, int)
+	 */
+	@WorkerThread
+	public TessBaseAPI acquire(String datapath, String language,
+							   @TessBaseAPI.OcrEngineMode int ocrEngineMode) {
+		return acquire(datapath, language, ocrEngineMode, Collections.<String, String>emptyMap());
+	}
+
+	/**
+	 * Acquires an engine initialized with the given configuration, reusing a
+	 * cached one if possible.
+	 *
+	 * @param datapath      the parent directory of tessdata ending in a forward
+	 *                      slash
+	 * @param language      an ISO 639-3 string representing the language(s)
+	 * @param ocrEngineMode the OCR engine mode to be set
+	 * @param config        variables to be set at initialization; can be empty
+	 * @return an initialized engine, which must be returned by {@link #release}
+	 * @see TessBaseAPI#init(String, String, int, Map)
+	 */
+	@WorkerThread
+	public TessBaseAPI acquire(String datapath, String language,
+							   @TessBaseAPI.OcrEngineMode int ocrEngineMode,
+							   Map<String, String> config) {
+		EngineKey key = new EngineKey(datapath, language, ocrEngineMode, config);
+
+		synchronized (this) {
+			if (mRecycled)
+				throw new IllegalStateException();
+
+			Entry entry = mIdle.remove(key);
+			if (entry != null) {
+				mHitCount++;
+				mCheckedOut.put(entry.api, entry);
+				return entry.api;
+			}
+
+			mMissCount++;
+		}
+
+		// Initialize outside the lock, other keys stay available meanwhile
+		Entry entry = new Entry(key, createEngine(key), key.getModelSize());
+		List<TessBaseAPI> evicted;
+
+		synchronized (this) {
+			if (mRecycled) {
+				entry.api.recycle();
+				throw new IllegalStateException();
+			}
+
+			mCheckedOut.put(entry.api, entry);
+			mSize += entry.size;
+			evicted = trim();
+		}
+
+		recycleAll(evicted);
+		return entry.api;
+	}
+
+	/**
+	 * Returns an engine obtained by {@link #acquire} back to the cache. The
+	 * engine is cleared and must not be used by the caller anymore.
+	 *
+	 * @param api the engine to return
+	 */
+	public void release(TessBaseAPI api) {
+		Entry entry;
+
+		synchronized (this) {
+			entry = mCheckedOut.remove(api);
+		}
+
+		if (entry == null)
+			throw new IllegalArgumentException("Engine was not acquired from this cache");
+
+		boolean recycle;
+		try {
+			api.clear();
+			recycle = false;
+		} catch (IllegalStateException e) {
+			// The engine was recycled by the caller, forget about it
+			recycle = true;
+		}
+
+		List<TessBaseAPI> evicted;
+
+		synchronized (this) {
+			Entry replaced = null;
+			if (recycle || mRecycled) {
+				mSize -= entry.size;
+			} else {
+				// Keep the most recently used engine of a key, drop the other one
+				replaced = mIdle.put(entry.key, entry);
+				if (replaced != null)
+					mSize -= replaced.size;
+			}
+
+			evicted = trim();
+			if (recycle || mRecycled)
+				evicted.add(api);
+			else if (replaced != null)
+				evicted.add(replaced.api);
+		}
+
+		recycleAll(evicted);
+	}
+
+	/**
+	 * Recycles all idle engines. Engines in use are not affected.
+	 */
+	public void evictAll() {
+		List<TessBaseAPI> evicted = new ArrayList<>();
+
+		synchronized (this) {
+			for (Entry entry : mIdle.values()) {
+				mSize -= entry.size;
+				mEvictionCount++;
+				evicted.add(entry.api);
+			}
+			mIdle.clear();
+		}
+
+		recycleAll(evicted);
+	}
+
+	/**
+	 * @return the number of acquisitions served by a cached engine
+	 */
+	public synchronized long getHitCount() {
+		return mHitCount;
+	}
+
+	/**
+	 * @return the number of acquisitions which had to initialize a new engine
+	 */
+	public synchronized long getMissCount() {
+		return mMissCount;
+	}
+
+	/**
+	 * @return the number of idle engines recycled to stay within the limits
+	 */
+	public synchronized long getEvictionCount() {
+		return mEvictionCount;
+	}
+
+	/**
+	 * @return the number of idle engines in the cache
+	 */
+	public synchronized int getIdleCount() {
+		return mIdle.size();
+	}
+
+	/**
+	 * @return the estimated native memory of all engines, both idle and in
+	 * use, in bytes
+	 */
+	public synchronized long getSize() {
+		return mSize;
+	}
+
+	/**
+	 * Recycles all idle engines. Engines currently in use are recycled when
+	 * they are released. No engines can be acquired anymore.
+	 */
+	public void recycle() {
+		List<TessBaseAPI> idle = new ArrayList<>();
+
+		synchronized (this) {
+			if (mRecycled)
+				return;
+
+			mRecycled = true;
+			for (Entry entry : mIdle.values()) {
+				mSize -= entry.size;
+				idle.add(entry.api);
+			}
+			mIdle.clear();
+		}
+
+		recycleAll(idle);
+	}
+
+	/**
+	 * Removes the least recently used idle engines until the cache is within
+	 * its limits. Must be called while holding the lock.
+	 *
+	 * @return the evicted engines, to be recycled outside the lock
+	 */
+	private List<TessBaseAPI> trim() {
+		List<TessBaseAPI> evicted = new ArrayList<>();
+
+		Iterator<Entry> it = mIdle.values().iterator();
+		while (it.hasNext() && (mIdle.size() > mMaxEngines || mSize > mMaxBytes)) {
+			Entry entry = it.next();
+			it.remove();
+			mSize -= entry.size;
+			mEvictionCount++;
+			evicted.add(entry.api);
+		}
+
+		return evicted;
+	}
+
+	private static void recycleAll(List<TessBaseAPI> engines) {
+		for (TessBaseAPI api : engines) {
+			api.recycle();
+		}
+	}
+
+	private static TessBaseAPI createEngine(EngineKey key) {
+		TessBaseAPI api = new TessBaseAPI();
+		boolean success = false;
+		try {
+			success = key.init(api);
+			if (!success) {
+				throw new IllegalArgumentException("Could not initialize Tesseract API with "
+						+ key);
+			}
+			return api;
+		} finally {
+			if (!success)
+				api.recycle();
+		}
+	}
+}
@@ -0,0 +1,513 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of initialized {@link TessBaseAPI} instances which can be shared by
+ * multiple worker threads.
+ * <p>
+ * A single TessBaseAPI must never be used from more than one thread at a time,
+ * but separate instances are independent and may run in parallel. The pool
+ * keeps up to <code>maxEnginesPerKey</code> engines for every combination of
+ * data path, language and OCR engine mode. Engines are created and
+ * initialized lazily on first demand, or ahead of time using
+ * {@link #prepare(String, String, int)}.
+ * <p>
+ * Engines obtained by {@link #acquire(String, String, int)} must be returned
+ * by {@link #release(TessBaseAPI)} and must not be recycled by the caller.
+ * Returned engines are {@link TessBaseAPI#clear() cleared}, but variables and
+ * page segmentation mode changed by the caller are kept, so callers changing
+ * them should restore the original values before releasing the engine.
+ * <p>
+ * When the pool is no longer needed, its {@link #recycle} method must be
+ * invoked to dispose of all engines.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class TessEnginePool {
+
+	private final int mMaxEnginesPerKey;
+
+	private final Map<EngineKey, Slot> mSlots = new HashMap<>();
+
+	private final Map<TessBaseAPI, Slot> mCheckedOut = new IdentityHashMap<>();
+
+	private boolean mRecycled;
+
+	private long mAcquireCount;
+	private long mWaitCount;
+	private long mTimeoutCount;
+	private long mTotalWaitNanos;
+
+	/**
+	 * Engines and bookkeeping for a single {@link EngineKey}.
+	 */
+	private static final class Slot {
+		final EngineKey key;
+		final ArrayDeque<TessBaseAPI> idle = new ArrayDeque<>();
+
+		/**
+		 * Number of engines created (or being created) for this key, including
+		 * the idle and checked out ones.
+		 */
+		int created;
+
+		Slot(EngineKey key) {
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Snapshot of the pool usage statistics.
+	 */
+	public static final class Stats {
+		private final int keyCount;
+		private final int engineCount;
+		private final int idleCount;
+		private final int inUseCount;
+		private final long acquireCount;
+		private final long waitCount;
+		private final long timeoutCount;
+		private final long totalWaitMillis;
+
+		Stats(int keyCount, int engineCount, int idleCount, int inUseCount, long acquireCount,
+			  long waitCount, long timeoutCount, long totalWaitMillis) {
+			this.keyCount = keyCount;
+			this.engineCount = engineCount;
+			this.idleCount = idleCount;
+			this.inUseCount = inUseCount;
+			this.acquireCount = acquireCount;
+			this.waitCount = waitCount;
+			this.timeoutCount = timeoutCount;
+			this.totalWaitMillis = totalWaitMillis;
+		}
+
+		/**
+		 * @return number of distinct engine configurations in the pool
+		 */
+		public int getKeyCount() {
+			return keyCount;
+		}
+
+		/**
+		 * @return number of engines currently owned by the pool, both idle and in use
+		 */
+		public int getEngineCount() {
+			return engineCount;
+		}
+
+		/**
+		 * @return number of engines ready to be acquired without initialization
+		 */
+		public int getIdleCount() {
+			return idleCount;
+		}
+
+		/**
+		 * @return number of engines currently checked out
+		 */
+		public int getInUseCount() {
+			return inUseCount;
+		}
+
+		/**
+		 * @return total number of successful acquisitions
+		 */
+		public long getAcquireCount() {
+			return acquireCount;
+		}
+
+		/**
+		 * @return number of acquisitions which had to wait for another thread
+		 * to release an engine
+		 */
+		public long getWaitCount() {
+			return waitCount;
+		}
+
+		/**
+		 * @return number of acquisitions which timed out
+		 */
+		public long getTimeoutCount() {
+			return timeoutCount;
+		}
+
+		/**
+		 * @return total time spent waiting for engines, in milliseconds
+		 */
+		public long getTotalWaitMillis() {
+			return totalWaitMillis;
+		}
+
+		@Override
+		public String toString() {
+			return "Stats{" +
+					"keyCount=" + keyCount +
+					", engineCount=" + engineCount +
+					", idleCount=" + idleCount +
+					", inUseCount=" + inUseCount +
+					", acquireCount=" + acquireCount +
+					", waitCount=" + waitCount +
+					", timeoutCount=" + timeoutCount +
+					", totalWaitMillis=" + totalWaitMillis +
+					'}';
+		}
+	}
+
+	/**
+	 * Constructs a pool keeping at most the given number of engines for each
+	 * engine configuration. A reasonable value is the number of CPU cores when
+	 * using the standard (single-threaded) flavor of the library.
+	 *
+	 * @param maxEnginesPerKey maximum number of engines per configuration
+	 */
+	public TessEnginePool(int maxEnginesPerKey) {
+		if (maxEnginesPerKey <= 0)
+			throw new IllegalArgumentException("Pool size must be greater than 0");
+
+		mMaxEnginesPerKey = maxEnginesPerKey;
+	}
+
+	/**
+	 * Returns the maximum number of engines kept for each configuration.
+	 *
+	 * @return the maximum number of engines per configuration
+	 */
+	public int getMaxEnginesPerKey() {
+		return mMaxEnginesPerKey;
+	}
+
+	/**
+	 * Creates and initializes all engines for the given configuration ahead of
+	 * time, so that subsequent acquisitions don't have to wait for
+	 * initialization.
+	 *
+	 * @param datapath      the parent directory of tessdata ending in a forward
+	 *                      slash
+	 * @param language      an ISO 639-3 string representing the language(s)
+	 * @param ocrEngineMode the OCR engine mode to be set
+	 * @see TessBaseAPI#init(String, String, int)
+	 */
+	@WorkerThread
+	public void prepare(String datapath, String language, @TessBaseAPI.OcrEngineMode int ocrEngineMode) {
+		prepare(new EngineKey(datapath, language, ocrEngineMode), false);
+	}
+
+	/**
+	 * Creates, initializes and {@link TessBaseAPI#warmUp() warms up} all
+	 * engines for the given configuration on the given executor, e.g. at app
+	 * start, so that the first recognitions are as fast as later ones.
+	 * <p>
+	 * Only engines created by this call are warmed up; engines which already
+	 * exist in the pool are left alone.
+	 *
+	 * @param datapath      the parent directory of tessdata ending in a forward
+	 *                      slash
+	 * @param language      an ISO 639-3 string representing the language(s)
+	 * @param ocrEngineMode the OCR engine mode to be set
+	 * @param executor      the executor to prepare the engines on
+	 * @return a future which completes when the engines are ready
+	 * @see #prepare(String, String, int)
+	 */
+	public Future<Void> prewarm(String datapath, String language,
+								@TessBaseAPI.OcrEngineMode int ocrEngineMode, Executor executor) {
+		if (executor == null)
+			throw new IllegalArgumentException("Executor must not be null!");
+
+		final EngineKey key = new EngineKey(datapath, language, ocrEngineMode);
+
+		synchronized (this) {
+			if (mRecycled)
+				throw new IllegalStateException();
+		}
+
+		FutureTask<Void> task = new FutureTask<>(() -> {
+			prepare(key, true);
+			return null;
+		});
+		executor.execute(task);
+		return task;
+	}
+
+	private void prepare(EngineKey key, boolean warmUp) {
+		Slot slot;
+
+		synchronized (this) {
+			if (mRecycled)
+				throw new IllegalStateException();
+
+			slot = getSlot(key);
+		}
+
+		while (true) {
+			synchronized (this) {
+				if (mRecycled || slot.created >= mMaxEnginesPerKey)
+					return;
+
+				slot.created++;
+			}
+
+			TessBaseAPI api = createEngine(slot, warmUp);
+
+			synchronized (this) {
+				if (mRecycled) {
+					api.recycle();
+					return;
+				}
+				slot.idle.addLast(api);
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Acquires an engine initialized with the given configuration, waiting
+	 * for another thread to release one if all engines are in use.
+	 *
+	 * @param datapath      the parent directory of tessdata ending in a forward
+	 *                      slash
+	 * @param language      an ISO 639-3 string representing the language(s)
+	 * @param ocrEngineMode the OCR engine mode to be set
+	 * @return an initialized engine, which must be returned by {@link #release}
+	 * @throws InterruptedException if interrupted while waiting
+	 * @see TessBaseAPI#init(String, String, int)
+	 */
+	@WorkerThread
+	public TessBaseAPI acquire(String datapath, String language,
+							   @TessBaseAPI.OcrEngineMode int ocrEngineMode) throws InterruptedException {
+		return acquire(new EngineKey(datapath, language, ocrEngineMode), -1);
+	}
+
+	/**
+	 * Acquires an engine initialized with the given configuration, waiting
+	 * at most the given time for another thread to release one if all engines
+	 * are in use.
+	 *
+	 * @param datapath      the parent directory of tessdata ending in a forward
+	 *                      slash
+	 * @param language      an ISO 639-3 string representing the language(s)
+	 * @param ocrEngineMode the OCR engine mode to be set
+	 * @param timeout       the maximum time to wait
+	 * @param unit          the time unit of the timeout argument
+	 * @return an initialized engine, which must be returned by {@link #release},
+	 * or <code>null</code> if the timeout elapsed
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	@WorkerThread
+	public TessBaseAPI acquire(String datapath, String language,
+							   @TessBaseAPI.OcrEngineMode int ocrEngineMode,
+							   long timeout, TimeUnit unit) throws InterruptedException {
+		if (timeout < 0)
+			throw new IllegalArgumentException("Timeout must not be negative");
+
+		return acquire(new EngineKey(datapath, language, ocrEngineMode), unit.toNanos(timeout));
+	}
+
+	/**
+	 * @param timeoutNanos maximum time to wait, or a negative value to wait
+	 *                     indefinitely
+	 */
+	private TessBaseAPI acquire(EngineKey key, long timeoutNanos) throws InterruptedException {
+		Slot slot;
+		long start = System.nanoTime();
+		boolean waited = false;
+
+		synchronized (this) {
+			if (mRecycled)
+				throw new IllegalStateException();
+
+			slot = getSlot(key);
+
+			while (slot.idle.isEmpty() && slot.created >= mMaxEnginesPerKey) {
+				long remaining = timeoutNanos < 0 ? 0 : timeoutNanos - (System.nanoTime() - start);
+				if (timeoutNanos >= 0 && remaining <= 0) {
+					mTimeoutCount++;
+					mTotalWaitNanos += System.nanoTime() - start;
+					return null;
+				}
+
+				waited = true;
+				if (timeoutNanos < 0) {
+					wait();
+				} else {
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+
+				if (mRecycled)
+					throw new IllegalStateException();
+			}
+
+			if (waited) {
+				mWaitCount++;
+				mTotalWaitNanos += System.nanoTime() - start;
+			}
+
+			TessBaseAPI api = slot.idle.pollFirst();
+			if (api != null) {
+				mAcquireCount++;
+				mCheckedOut.put(api, slot);
+				return api;
+			}
+
+			// Reserve the place for a new engine and initialize it outside the lock
+			slot.created++;
+		}
+
+		TessBaseAPI api = createEngine(slot, false);
+
+		synchronized (this) {
+			if (mRecycled) {
+				api.recycle();
+				throw new IllegalStateException();
+			}
+			mAcquireCount++;
+			mCheckedOut.put(api, slot);
+		}
+		return api;
+	}
+
+	/**
+	 * Returns an engine obtained by {@link #acquire} back to the pool. The
+	 * engine is cleared and must not be used by the caller anymore.
+	 *
+	 * @param api the engine to return
+	 */
+	public void release(TessBaseAPI api) {
+		Slot slot;
+
+		synchronized (this) {
+			slot = mCheckedOut.remove(api);
+		}
+
+		if (slot == null)
+			throw new IllegalArgumentException("Engine was not acquired from this pool");
+
+		boolean recycle;
+		try {
+			api.clear();
+			recycle = false;
+		} catch (IllegalStateException e) {
+			// The engine was recycled by the caller, forget about it
+			recycle = true;
+		}
+
+		synchronized (this) {
+			if (recycle || mRecycled) {
+				slot.created--;
+				api.recycle();
+			} else {
+				slot.idle.addFirst(api);
+			}
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Returns current usage statistics of this pool.
+	 *
+	 * @return snapshot of the statistics
+	 */
+	public synchronized Stats getStats() {
+		int engines = 0;
+		int idle = 0;
+		for (Slot slot : mSlots.values()) {
+			engines += slot.created;
+			idle += slot.idle.size();
+		}
+
+		return new Stats(mSlots.size(), engines, idle, mCheckedOut.size(), mAcquireCount,
+				mWaitCount, mTimeoutCount, TimeUnit.NANOSECONDS.toMillis(mTotalWaitNanos));
+	}
+
+	/**
+	 * Recycles all idle engines. Engines currently in use are recycled when
+	 * they are released. No engines can be acquired anymore.
+	 */
+	public void recycle() {
+		List<TessBaseAPI> idle = new ArrayList<>();
+
+		synchronized (this) {
+			if (mRecycled)
+				return;
+
+			mRecycled = true;
+			for (Slot slot : mSlots.values()) {
+				idle.addAll(slot.idle);
+				slot.created -= slot.idle.size();
+				slot.idle.clear();
+			}
+			notifyAll();
+		}
+
+		for (TessBaseAPI api : idle) {
+			api.recycle();
+		}
+	}
+
+	private Slot getSlot(EngineKey key) {
+		Slot slot = mSlots.get(key);
+		if (slot == null) {
+			slot = new Slot(key);
+			mSlots.put(key, slot);
+		}
+		return slot;
+	}
+
+	/**
+	 * Creates a new engine for the slot, whose place must already be reserved
+	 * by incrementing {@link Slot#created}. The reservation is cancelled
+	 * on failure.
+	 */
+	private TessBaseAPI createEngine(Slot slot, boolean warmUp) {
+		TessBaseAPI api = null;
+		boolean success = false;
+		try {
+			api = new TessBaseAPI();
+			boolean initialized = slot.key.init(api);
+			if (!initialized) {
+				throw new IllegalArgumentException("Could not initialize Tesseract API with "
+						+ slot.key);
+			}
+			if (warmUp)
+				api.warmUp();
+			success = true;
+			return api;
+		} finally {
+			if (!success) {
+				if (api != null)
+					api.recycle();
+
+				synchronized (this) {
+					slot.created--;
+					notifyAll();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ * Copyright 2015 Robert Theis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import android.os.ParcelFileDescriptor;
+
+import java.io.IOException;
+
+/**
+ * Java representation of a native Tesseract LSTM box renderer
+ */
+public class TessLSTMBoxRenderer extends TessResultRenderer {
+
+	/**
+	 * Constructs an instance of a Tesseract LSTM box renderer.
+	 * <p>
+	 * When the instance of TessLSTMBoxRenderer is no longer needed, its
+	 * {@link #recycle} method must be invoked to dispose of it.
+	 *
+	 * @param outputBase Full path to write the output to, not including the
+	 *                   ".box" extension
+	 */
+	public TessLSTMBoxRenderer(String outputBase) {
+		super(nativeCreate(outputBase));
+	}
+
+	/**
+	 * Constructs an instance of a Tesseract LSTM box renderer writing to a
+	 * file descriptor. The descriptor may be closed by the caller once the
+	 * renderer is constructed.
+	 *
+	 * @param fd the descriptor to write to, opened for writing
+	 * @throws IOException if the output can't be set up
+	 */
+	public TessLSTMBoxRenderer(ParcelFileDescriptor fd) throws IOException {
+		super(fd, "box", TessLSTMBoxRenderer::nativeCreate);
+	}
+
+	private static native long nativeCreate(String outputBase);
+
+}
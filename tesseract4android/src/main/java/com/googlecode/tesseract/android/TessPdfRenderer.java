@@ -17,24 +17,17 @@
 
 package com.googlecode.tesseract.android;
 
-/**
- * Java representation of a native Tesseract PDF renderer
- */
-public class TessPdfRenderer {
+import android.os.ParcelFileDescriptor;
 
-	/**
-	 * Used by the native implementation of the class.
-	 */
-	private final long mNativePdfRenderer;
+import com.googlecode.leptonica.android.NativeReclaimer;
 
-	static {
-		System.loadLibrary("jpeg");
-		System.loadLibrary("pngx");
-		System.loadLibrary("leptonica");
-		System.loadLibrary("tesseract");
-	}
+import java.io.IOException;
+import java.io.OutputStream;
 
-	private boolean mRecycled;
+/**
+ * Java representation of a native Tesseract PDF renderer
+ */
+public class TessPdfRenderer extends TessResultRenderer {
 
 	/**
 	 * Constructs an instance of a Tesseract PDF renderer.
@@ -47,31 +40,62 @@ public class TessPdfRenderer {
 	 *                   including the ".pdf" extension
 	 */
 	public TessPdfRenderer(TessBaseAPI baseApi, String outputPath) {
-		this.mNativePdfRenderer = nativeCreate(baseApi.getNativeData(), outputPath);
-		mRecycled = false;
+		super(create(baseApi, outputPath));
 	}
 
 	/**
-	 * @return A pointer to the native TessPdfRenderer object.
+	 * Constructs an instance of a Tesseract PDF renderer writing to a file
+	 * descriptor, e.g. one provided by a content provider, a pipe or a socket.
+	 * <p>
+	 * The PDF is written the same way as by
+	 * {@link #TessPdfRenderer(TessBaseAPI, OutputStream)}, to a duplicate of
+	 * the descriptor, which the renderer closes once the whole document was
+	 * written. The descriptor may be closed by the caller once the renderer
+	 * is constructed. Once the renderer was recycled, {@link #getOutputError()}
+	 * tells whether writing failed.
+	 *
+	 * @param baseApi API instance to use for performing OCR
+	 * @param fd      the descriptor to write the PDF to, opened for writing
+	 * @throws IOException if the output can't be set up
 	 */
-	public long getNativePdfRenderer() {
-		if (mRecycled)
-			throw new IllegalStateException();
+	public TessPdfRenderer(final TessBaseAPI baseApi, ParcelFileDescriptor fd)
+			throws IOException {
+		super(fd, "pdf", outputBase -> create(baseApi, outputBase));
+	}
 
-		return mNativePdfRenderer;
+	/**
+	 * Constructs an instance of a Tesseract PDF renderer writing to an
+	 * OutputStream. Each page is written to the stream as it is added, so the
+	 * document is never held in memory as a whole.
+	 * <p>
+	 * The stream is written by a background thread and flushed at least once
+	 * per page. It is not closed by the renderer. Once the renderer was
+	 * recycled, the whole document was written and
+	 * {@link #getOutputError()} tells whether writing failed.
+	 *
+	 * @param baseApi API instance to use for performing OCR
+	 * @param out     the stream to write the PDF to
+	 * @throws IOException if the output can't be set up
+	 */
+	public TessPdfRenderer(final TessBaseAPI baseApi, OutputStream out) throws IOException {
+		super(out, "pdf", outputBase -> create(baseApi, outputBase));
 	}
 
 	/**
-	 * Releases resources and frees any memory associated with this
-	 * TessPdfRenderer object. Must be called on object destruction.
+	 * @return A pointer to the native TessPdfRenderer object.
+	 * @see #getNativeRenderer()
 	 */
-	public void recycle() {
-		nativeRecycle(mNativePdfRenderer);
-		mRecycled = true;
+	public long getNativePdfRenderer() {
+		return getNativeRenderer();
 	}
 
-	private static native long nativeCreate(long tessBaseAPINativeData, String outputPath);
+	private static long create(TessBaseAPI baseApi, String outputBase) {
+		long nativeRenderer = nativeCreate(baseApi.getNativeData(), outputBase);
+		NativeReclaimer.keepAlive(baseApi);
 
-	private static native void nativeRecycle(long nativePointer);
+		return nativeRenderer;
+	}
+
+	private static native long nativeCreate(long tessBaseAPINativeData, String outputPath);
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ * Copyright 2015 Robert Theis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.googlecode.tesseract.android;
+
+import android.os.ParcelFileDescriptor;
+
+import com.googlecode.leptonica.android.NativeReclaimer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Java representation of a native Tesseract result renderer, which writes
+ * the results of the pages added by
+ * {@link TessBaseAPI#addPageToDocument(com.googlecode.leptonica.android.Pix, String, TessResultRenderer)}
+ * to its output as they are processed.
+ * <p>
+ * When the instance of a renderer is no longer needed, its {@link #recycle}
+ * method must be invoked to dispose of it. This also closes its output.
+ * <p>
+ * Several renderers can be chained by {@link #insert}, so a page added to the
+ * first one is recognized once and written by all of them.
+ *
+ * @see TessBaseAPI#beginDocument(TessResultRenderer, String)
+ */
+public abstract class TessResultRenderer implements Closeable {
+
+	/**
+	 * Used by the native implementation of the class.
+	 */
+	private final long mNativeRenderer;
+
+	static {
+		System.loadLibrary("jpeg");
+		System.loadLibrary("pngx");
+		System.loadLibrary("leptonica");
+		System.loadLibrary("tesseract");
+	}
+
+	private final NativeReclaimer.Registration mRegistration;
+
+	private boolean mRecycled;
+
+	/**
+	 * The renderer this one was inserted into, which owns the native renderer.
+	 */
+	private TessResultRenderer mOwner;
+
+	/**
+	 * Renderers inserted into this one, owned by its native renderer.
+	 */
+	private final List<TessResultRenderer> mInserted = new ArrayList<>();
+
+	/**
+	 * Copies the output to an OutputStream, or <code>null</code> if the
+	 * renderer writes to a file.
+	 */
+	private OutputPump mPump;
+
+	/**
+	 * Creates a native renderer writing to the given output base.
+	 */
+	interface Factory {
+		long create(String outputBase);
+	}
+
+	TessResultRenderer(long nativeRenderer) {
+		mNativeRenderer = nativeRenderer;
+		mRegistration = NativeReclaimer.register(this, mNativeRenderer,
+				TessResultRenderer::nativeRecycle);
+		mRecycled = false;
+	}
+
+	/**
+	 * Creates a native renderer writing to an OutputStream.
+	 * <p>
+	 * Native renderers only open paths, so the renderer writes into a named
+	 * pipe, which is created in the temporary directory of the application,
+	 * given by the <code>java.io.tmpdir</code> property, and removed right
+	 * after the renderer opened it. The pipe is drained into the stream by a
+	 * background thread. Native code thus buffers at most the capacity of the
+	 * pipe and blocks while the stream falls behind. The stream is flushed
+	 * whenever the pipe is drained, i.e. at least once per page, and is not
+	 * closed by the renderer.
+	 *
+	 * @param out       the stream to write to
+	 * @param extension the file extension of the renderer
+	 * @param factory   creates the native renderer
+	 * @throws IOException if the output can't be set up
+	 */
+	TessResultRenderer(OutputStream out, String extension, Factory factory) throws IOException {
+		this(new OutputPump(out, false), extension, factory);
+	}
+
+	/**
+	 * Creates a native renderer writing to a file descriptor.
+	 * <p>
+	 * The output is copied to a duplicate of the descriptor the same way as
+	 * to an OutputStream, so any descriptor open for writing can be used,
+	 * including pipes, sockets and descriptors of content providers. The
+	 * duplicate is closed once all output was written.
+	 *
+	 * @param fd        the descriptor to write to
+	 * @param extension the file extension of the renderer
+	 * @param factory   creates the native renderer
+	 * @throws IOException if the output can't be set up
+	 */
+	TessResultRenderer(ParcelFileDescriptor fd, String extension, Factory factory)
+			throws IOException {
+		this(new OutputPump(new ParcelFileDescriptor.AutoCloseOutputStream(fd.dup()), true),
+				extension, factory);
+	}
+
+	private TessResultRenderer(OutputPump pump, String extension, Factory factory)
+			throws IOException {
+		this(pump.createRenderer(extension, factory));
+		mPump = pump;
+		pump.start();
+	}
+
+	/**
+	 * @return A pointer to the native renderer object.
+	 */
+	public long getNativeRenderer() {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		return mNativeRenderer;
+	}
+
+	/**
+	 * @return the extension appended to the output base, e.g. "txt"
+	 */
+	public String getFileExtension() {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		try {
+			return nativeGetFileExtension(mNativeRenderer);
+		} finally {
+			NativeReclaimer.keepAlive(this);
+		}
+	}
+
+	/**
+	 * Inserts a renderer right after this one, so documents begun, pages added
+	 * and documents ended with this renderer are also written by the inserted
+	 * one and the renderers inserted into it. A page is recognized only once
+	 * for all of them.
+	 * <p>
+	 * The inserted renderer is owned by this one from now on and is recycled
+	 * together with it; recycling it separately does nothing.
+	 *
+	 * @param next the renderer to be inserted
+	 */
+	public void insert(TessResultRenderer next) {
+		if (mRecycled)
+			throw new IllegalStateException();
+
+		if (next.mRecycled)
+			throw new IllegalArgumentException("Renderer is recycled");
+		if (next.mOwner != null)
+			throw new IllegalArgumentException("Renderer is already inserted");
+		for (TessResultRenderer owner = this; owner != null; owner = owner.mOwner) {
+			if (owner == next)
+				throw new IllegalArgumentException("Renderer can't be inserted into itself");
+		}
+
+		// The native renderer deletes the inserted ones when it is deleted
+		NativeReclaimer.unregister(next.mRegistration);
+		next.mOwner = this;
+		mInserted.add(next);
+
+		nativeInsert(mNativeRenderer, next.mNativeRenderer);
+		NativeReclaimer.keepAlive(this);
+		NativeReclaimer.keepAlive(next);
+	}
+
+	/**
+	 * Returns the error which occurred while writing to the OutputStream or
+	 * file descriptor of the renderer. Once an error occurred, the rest of the
+	 * output is discarded. The output is complete only after the renderer was
+	 * recycled.
+	 *
+	 * @return the error, or <code>null</code> if there was none or the
+	 * renderer writes to a path
+	 */
+	public IOException getOutputError() {
+		return mPump != null ? mPump.getError() : null;
+	}
+
+	/**
+	 * Releases resources and frees any memory associated with this renderer
+	 * object and the renderers inserted into it and closes their outputs.
+	 * Must be called on object destruction. Does nothing if this renderer was
+	 * inserted into another one.
+	 * <p>
+	 * Renderers writing to an OutputStream or file descriptor wait until all
+	 * of their output was written.
+	 */
+	public void recycle() {
+		if (!mRecycled && mOwner == null) {
+			if (NativeReclaimer.unregister(mRegistration))
+				nativeRecycle(mNativeRenderer);
+
+			markRecycled();
+		}
+	}
+
+	private void markRecycled() {
+		mRecycled = true;
+
+		// The pipe was closed by the native renderer, wait for the rest
+		if (mPump != null)
+			mPump.join();
+
+		for (TessResultRenderer renderer : mInserted) {
+			renderer.markRecycled();
+		}
+	}
+
+	/**
+	 * Same as {@link #recycle()}.
+	 */
+	@Override
+	public void close() {
+		recycle();
+	}
+
+	/**
+	 * Copies everything written into a named pipe to an OutputStream.
+	 */
+	private static final class OutputPump implements Runnable {
+		private static final int BUFFER_SIZE = 16 * 1024;
+
+		private final OutputStream mOut;
+
+		private final boolean mCloseOut;
+
+		private ParcelFileDescriptor mSource;
+
+		private Thread mThread;
+
+		private IOException mError;
+
+		OutputPump(OutputStream out, boolean closeOut) {
+			mOut = out;
+			mCloseOut = closeOut;
+		}
+
+		long createRenderer(String extension, Factory factory) throws IOException {
+			boolean success = false;
+			File base = null;
+			File fifo = null;
+			try {
+				// Reserves a unique output base, the pipe gets the extension appended
+				base = File.createTempFile("tess-", "");
+				fifo = new File(base.getPath() + "." + extension);
+
+				int fd = nativeOpenFifo(fifo.getAbsolutePath());
+				if (fd < 0)
+					throw new IOException("Could not create named pipe " + fifo);
+				mSource = ParcelFileDescriptor.adoptFd(fd);
+
+				long nativeRenderer = factory.create(base.getAbsolutePath());
+				if (!nativeIsHappy(nativeRenderer)) {
+					nativeRecycle(nativeRenderer);
+					throw new IOException("Renderer could not open its output");
+				}
+
+				success = true;
+				return nativeRenderer;
+			} finally {
+				// Both ends of the pipe are open, so it is no longer needed by name
+				if (fifo != null) {
+					//noinspection ResultOfMethodCallIgnored
+					fifo.delete();
+				}
+				if (base != null) {
+					//noinspection ResultOfMethodCallIgnored
+					base.delete();
+				}
+				if (!success) {
+					if (mSource != null)
+						closeQuietly(mSource);
+					if (mCloseOut)
+						closeQuietly(mOut);
+				}
+			}
+		}
+
+		void start() {
+			mThread = new Thread(this, "TessResultRenderer");
+			mThread.setDaemon(true);
+			mThread.start();
+		}
+
+		void join() {
+			boolean interrupted = false;
+			while (true) {
+				try {
+					mThread.join();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+
+		synchronized IOException getError() {
+			return mError;
+		}
+
+		@Override
+		public void run() {
+			InputStream in = new ParcelFileDescriptor.AutoCloseInputStream(mSource);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			try {
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					// Keep draining after an error, so the renderer doesn't block
+					if (getError() == null)
+						write(buffer, read, in.available() == 0);
+				}
+			} catch (IOException e) {
+				setError(e);
+			} finally {
+				closeQuietly(in);
+				if (mCloseOut)
+					closeQuietly(mOut);
+			}
+		}
+
+		private void write(byte[] buffer, int length, boolean flush) {
+			try {
+				mOut.write(buffer, 0, length);
+				if (flush)
+					mOut.flush();
+			} catch (IOException e) {
+				setError(e);
+			}
+		}
+
+		private synchronized void setError(IOException e) {
+			if (mError == null)
+				mError = e;
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// Nothing left to do
+		}
+	}
+
+	private static native void nativeRecycle(long nativePointer);
+
+	private static native String nativeGetFileExtension(long nativePointer);
+
+	private static native boolean nativeIsHappy(long nativePointer);
+
+	private static native int nativeOpenFifo(String path);
+
+	private static native void nativeInsert(long nativePointer, long nextPointer);
+
+}
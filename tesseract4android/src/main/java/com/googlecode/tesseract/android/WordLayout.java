@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2019 Adaptech s.r.o., Robert Pösel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.googlecode.tesseract.android;
+
+import android.graphics.Rect;
+
+import androidx.annotation.Keep;
+import androidx.annotation.NonNull;
+
+import com.googlecode.tesseract.android.TessBaseAPI.PageIteratorLevel;
+
+import java.nio.charset.Charset;
+
+/**
+ * Layout of the recognized elements of one page iterator level, collected in
+ * a single native traversal and stored in packed arrays.
+ * <p>
+ * The texts of all elements are concatenated into one UTF-8 byte array. The
+ * text of element <code>i</code> spans the bytes from <code>offsets[i]</code>
+ * to <code>offsets[i + 1]</code>. The bounding box of element <code>i</code>
+ * is stored as left, top, right and bottom at <code>boxes[4 * i]</code>.
+ * <p>
+ * Each element also records the index of the block, paragraph and text line
+ * it belongs to. The indices of a level count the blocks, paragraphs or lines
+ * containing elements in reading order, starting at 0. Levels which are not
+ * coarser than the level of the layout are set to -1.
+ *
+ * @see TessBaseAPI#getWordLayout(int)
+ */
+@SuppressWarnings("WeakerAccess")
+public final class WordLayout {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final int mLevel;
+
+	@NonNull
+	private final byte[] mText;
+
+	@NonNull
+	private final int[] mOffsets;
+
+	@NonNull
+	private final int[] mBoxes;
+
+	@NonNull
+	private final float[] mConfidences;
+
+	@NonNull
+	private final int[] mBlockIndices;
+
+	@NonNull
+	private final int[] mParagraphIndices;
+
+	@NonNull
+	private final int[] mLineIndices;
+
+	/**
+	 * Constructed by native code.
+	 */
+	@Keep
+	WordLayout(int level, @NonNull byte[] text, @NonNull int[] offsets, @NonNull int[] boxes,
+			   @NonNull float[] confidences, @NonNull int[] blockIndices,
+			   @NonNull int[] paragraphIndices, @NonNull int[] lineIndices) {
+		mLevel = level;
+		mText = text;
+		mOffsets = offsets;
+		mBoxes = boxes;
+		mConfidences = confidences;
+		mBlockIndices = blockIndices;
+		mParagraphIndices = paragraphIndices;
+		mLineIndices = lineIndices;
+	}
+
+	/**
+	 * @return the page iterator level of the elements
+	 */
+	@PageIteratorLevel.Level
+	public int getLevel() {
+		return mLevel;
+	}
+
+	/**
+	 * @return the number of elements
+	 */
+	public int getCount() {
+		return mConfidences.length;
+	}
+
+	/**
+	 * Decodes the text of a single element.
+	 *
+	 * @param index the index of the element
+	 * @return the trimmed text of the element
+	 */
+	@NonNull
+	public String getText(int index) {
+		int start = mOffsets[index];
+		return new String(mText, start, mOffsets[index + 1] - start, UTF_8);
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the confidence of the element (0..100)
+	 */
+	public float getConfidence(int index) {
+		return mConfidences[index];
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the bounding rectangle of the element, in image coordinates
+	 */
+	@NonNull
+	public Rect getBoundingRect(int index) {
+		int i = 4 * index;
+		return new Rect(mBoxes[i], mBoxes[i + 1], mBoxes[i + 2], mBoxes[i + 3]);
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the index of the block of the element, or -1
+	 */
+	public int getBlockIndex(int index) {
+		return mBlockIndices[index];
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the index of the paragraph of the element, or -1
+	 */
+	public int getParagraphIndex(int index) {
+		return mParagraphIndices[index];
+	}
+
+	/**
+	 * @param index the index of the element
+	 * @return the index of the text line of the element, or -1
+	 */
+	public int getLineIndex(int index) {
+		return mLineIndices[index];
+	}
+
+	/**
+	 * Returns the packed UTF-8 text of all elements. The array is not copied
+	 * and must not be modified.
+	 *
+	 * @return the concatenated texts
+	 */
+	@NonNull
+	public byte[] getPackedText() {
+		return mText;
+	}
+
+	/**
+	 * Returns the offsets of the texts in {@link #getPackedText()}, one more
+	 * than the number of elements. The array is not copied and must not be
+	 * modified.
+	 *
+	 * @return the offsets of the texts
+	 */
+	@NonNull
+	public int[] getOffsets() {
+		return mOffsets;
+	}
+
+	/**
+	 * Returns the bounding boxes of all elements as left, top, right and
+	 * bottom, four values per element. The array is not copied and must not be
+	 * modified.
+	 *
+	 * @return the bounding boxes
+	 */
+	@NonNull
+	public int[] getBoxes() {
+		return mBoxes;
+	}
+
+	/**
+	 * Returns the confidences of all elements. The array is not copied and
+	 * must not be modified.
+	 *
+	 * @return the confidences (0..100)
+	 */
+	@NonNull
+	public float[] getConfidences() {
+		return mConfidences;
+	}
+
+	/**
+	 * Returns the block indices of all elements. The array is not copied and
+	 * must not be modified.
+	 *
+	 * @return the block indices
+	 */
+	@NonNull
+	public int[] getBlockIndices() {
+		return mBlockIndices;
+	}
+
+	/**
+	 * Returns the paragraph indices of all elements. The array is not copied
+	 * and must not be modified.
+	 *
+	 * @return the paragraph indices
+	 */
+	@NonNull
+	public int[] getParagraphIndices() {
+		return mParagraphIndices;
+	}
+
+	/**
+	 * Returns the text line indices of all elements. The array is not copied
+	 * and must not be modified.
+	 *
+	 * @return the text line indices
+	 */
+	@NonNull
+	public int[] getLineIndices() {
+		return mLineIndices;
+	}
+}